@@ -23,13 +23,19 @@
  */
 package com.johnsproject.jpge;
 
+import java.awt.GraphicsEnvironment;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.johnsproject.jpge.dto.Camera;
+import com.johnsproject.jpge.dto.Face;
 import com.johnsproject.jpge.dto.RenderBuffer;
 import com.johnsproject.jpge.dto.Scene;
+import com.johnsproject.jpge.dto.SceneState;
+import com.johnsproject.jpge.dto.Transform;
 import com.johnsproject.jpge.graphics.Animator;
 import com.johnsproject.jpge.graphics.Renderer;
+import com.johnsproject.jpge.graphics.ResolutionScaler;
 import com.johnsproject.jpge.graphics.SceneWindow;
 import com.johnsproject.jpge.io.InputManager;
 import com.johnsproject.jpge.physics.PhysicsAnimator;
@@ -37,14 +43,21 @@ import com.johnsproject.jpge.physics.PhysicsAnimator;
 /**
  * The Engine class initializes the needed components 
  * and manages the threads used to call the update methods.
+ * A headless engine doesn't start any threads, it's updated by calling 
+ * {@link #step(int)} and {@link #renderFrame()}.
  * 
  * @author John´s Project - John Salomon
  */
 public class Engine {
 	
-	private static Engine instance = new Engine();
+	// the default engine is only created when its used, 
+	// so that headless engines can be created without starting it
+	private static class DefaultEngine {
+		private static final Engine instance = new Engine();
+	}
+	
 	public static Engine getInstance() {
-		return instance;
+		return DefaultEngine.instance;
 	}
 	
 	private Thread graphicsThread;
@@ -52,13 +65,16 @@ public class Engine {
 	private Thread inputThread;
 	private Thread physicsThread;
 	
-	private int graphicsUpdateRate = 30;
-	private int jpgeUpdateRate = 30;
-	private int inputUpdateRate = 30;
-	private int physicsUpdateRate = 30;
+	private FixedTimestep graphicsTimestep = new FixedTimestep(30, 1);
+	private FixedTimestep jpgeTimestep = new FixedTimestep(30, 1);
+	private FixedTimestep inputTimestep = new FixedTimestep(30, 1);
+	private FixedTimestep physicsTimestep = new FixedTimestep(30, 5);
 	
 	private long startTime = System.currentTimeMillis();
-	private boolean playing = true;
+	private volatile boolean playing = true;
+	private volatile int session = 0;
+	private boolean headless = false;
+	private EngineScheduler scheduler = null;
 	
 	private int lastJPGETime = 0;
 	private int lastGraphicsTime = 0;
@@ -69,18 +85,55 @@ public class Engine {
 	private Scene scene = new Scene();
 	private Renderer renderer = new Renderer();
 	private Animator animator = new Animator();
-	private InputManager inputManager = new InputManager();
+	private InputManager inputManager;
 	private PhysicsAnimator physicsAnimator = new PhysicsAnimator();
-	private RenderBuffer renderBuffer = new RenderBuffer(320, 240);
+	// the renderer draws into the back buffer while the window shows the front buffer
+	private TripleBuffer<RenderBuffer> renderBuffers = new TripleBuffer<RenderBuffer>(
+			new RenderBuffer(320, 240), new RenderBuffer(320, 240), new RenderBuffer(320, 240));
+	private volatile RenderBuffer renderBuffer = renderBuffers.getBuffer(2);
+	private volatile int renderWidth = 320;
+	private volatile int renderHeight = 240;
+	private volatile ResolutionScaler resolutionScaler = null;
 	private SceneWindow sceneWindow = null;
+	private TripleBuffer<SceneState> sceneStates = new TripleBuffer<SceneState>(
+			new SceneState(), new SceneState(), new SceneState());
+	// held while the jpge, input and physics updates change the scene and while its copied
+	private final Object sceneLock = new Object();
 	
 	private List<JPGE> jpgeListeners = new ArrayList<JPGE>();
 	
 	public Engine() {
-		startGraphicsThread();
-		startInputThread();
-		startPhysicsThread();
-		startJPGEThread();
+		this(false);
+	}
+	
+	/**
+	 * Creates a new engine. A headless engine doesn't start any threads and doesn't use the 
+	 * awt toolkit, it only renders into its {@link RenderBuffer}. 
+	 * It's updated by calling {@link #step(int)} and {@link #renderFrame()}.
+	 * 
+	 * @param headless if the engine should be headless.
+	 */
+	public Engine(boolean headless) {
+		this.headless = headless;
+		this.inputManager = new InputManager(!headless);
+		if (headless) {
+			setPlaying(false);
+		} else {
+			start();
+		}
+	}
+	
+	/**
+	 * Creates a new engine that is updated by the threads of the given {@link EngineScheduler} 
+	 * instead of its own threads. This way many engines can share a few threads.
+	 * The engine only listens to awt input if the environment is not headless.
+	 * 
+	 * @param scheduler {@link EngineScheduler} that should update this engine.
+	 */
+	public Engine(EngineScheduler scheduler) {
+		this.scheduler = scheduler;
+		this.inputManager = new InputManager(!GraphicsEnvironment.isHeadless());
+		start();
 	}
 	
 	/**
@@ -89,6 +142,15 @@ public class Engine {
 	public void play() {
 		if (!isPlaying()) {
 			setPlaying(true);
+			start();
+		}
+	}
+	
+	private void start() {
+		session++;
+		if (scheduler != null) {
+			scheduler.schedule(this);
+		} else {
 			startGraphicsThread();
 			startInputThread();
 			startPhysicsThread();
@@ -109,6 +171,38 @@ public class Engine {
 		playing = value;
 	}
 	
+	/**
+	 * Updates the jpge listeners, input and physics the given times without waiting between the updates. 
+	 * This should only be called while the engine is not playing, like when its headless.
+	 * 
+	 * @param ticks how many updates to do.
+	 */
+	public void step(int ticks) {
+		for (int i = 0; i < ticks; i++) {
+			for (int j = 0; j < jpgeListeners.size(); j++) {
+				jpgeListeners.get(j).update();
+			}
+			inputManager.update();
+			physicsAnimator.animate(scene);
+		}
+	}
+	
+	/**
+	 * Renders the current state of the {@link Scene} into the {@link RenderBuffer} of the engine. 
+	 * This should only be called while the engine is not playing, like when its headless.
+	 * 
+	 * @return rendered {@link Face faces}. (faces that are not culled)
+	 */
+	public int renderFrame() {
+		final long before = System.nanoTime();
+		sceneStates.getBack().update(scene);
+		sceneStates.publish();
+		animator.animate(scene);
+		lastRendereredFaces = render();
+		lastGraphicsTime = toMillis(System.nanoTime() - before);
+		return lastRendereredFaces;
+	}
+	
 	/**
 	 * Returns the time since the engine started in miliseconds.
 	 * 
@@ -127,6 +221,26 @@ public class Engine {
 		return playing;
 	}
 	
+	/**
+	 * Returns if the engine is headless. 
+	 * A headless engine doesn't start any threads and doesn't use the awt toolkit.
+	 * 
+	 * @return if the engine is headless.
+	 */
+	public boolean isHeadless() {
+		return headless;
+	}
+	
+	/**
+	 * Returns the {@link EngineScheduler} that updates this engine 
+	 * or null if the engine uses its own threads.
+	 * 
+	 * @return {@link EngineScheduler} that updates this engine.
+	 */
+	public EngineScheduler getScheduler() {
+		return scheduler;
+	}
+	
 	/**
 	 * Returns the {@link Scene} used by the engine.
 	 * 
@@ -136,6 +250,18 @@ public class Engine {
 		return scene;
 	}
 
+	/**
+	 * Returns the object the engine holds while the jpge listeners, the input and the physics 
+	 * update the {@link Scene}, and while its transforms are copied for the graphics thread. 
+	 * Code that changes the scene on other threads, like the awt event thread, has to hold it too, 
+	 * else the graphics thread can draw a {@link Transform} that is changed only in part.
+	 * 
+	 * @return object held while the scene is updated.
+	 */
+	public Object getSceneLock() {
+		return sceneLock;
+	}
+
 	/**
 	 * Sets the {@link Scene} that the engine should use.
 	 * 
@@ -182,14 +308,62 @@ public class Engine {
 	}
 	
 	/**
-	 * Returns the {@link RenderBuffer} used by the engine.
+	 * Returns the {@link RenderBuffer} that contains the last rendered frame. 
+	 * The engine renders into three buffers, so the returned buffer is reused 
+	 * for new frames, use {@link #setRenderBufferSize(int, int)} to resize the buffers.
 	 * 
-	 * @return {@link RenderBuffer} used by the engine.
+	 * @return {@link RenderBuffer} that contains the last rendered frame.
 	 */
 	public RenderBuffer getRenderBuffer() {
 		return renderBuffer;
 	}
 	
+	/**
+	 * Returns the {@link RenderBuffer} that contains the latest complete frame and 
+	 * keeps it from being rendered into until the next call of this method. 
+	 * This should only be called by the thread that shows the frames, like the {@link SceneWindow}.
+	 * 
+	 * @return {@link RenderBuffer} that contains the latest complete frame.
+	 */
+	public RenderBuffer getFrontRenderBuffer() {
+		return renderBuffers.getFront();
+	}
+	
+	/**
+	 * Sets the size of the {@link RenderBuffer RenderBuffers} used by the engine. 
+	 * The buffers are resized before rendering into them, so the size 
+	 * is used from the next rendered frame on.
+	 * 
+	 * @param width width to set.
+	 * @param height height to set.
+	 */
+	public void setRenderBufferSize(int width, int height) {
+		this.renderWidth = width;
+		this.renderHeight = height;
+	}
+	
+	/**
+	 * Returns the {@link ResolutionScaler} used by the engine 
+	 * or null if the engine always renders at the full size.
+	 * 
+	 * @return {@link ResolutionScaler} used by the engine.
+	 */
+	public ResolutionScaler getResolutionScaler() {
+		return resolutionScaler;
+	}
+	
+	/**
+	 * Sets the {@link ResolutionScaler} that the engine should use to change the 
+	 * size of its {@link RenderBuffer RenderBuffers} and {@link Camera cameras} 
+	 * depending on the render time. Null renders always at the full size, 
+	 * but doesn't reset the size of the cameras.
+	 * 
+	 * @param resolutionScaler {@link ResolutionScaler} to set.
+	 */
+	public void setResolutionScaler(ResolutionScaler resolutionScaler) {
+		this.resolutionScaler = resolutionScaler;
+	}
+	
 	/**
 	 * Returns the {@link SceneWindow} used by the engine.
 	 * 
@@ -215,7 +389,7 @@ public class Engine {
 	 * @return how often graphics should be updated in a second.
 	 */
 	public int getGraphicsUpdateRate() {
-		return graphicsUpdateRate;
+		return graphicsTimestep.getRate();
 	}
 
 	/**
@@ -225,7 +399,7 @@ public class Engine {
 	 * @param graphicsUpdateRate value to set.
 	 */
 	public void setGraphicsUpdateRate(int graphicsUpdateRate) {
-		this.graphicsUpdateRate = graphicsUpdateRate;
+		graphicsTimestep.setRate(graphicsUpdateRate);
 	}
 
 	/**
@@ -235,7 +409,7 @@ public class Engine {
 	 * @return how often jpge should be updated in a second.
 	 */
 	public int getJPGEUpdateRate() {
-		return jpgeUpdateRate;
+		return jpgeTimestep.getRate();
 	}
 	
 	/**
@@ -245,7 +419,7 @@ public class Engine {
 	 * @param jpgeUpdateRate value to set.
 	 */
 	public void setJPGEUpdateRate(int jpgeUpdateRate) {
-		this.jpgeUpdateRate = jpgeUpdateRate;
+		jpgeTimestep.setRate(jpgeUpdateRate);
 	}
 
 	/**
@@ -255,7 +429,7 @@ public class Engine {
 	 * @return how often input should be updated in a second.
 	 */
 	public int getInputUpdateRate() {
-		return inputUpdateRate;
+		return inputTimestep.getRate();
 	}
 
 	/**
@@ -265,7 +439,7 @@ public class Engine {
 	 * @param inputUpdateRate value to set.
 	 */
 	public void setInputUpdateRate(int inputUpdateRate) {
-		this.inputUpdateRate = inputUpdateRate;
+		inputTimestep.setRate(inputUpdateRate);
 	}
 	
 	/**
@@ -275,7 +449,7 @@ public class Engine {
 	 * @return how often physics should be updated in a second.
 	 */
 	public int getPhysicsUpdateRate() {
-		return physicsUpdateRate;
+		return physicsTimestep.getRate();
 	}
 
 	/**
@@ -285,7 +459,7 @@ public class Engine {
 	 * @param physicsUpdateRate value to set.
 	 */
 	public void setPhysicsUpdateRate(int physicsUpdateRate) {
-		this.physicsUpdateRate = physicsUpdateRate;
+		physicsTimestep.setRate(physicsUpdateRate);
 	}
 	
 	/**
@@ -324,6 +498,44 @@ public class Engine {
 		return lastPhysicsTime;
 	}
 	
+	/**
+	 * Returns the {@link FixedTimestep} used to schedule the graphics updates.
+	 * 
+	 * @return {@link FixedTimestep} used to schedule the graphics updates.
+	 */
+	public FixedTimestep getGraphicsTimestep() {
+		return graphicsTimestep;
+	}
+	
+	/**
+	 * Returns the {@link FixedTimestep} used to schedule the jpge updates.
+	 * 
+	 * @return {@link FixedTimestep} used to schedule the jpge updates.
+	 */
+	public FixedTimestep getJPGETimestep() {
+		return jpgeTimestep;
+	}
+	
+	/**
+	 * Returns the {@link FixedTimestep} used to schedule the input updates.
+	 * 
+	 * @return {@link FixedTimestep} used to schedule the input updates.
+	 */
+	public FixedTimestep getInputTimestep() {
+		return inputTimestep;
+	}
+	
+	/**
+	 * Returns the {@link FixedTimestep} used to schedule the physics updates.
+	 * The physics are updated at an exact rate, if the physics thread falls behind 
+	 * it calls up to {@link FixedTimestep#getMaxSteps() max steps} updates at once to catch up.
+	 * 
+	 * @return {@link FixedTimestep} used to schedule the physics updates.
+	 */
+	public FixedTimestep getPhysicsTimestep() {
+		return physicsTimestep;
+	}
+	
 	/**
 	 * Returns the count of faces rendered in the last graphics update.
 	 * 
@@ -355,8 +567,9 @@ public class Engine {
 		jpgeThread = new Thread(new Runnable() {
 			@Override
 			public void run() {
+				jpgeTimestep.reset();
 				while (isPlaying()) {
-					lastJPGETime = updateJPGE(lastJPGETime);
+					FixedTimestep.sleep(updateJPGE());
 				}
 			}
 		});
@@ -367,8 +580,9 @@ public class Engine {
 		graphicsThread = new Thread(new Runnable() {
 			@Override
 			public void run() {
+				graphicsTimestep.reset();
 				while (isPlaying()) {
-					lastGraphicsTime = updateGraphics(lastGraphicsTime);
+					FixedTimestep.sleep(updateGraphics());
 				}
 			}
 		});
@@ -379,8 +593,9 @@ public class Engine {
 		inputThread = new Thread(new Runnable() {
 			@Override
 			public void run() {
+				inputTimestep.reset();
 				while (isPlaying()) {
-					lastInputTime = updateInput(lastInputTime);
+					FixedTimestep.sleep(updateInput());
 				}
 			}
 		});
@@ -391,65 +606,106 @@ public class Engine {
 		physicsThread = new Thread(new Runnable() {
 			@Override
 			public void run() {
+				physicsTimestep.reset();
 				while (isPlaying()) {
-					lastPhysicsTime = updatePhysics(lastPhysicsTime);
+					FixedTimestep.sleep(updatePhysics());
 				}
 			}
 		});
 		physicsThread.start();
 	}
 	
-	private int updateJPGE(int lastElapsed) {
-		long before = System.currentTimeMillis();
-		for (int i = 0; i < jpgeListeners.size(); i++) {
-			jpgeListeners.get(i).update();
-		}
-		int elapsed = (int)(System.currentTimeMillis() - before);
-		try {
-			Thread.sleep(1000/getJPGEUpdateRate());
-		} catch (InterruptedException e) {
-			e.printStackTrace();
+	long updateJPGE() {
+		if (jpgeTimestep.start() > 0) {
+			synchronized (sceneLock) {
+				for (int i = 0; i < jpgeListeners.size(); i++) {
+					jpgeListeners.get(i).update();
+				}
+			}
+			final long sleepTime = jpgeTimestep.finish();
+			lastJPGETime = toMillis(jpgeTimestep.getLastUpdateTime());
+			return sleepTime;
 		}
-		return elapsed;
+		return jpgeTimestep.finish();
 	}
 	
-	private int updateGraphics(int lastElapsed) {
-		long before = System.currentTimeMillis();
-		animator.animate(scene);
-		lastRendereredFaces = renderer.render(scene, renderBuffer);
-		if (sceneWindow != null) {
-			sceneWindow.draw();
-		}
-		int elapsed = (int)(System.currentTimeMillis() - before);
-		try {
-			Thread.sleep(1000/getGraphicsUpdateRate());
-		} catch (InterruptedException e) {
-			e.printStackTrace();
+	long updateGraphics() {
+		if (graphicsTimestep.start() > 0) {
+			animator.animate(scene);
+			lastRendereredFaces = render();
+			if (sceneWindow != null) {
+				sceneWindow.draw();
+			}
+			final long sleepTime = graphicsTimestep.finish();
+			lastGraphicsTime = toMillis(graphicsTimestep.getLastUpdateTime());
+			return sleepTime;
 		}
-		return elapsed;
+		return graphicsTimestep.finish();
 	}
 	
-	private int updateInput(int lastElapsed) {
-		long before = System.currentTimeMillis();
-		inputManager.update();
-		int elapsed = (int)(System.currentTimeMillis() - before);
-		try {
-			Thread.sleep(1000/getInputUpdateRate());
-		} catch (InterruptedException e) {
-			e.printStackTrace();
+	long updateInput() {
+		if (inputTimestep.start() > 0) {
+			synchronized (sceneLock) {
+				inputManager.update();
+			}
+			final long sleepTime = inputTimestep.finish();
+			lastInputTime = toMillis(inputTimestep.getLastUpdateTime());
+			return sleepTime;
 		}
-		return elapsed;
+		return inputTimestep.finish();
 	}
 	
-	private int updatePhysics(int lastElapsed) {
-		long before = System.currentTimeMillis();
-		physicsAnimator.animate(scene);
-		int elapsed = (int)(System.currentTimeMillis() - before);
-		try {
-			Thread.sleep(1000/getPhysicsUpdateRate());
-		} catch (InterruptedException e) {
-			e.printStackTrace();
+	long updatePhysics() {
+		final int steps = physicsTimestep.start();
+		if (steps > 0) {
+			// the transforms are copied before another update can change them
+			synchronized (sceneLock) {
+				for (int i = 0; i < steps; i++) {
+					physicsAnimator.animate(scene);
+				}
+				sceneStates.getBack().update(scene);
+			}
+			// publish the transforms so the graphics thread can render them
+			sceneStates.publish();
+			final long sleepTime = physicsTimestep.finish();
+			lastPhysicsTime = toMillis(physicsTimestep.getLastUpdateTime());
+			return sleepTime;
+		}
+		return physicsTimestep.finish();
+	}
+	
+	private int render() {
+		final ResolutionScaler scaler = resolutionScaler;
+		final RenderBuffer backBuffer = renderBuffers.getBack();
+		int width = renderWidth;
+		int height = renderHeight;
+		// allocate the full size once so that scaling doesn't allocate new buffers
+		backBuffer.ensureCapacity(width * height);
+		if (scaler != null) {
+			width = scaler.scale(width);
+			height = scaler.scale(height);
+			scaler.scaleCameras(scene.getCameras());
 		}
-		return elapsed;
+		// resize here so the buffer is never resized while its shown
+		if (backBuffer.getWidth() != width || backBuffer.getHeight() != height) {
+			backBuffer.setSize(width, height);
+		}
+		final long before = System.nanoTime();
+		// render the latest state published by the physics thread
+		final int faces = renderer.render(scene, sceneStates.getFront(), backBuffer);
+		if (scaler != null) {
+			scaler.update(System.nanoTime() - before);
+		}
+		renderBuffers.publish();
+		renderBuffer = backBuffer;
+		return faces;
+	}
+	
+	int getSession() {
+		return session;
+	}
+	
+	private int toMillis(long nanos) {
+		return (int)(nanos / 1000000);
 	}
 }
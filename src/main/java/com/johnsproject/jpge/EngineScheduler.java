@@ -0,0 +1,144 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 John Salomon - John´s Project
+ *  
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.johnsproject.jpge;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The EngineScheduler class updates many {@link Engine engines} using a fixed count of threads.
+ * Instead of starting 4 threads for each engine, the graphics, jpge, input and physics 
+ * updates of all engines created with this scheduler are called by the threads of this scheduler.
+ * Each update is scheduled again after it ends, using the time its {@link FixedTimestep} 
+ * says it should sleep, so the same update of an engine never runs twice at the same time.
+ * 
+ * @author John´s Project - John Salomon
+ */
+public class EngineScheduler {
+
+	private static final int UPDATE_JPGE = 0;
+	private static final int UPDATE_GRAPHICS = 1;
+	private static final int UPDATE_INPUT = 2;
+	private static final int UPDATE_PHYSICS = 3;
+	
+	private final ScheduledExecutorService executor;
+	
+	/**
+	 * Creates a new EngineScheduler that uses as many threads as there are processors.
+	 */
+	public EngineScheduler() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Creates a new EngineScheduler that uses the given count of threads.
+	 * 
+	 * @param threads count of threads used to update the engines.
+	 */
+	public EngineScheduler(int threads) {
+		this.executor = Executors.newScheduledThreadPool(threads);
+	}
+	
+	/**
+	 * Schedules the updates of the given {@link Engine}. 
+	 * This is called by the engine when it starts playing.
+	 * 
+	 * @param engine {@link Engine} to schedule.
+	 */
+	void schedule(Engine engine) {
+		final int session = engine.getSession();
+		engine.getJPGETimestep().reset();
+		engine.getGraphicsTimestep().reset();
+		engine.getInputTimestep().reset();
+		engine.getPhysicsTimestep().reset();
+		executor.execute(new UpdateTask(engine, session, UPDATE_JPGE));
+		executor.execute(new UpdateTask(engine, session, UPDATE_GRAPHICS));
+		executor.execute(new UpdateTask(engine, session, UPDATE_INPUT));
+		executor.execute(new UpdateTask(engine, session, UPDATE_PHYSICS));
+	}
+	
+	/**
+	 * Tells this scheduler to stop updating engines and to stop its threads.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+	
+	/**
+	 * Returns if this scheduler was shut down.
+	 * 
+	 * @return if this scheduler was shut down.
+	 */
+	public boolean isShutdown() {
+		return executor.isShutdown();
+	}
+	
+	private class UpdateTask implements Runnable {
+
+		private final Engine engine;
+		private final int session;
+		private final int type;
+		
+		public UpdateTask(Engine engine, int session, int type) {
+			this.engine = engine;
+			this.session = session;
+			this.type = type;
+		}
+		
+		@Override
+		public void run() {
+			// stop if the engine was paused or was started again by another task
+			if (!engine.isPlaying() || (engine.getSession() != session) || isShutdown()) {
+				return;
+			}
+			long sleepTime = 0;
+			try {
+				switch (type) {
+				case UPDATE_JPGE:
+					sleepTime = engine.updateJPGE();
+					break;
+				case UPDATE_GRAPHICS:
+					sleepTime = engine.updateGraphics();
+					break;
+				case UPDATE_INPUT:
+					sleepTime = engine.updateInput();
+					break;
+				case UPDATE_PHYSICS:
+					sleepTime = engine.updatePhysics();
+					break;
+				}
+			} catch (RuntimeException e) {
+				// don't let one engine stop the updates of the others
+				e.printStackTrace();
+			}
+			try {
+				executor.schedule(this, sleepTime, TimeUnit.NANOSECONDS);
+			} catch (RejectedExecutionException e) {
+				// the scheduler was shut down
+			}
+		}
+	}
+}
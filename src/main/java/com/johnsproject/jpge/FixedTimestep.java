@@ -0,0 +1,217 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 John Salomon - John´s Project
+ *  
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.johnsproject.jpge;
+
+/**
+ * The FixedTimestep class is used by the {@link Engine} to call an update 
+ * at an exact rate. It accumulates the elapsed time using {@link System#nanoTime()} 
+ * and tells how many updates are due, so that the update rate doesn't 
+ * drift with the time the updates take.
+ * 
+ * @author John´s Project - John Salomon
+ */
+public class FixedTimestep {
+
+	private static final long SECOND = 1000000000L;
+	private static final long MILLISECOND = 1000000L;
+	
+	private int rate = 0;
+	private int maxSteps = 0;
+	private long stepTime = 0;
+	private long accumulator = 0;
+	private long lastTime = 0;
+	private long startTime = 0;
+	private int lastSteps = 0;
+	private long lastUpdateTime = 0;
+	private long lastSleepTime = 0;
+	private long lastOverrunTime = 0;
+	
+	/**
+	 * Creates a new instance of the FixedTimestep class filled with the given values.
+	 * 
+	 * @param rate how often the update should be called in a second.
+	 * @param maxSteps how many updates can be called at once to catch up when falling behind.
+	 */
+	public FixedTimestep(int rate, int maxSteps) {
+		setRate(rate);
+		setMaxSteps(maxSteps);
+	}
+	
+	/**
+	 * Tells this timestep that a new tick has started and returns how many updates 
+	 * are due. If there are more updates due than max steps the time of the 
+	 * updates that are not going to be called is dropped and reported as overrun time.
+	 * 
+	 * @return how many updates should be called in this tick.
+	 */
+	public int start() {
+		final long now = System.nanoTime();
+		if (lastTime == 0) {
+			// first tick, the first update is due right now
+			accumulator = stepTime;
+		} else {
+			accumulator += now - lastTime;
+		}
+		lastTime = now;
+		startTime = now;
+		int steps = (int)Math.min(accumulator / stepTime, maxSteps);
+		accumulator -= steps * stepTime;
+		lastOverrunTime = 0;
+		if (accumulator >= stepTime) {
+			// too far behind, drop the time that can't be caught up
+			lastOverrunTime = accumulator - (accumulator % stepTime);
+			accumulator %= stepTime;
+		}
+		lastSteps = steps;
+		return steps;
+	}
+	
+	/**
+	 * Tells this timestep that the updates of this tick are done and 
+	 * returns how long to sleep until the next update is due.
+	 * 
+	 * @return time to sleep in nanoseconds.
+	 */
+	public long finish() {
+		final long now = System.nanoTime();
+		lastUpdateTime = now - startTime;
+		final long sleepTime = stepTime - accumulator - lastUpdateTime;
+		if (sleepTime < 0) {
+			lastOverrunTime -= sleepTime;
+			lastSleepTime = 0;
+		} else {
+			lastSleepTime = sleepTime;
+		}
+		return lastSleepTime;
+	}
+	
+	/**
+	 * Tells this timestep to forget the accumulated time. 
+	 * The next tick will then start with one update.
+	 */
+	public void reset() {
+		lastTime = 0;
+		accumulator = 0;
+	}
+	
+	/**
+	 * Sleeps the current thread for the given time.
+	 * 
+	 * @param nanos time to sleep in nanoseconds.
+	 */
+	public static void sleep(long nanos) {
+		if (nanos > 0) {
+			try {
+				Thread.sleep(nanos / MILLISECOND, (int)(nanos % MILLISECOND));
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	/**
+	 * Returns how often the update should be called in a second.
+	 * 
+	 * @return how often the update should be called in a second.
+	 */
+	public int getRate() {
+		return rate;
+	}
+	
+	/**
+	 * Sets how often the update should be called in a second.
+	 * 
+	 * @param rate value to set.
+	 */
+	public void setRate(int rate) {
+		if (rate < 1) rate = 1;
+		this.rate = rate;
+		this.stepTime = SECOND / rate;
+	}
+	
+	/**
+	 * Returns how many updates can be called at once to catch up when falling behind.
+	 * 
+	 * @return how many updates can be called at once.
+	 */
+	public int getMaxSteps() {
+		return maxSteps;
+	}
+	
+	/**
+	 * Sets how many updates can be called at once to catch up when falling behind.
+	 * 
+	 * @param maxSteps value to set.
+	 */
+	public void setMaxSteps(int maxSteps) {
+		if (maxSteps < 1) maxSteps = 1;
+		this.maxSteps = maxSteps;
+	}
+	
+	/**
+	 * Returns the time between two updates in nanoseconds.
+	 * 
+	 * @return time between two updates in nanoseconds.
+	 */
+	public long getStepTime() {
+		return stepTime;
+	}
+	
+	/**
+	 * Returns how many updates were called in the last tick.
+	 * 
+	 * @return how many updates were called in the last tick.
+	 */
+	public int getLastSteps() {
+		return lastSteps;
+	}
+	
+	/**
+	 * Returns how long the updates of the last tick took in nanoseconds.
+	 * 
+	 * @return how long the updates of the last tick took in nanoseconds.
+	 */
+	public long getLastUpdateTime() {
+		return lastUpdateTime;
+	}
+	
+	/**
+	 * Returns how long the last tick slept until the next update was due in nanoseconds.
+	 * 
+	 * @return how long the last tick slept in nanoseconds.
+	 */
+	public long getLastSleepTime() {
+		return lastSleepTime;
+	}
+	
+	/**
+	 * Returns how far the last tick was behind its schedule in nanoseconds. 
+	 * This includes the time dropped because there were more updates due than max steps.
+	 * 
+	 * @return how far the last tick was behind its schedule in nanoseconds.
+	 */
+	public long getLastOverrunTime() {
+		return lastOverrunTime;
+	}
+}
@@ -35,6 +35,7 @@ public interface JPGE {
 	 * This is called by the {@link Engine} in every JPGE update.
 	 * How often this should be called can be set in the with 
 	 * jpge update rate in the {@link Engine}.
+	 * The engine holds its scene lock while calling this, so the scene can be changed here.
 	 */
 	public void update();
 	
@@ -47,7 +47,7 @@ import com.johnsproject.jpge.io.FileIO;
 public class Profiler {
 
 	private static final int WIDTH = 300;
-	private static final int HEIGHT = 300;
+	private static final int HEIGHT = 354;
 	private static final int POS_X = 2;
 	private static final int POS_X2 = 120;
 	private static final int START_Y = 12;
@@ -156,6 +156,7 @@ public class Profiler {
 		maxPolys *= engine.getScene().getCameras().size();
 		String fps = "" + 1000 / (engine.getLastGraphicsTime() + 1);
 		String rTime = "" + engine.getLastGraphicsTime() + " ms";
+		String vTime = "" + (engine.getRenderer().getLastVertexTime() / 1000) + " us";
 		String rRes = "" + engine.getRenderBuffer().getWidth() + " x " + engine.getRenderBuffer().getHeight();
 		String wRes = "";
 		if (engine.getSceneWindow() != null)
@@ -171,6 +172,9 @@ public class Profiler {
 		g.drawString("- Render time : ", POS_X, y);
 		g.drawString(rTime, POS_X2, y);
 		y += STEP;
+		g.drawString("- Vertex time : ", POS_X, y);
+		g.drawString(vTime, POS_X2, y);
+		y += STEP;
 		g.drawString("- Rendering res. : ", POS_X, y);
 		g.drawString(rRes, POS_X2, y);
 		y += STEP;
@@ -183,6 +187,7 @@ public class Profiler {
 			System.out.println("GRAPHICS");
 			System.out.println("- FPS :\t\t\t" + fps);
 			System.out.println("- Render time :\t\t" + rTime);
+			System.out.println("- Vertex time :\t\t" + vTime);
 			System.out.println("- Rendering res. :\t" + rRes);
 			System.out.println("- Window size : \t" + wRes);
 			System.out.println("- Rendered Faces :\t" + rTris);
@@ -239,14 +244,30 @@ public class Profiler {
 	}
 
 	private int logPhysics(Graphics g, int y) {
+		FixedTimestep timestep = engine.getPhysicsTimestep();
 		String pTime = "" + engine.getLastPhysicsTime() + " ms";
+		String pSteps = "" + timestep.getLastSteps() + " / " + timestep.getMaxSteps();
+		String pSleep = "" + (timestep.getLastSleepTime() / 1000) + " us";
+		String pOverrun = "" + (timestep.getLastOverrunTime() / 1000) + " us";
 		g.drawString("PHYSICS", POS_X, y);
 		y += STEP;
 		g.drawString("- Physics time : ", POS_X, y);
 		g.drawString(pTime, POS_X2, y);
+		y += STEP;
+		g.drawString("- Physics steps : ", POS_X, y);
+		g.drawString(pSteps, POS_X2, y);
+		y += STEP;
+		g.drawString("- Sleep time : ", POS_X, y);
+		g.drawString(pSleep, POS_X2, y);
+		y += STEP;
+		g.drawString("- Overrun time : ", POS_X, y);
+		g.drawString(pOverrun, POS_X2, y);
 		if (isLogging()) {
 			System.out.println("PHYSICS");
 			System.out.println("- Physics time :\t" + pTime);
+			System.out.println("- Physics steps :\t" + pSteps);
+			System.out.println("- Sleep time :\t\t" + pSleep);
+			System.out.println("- Overrun time :\t" + pOverrun);
 		}
 		return y;
 	}
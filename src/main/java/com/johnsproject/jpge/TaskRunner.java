@@ -0,0 +1,189 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 John Salomon - John´s Project
+ *  
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.johnsproject.jpge;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The TaskRunner class runs the same {@link Task} for many indexes in parallel, 
+ * using the threads of an {@link ExecutorService}. 
+ * The thread that calls {@link #run(Task, int)} also runs indexes and only waits for 
+ * the indexes that other threads are running at the moment, so tasks can use the same 
+ * TaskRunner again without blocking the threads of the executor.
+ * 
+ * @author John´s Project - John Salomon
+ */
+public class TaskRunner {
+	
+	private final ExecutorService executor;
+	private final int threads;
+	
+	/**
+	 * Creates a new TaskRunner that uses as many threads as there are processors.
+	 * The threads are shared by all task runners created without an executor.
+	 */
+	public TaskRunner() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Creates a new TaskRunner that uses the given count of threads.
+	 * The threads are shared by all task runners created without an executor.
+	 * 
+	 * @param threads count of threads used to run tasks, including the calling thread.
+	 */
+	public TaskRunner(int threads) {
+		this(threads > 1 ? SharedExecutor.instance : null, threads);
+	}
+	
+	/**
+	 * Creates a new TaskRunner that uses the given count of threads of the given {@link ExecutorService}.
+	 * 
+	 * @param executor {@link ExecutorService} used to run tasks.
+	 * @param threads count of threads used to run tasks, including the calling thread.
+	 */
+	public TaskRunner(ExecutorService executor, int threads) {
+		this.executor = executor;
+		this.threads = executor == null ? 1 : Math.max(threads, 1);
+	}
+	
+	/**
+	 * Runs the given {@link Task} for all indexes from 0 to count - 1 and 
+	 * returns after all of them are done.
+	 * 
+	 * @param task {@link Task} to run.
+	 * @param count count of indexes.
+	 */
+	public void run(Task task, int count) {
+		if ((threads == 1) || (count == 1)) {
+			for (int i = 0; i < count; i++) {
+				task.run(i);
+			}
+			return;
+		}
+		if (count < 1) {
+			return;
+		}
+		Job job = new Job(task, count);
+		int helpers = Math.min(threads, count) - 1;
+		for (int i = 0; i < helpers; i++) {
+			executor.execute(job);
+		}
+		job.run();
+		job.await();
+	}
+	
+	/**
+	 * Returns the count of threads used by this TaskRunner, including the calling thread.
+	 * 
+	 * @return count of threads used by this TaskRunner.
+	 */
+	public int getThreads() {
+		return threads;
+	}
+	
+	/**
+	 * The Task interface is implemented by the work given to a {@link TaskRunner}.
+	 */
+	public interface Task {
+		
+		/**
+		 * Runs this task for the given index.
+		 * 
+		 * @param index index to run.
+		 */
+		void run(int index);
+	}
+	
+	private static class Job implements Runnable {
+		
+		private final Task task;
+		private final int count;
+		private final AtomicInteger next = new AtomicInteger();
+		private final CountDownLatch done;
+		private volatile Throwable error;
+		
+		public Job(Task task, int count) {
+			this.task = task;
+			this.count = count;
+			this.done = new CountDownLatch(count);
+		}
+		
+		@Override
+		public void run() {
+			int index = 0;
+			while ((index = next.getAndIncrement()) < count) {
+				try {
+					if (error == null) {
+						task.run(index);
+					}
+				} catch (Throwable e) {
+					error = e;
+				} finally {
+					done.countDown();
+				}
+			}
+		}
+		
+		public void await() {
+			boolean interrupted = false;
+			while (done.getCount() > 0) {
+				try {
+					done.await();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			if (error instanceof RuntimeException) {
+				throw (RuntimeException) error;
+			}
+			if (error instanceof Error) {
+				throw (Error) error;
+			}
+			if (error != null) {
+				throw new RuntimeException(error);
+			}
+		}
+	}
+	
+	private static class SharedExecutor {
+		
+		static final ExecutorService instance = Executors.newFixedThreadPool(
+				Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "JPGE Worker");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 John Salomon - John´s Project
+ *  
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.johnsproject.jpge;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The TripleBuffer class is used to pass data from one thread to another 
+ * without locks and without allocating memory. 
+ * The writing thread fills the back buffer and publishes it, the reading thread 
+ * always gets the latest published buffer. The buffers are swapped atomically, 
+ * so the reading thread never sees a buffer that is being written.
+ * <br>
+ * Only one thread should write and only one thread should read.
+ * 
+ * @param <T> type of the buffers.
+ * 
+ * @author John´s Project - John Salomon
+ */
+public class TripleBuffer<T> {
+
+	// the index of the middle buffer is kept in the lower bits,
+	// FRESH is set when the middle buffer was published but not yet read
+	private static final int INDEX = 3;
+	private static final int FRESH = 4;
+	
+	private final Object[] buffers;
+	private final AtomicInteger middle = new AtomicInteger(1);
+	private int back = 0;
+	private int front = 2;
+	
+	/**
+	 * Creates a new instance of the TripleBuffer class filled with the given buffers.
+	 * 
+	 * @param buffer1 first buffer.
+	 * @param buffer2 second buffer.
+	 * @param buffer3 third buffer.
+	 */
+	public TripleBuffer(T buffer1, T buffer2, T buffer3) {
+		this.buffers = new Object[] {buffer1, buffer2, buffer3};
+	}
+	
+	/**
+	 * Returns the buffer the writing thread should write to.
+	 * 
+	 * @return buffer the writing thread should write to.
+	 */
+	@SuppressWarnings("unchecked")
+	public T getBack() {
+		return (T) buffers[back];
+	}
+	
+	/**
+	 * Publishes the back buffer so that the reading thread can get it. 
+	 * After this call {@link #getBack()} returns another buffer.
+	 */
+	public void publish() {
+		back = middle.getAndSet(back | FRESH) & INDEX;
+	}
+	
+	/**
+	 * Returns the latest published buffer. If nothing was published 
+	 * since the last call the same buffer is returned again.
+	 * 
+	 * @return latest published buffer.
+	 */
+	@SuppressWarnings("unchecked")
+	public T getFront() {
+		if ((middle.get() & FRESH) != 0) {
+			front = middle.getAndSet(front) & INDEX;
+		}
+		return (T) buffers[front];
+	}
+	
+	/**
+	 * Returns if a buffer was published since the last call of {@link #getFront()}.
+	 * 
+	 * @return if a buffer was published since the last call of {@link #getFront()}.
+	 */
+	public boolean isFresh() {
+		return (middle.get() & FRESH) != 0;
+	}
+	
+	/**
+	 * Returns the buffer at the given index (0-2) regardless if its the back, middle or front buffer.
+	 * This can be used to change all buffers at once, 
+	 * but only while no thread is writing or reading them.
+	 * 
+	 * @param index index of buffer.
+	 * @return buffer at the given index.
+	 */
+	@SuppressWarnings("unchecked")
+	public T getBuffer(int index) {
+		return (T) buffers[index];
+	}
+}
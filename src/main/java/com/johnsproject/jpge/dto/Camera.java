@@ -51,6 +51,7 @@ public class Camera implements Externalizable{
 	private int scaleFactor = 0;
 	private Transform transform = new Transform();
 	private boolean changed = false;
+	private volatile int changes = 0;
 	
 	public Camera () {}
 	
@@ -144,6 +145,7 @@ public class Camera implements Externalizable{
 	public void setLocation(int x, int y) {
 		this.x = x;
 		this.y = y;
+		changed = true;
 	}
 
 	/**
@@ -249,21 +251,35 @@ public class Camera implements Externalizable{
 	}
 	
 	/**
-	 * Returns the if this camera has changed since last frame.
+	 * Returns if this camera may have changed since changed(false) was called.
 	 * 
-	 * @return if this camera has changed since last frame.
+	 * @return if this camera may have changed since changed(false) was called.
 	 */
 	public boolean changed() {
 		return changed;
 	}
 	
 	/**
-	 * Sets that this camera has changed since last frame.
+	 * Sets if this camera has changed. 
+	 * Setting it to true also counts a change, so the {@link com.johnsproject.jpge.graphics.Renderer Renderer} 
+	 * draws the whole viewport of this camera again in the next frame.
 	 * 
-	 * @param changed if this camera has changed since last frame.
+	 * @param changed if this camera has changed.
 	 */
 	public void changed(boolean changed) {
 		this.changed = changed;
+		if (changed) {
+			changes++;
+		}
+	}
+	
+	/**
+	 * Returns how many times changed(true) was called on this camera.
+	 * 
+	 * @return how many times changed(true) was called on this camera.
+	 */
+	public int getChanges() {
+		return changes;
 	}
 
 	@Override
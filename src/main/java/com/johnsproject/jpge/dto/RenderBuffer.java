@@ -24,7 +24,10 @@
 package com.johnsproject.jpge.dto;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
 import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
 import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
@@ -39,19 +42,62 @@ import com.johnsproject.jpge.graphics.SceneWindow;
  * The RenderBuffer class contains a frameBuffer and a depthBuffer.
  * The {@link Renderer} draws on it at the rendering process and after that 
  * this buffer is drawn on the {@link SceneWindow} used by the {@link Engine} if available.
+ * <br>
+ * The depthBuffer is divided into tiles that store the max depth of their pixels, 
+ * so lines of faces that are behind all pixels of a tile can be skipped. 
+ * The max depth of a tile is only known after lines were drawn over all its pixels since it was cleared.
+ * <br>
+ * Clearing the whole depthBuffer doesn't write its pixels, it starts a new depth generation instead. 
+ * The depthBuffer stores the depth plus the {@link #getDepthOffset() offset} of the generation 
+ * it was written in, the offset gets lower with each generation so pixels of older generations 
+ * are behind all pixels of the current one. 
+ * The frameBuffer remembers which parts of its lines were drawn, so only these are cleared.
+ * <br>
+ * Deferred shading draws into the planes of a G-buffer instead of the frameBuffer, 
+ * they are only created if needed.
  *
  * @author John´s Project - John Salomon
  */
 public class RenderBuffer implements Externalizable{
 	
 	private static final long serialVersionUID = 8349642103859979367L;
+	private static final ColorModel IMAGE_MODEL = 
+			new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB_PRE).getColorModel();
+	private static final int[] IMAGE_MASKS = new int[] {0x00ff0000, 0x0000ff00, 0x000000ff, 0xff000000};
+	/**
+	 * The tiles of the depthBuffer are 1 << DEPTH_TILE_SHIFT pixels wide and high.
+	 */
+	public static final int DEPTH_TILE_SHIFT = 5;
+	private static final int DEPTH_TILE_SIZE = 1 << DEPTH_TILE_SHIFT;
+	/**
+	 * Depth values need to be greater than -DEPTH_RANGE and lower than DEPTH_RANGE, 
+	 * the same limit the fixed point interpolation of the depth has.
+	 */
+	public static final int DEPTH_RANGE = 1 << 20;
+	// the offset of the first generation leaves room for the highest depth below Integer.MAX_VALUE
+	private static final int DEPTH_OFFSET_START = Integer.MAX_VALUE - DEPTH_RANGE;
+	private static final int DEPTH_OFFSET_STEP = DEPTH_RANGE * 2;
 	
 	private int width;
 	private int height;
 	private int length;
+	private int capacity;
 	private BufferedImage frameBuffer;
 	private int[] frameBufferData;
 	private int[] depthBuffer;
+	private int depthOffset = DEPTH_OFFSET_START;
+	// one flag for each part of each line of the frameBuffer that has the width of a depth tile
+	private boolean[] drawnParts = new boolean[0];
+	private int depthTilesX;
+	// bit mask of the pixels of each line of each tile that lines were drawn over since the tile was cleared,
+	// one bit for each pixel so tiles can be at most 32 pixels wide
+	private int[] depthTilesDrawn = new int[0];
+	// count of lines of each tile that lines were drawn over all pixels of
+	private int[] depthTilesFull = new int[0];
+	// max depth of the lines drawn over each tile since it was cleared
+	private int[] depthTilesMax = new int[0];
+	private int[] normalBuffer;
+	private int[] albedoBuffer;
 	
 	public RenderBuffer() {
 		setSize(1, 1);
@@ -67,6 +113,19 @@ public class RenderBuffer implements Externalizable{
 		setSize(width, height);
 	}
 	
+	/**
+	 * Creates a RenderBuffer with the given size that can be resized up to 
+	 * the given capacity without allocating new buffers.
+	 * 
+	 * @param width width to set.
+	 * @param height height to set.
+	 * @param capacity count of pixels to allocate.
+	 */
+	public RenderBuffer(int width, int height, int capacity) {
+		setSize(width, height);
+		ensureCapacity(capacity);
+	}
+	
 	/**
 	 * Returns the {@link BufferedImage frameBuffer} of this RenderBuffer.
 	 * 
@@ -76,9 +135,23 @@ public class RenderBuffer implements Externalizable{
 		return frameBuffer;
 	}
 	
+	/**
+	 * Returns the pixels of the {@link BufferedImage frameBuffer} of this RenderBuffer.
+	 * It can be longer than width * height if this RenderBuffer was shrinked.
+	 * 
+	 * @return pixels of the frameBuffer of this RenderBuffer.
+	 */
+	public int[] getFrameBufferData() {
+		return frameBufferData;
+	}
+	
 	/**
 	 * Returns the depthBuffer of this RenderBuffer.
 	 * The DepthBuffer contains the depth value of all pixels in the frameBuffer.
+	 * It can be longer than width * height if this RenderBuffer was shrinked.
+	 * Values written into it should only be lower than before, 
+	 * else the tiles of the depthBuffer don't know about them. 
+	 * The values are the depth plus the {@link #getDepthOffset() depth offset}.
 	 * 
 	 * @return depthBuffer of this RenderBuffer.
 	 */
@@ -86,26 +159,246 @@ public class RenderBuffer implements Externalizable{
 		return depthBuffer;
 	}
 	
+	/**
+	 * Returns the value that is added to depth values before they are compared 
+	 * with or written into the depthBuffer. It changes each time the whole depthBuffer is cleared.
+	 * 
+	 * @return offset of the depth values in the depthBuffer.
+	 */
+	public int getDepthOffset() {
+		return depthOffset;
+	}
+	
 	/**
 	 * Tells this RenderBuffer to clear its frameBuffer.
 	 */
 	public void clearFrameBuffer() {
-		for (int i = 0; i < frameBufferData.length; i++) {
-			frameBufferData[i] = 0;
+		Arrays.fill(frameBufferData, 0, length, 0);
+		Arrays.fill(drawnParts, false);
+	}
+	
+	/**
+	 * Tells this RenderBuffer to clear the parts of the given lines of its frameBuffer 
+	 * that were drawn since they were cleared the last time.
+	 * 
+	 * @param y location of the first line.
+	 * @param height count of lines.
+	 */
+	public void clearDrawnFrameBuffer(int y, int height) {
+		clearDrawnFrameBuffer(0, y, width, height);
+	}
+	
+	/**
+	 * Tells this RenderBuffer to clear the pixels inside the given rectangle of its frameBuffer 
+	 * that were drawn since they were cleared the last time.
+	 * 
+	 * @param x location of the rectangle in the x axis.
+	 * @param y location of the rectangle in the y axis.
+	 * @param width width of the rectangle.
+	 * @param height height of the rectangle.
+	 */
+	public void clearDrawnFrameBuffer(int x, int y, int width, int height) {
+		int minX = Math.max(x, 0);
+		int minY = Math.max(y, 0);
+		int maxX = Math.min(x + width, this.width);
+		int maxY = Math.min(y + height, this.height);
+		if (minX >= maxX) return;
+		int firstPart = minX >> DEPTH_TILE_SHIFT;
+		int lastPart = (maxX - 1) >> DEPTH_TILE_SHIFT;
+		for (int i = minY; i < maxY; i++) {
+			int line = i * depthTilesX;
+			for (int j = firstPart; j <= lastPart; j++) {
+				if (drawnParts[line + j]) {
+					int partMinX = j << DEPTH_TILE_SHIFT;
+					int partMaxX = Math.min(partMinX + DEPTH_TILE_SIZE, this.width);
+					// parts that are only partly inside of the rectangle are still drawn
+					if ((partMinX >= minX) && (partMaxX <= maxX)) {
+						drawnParts[line + j] = false;
+					}
+					int start = Math.max(partMinX, minX) + (i * this.width);
+					Arrays.fill(frameBufferData, start, start + Math.min(partMaxX, maxX) - Math.max(partMinX, minX), 0);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Tells this RenderBuffer that the given pixels of the frameBuffer were drawn 
+	 * after drawing directly into the frameBufferData, so that {@link #clearDrawnFrameBuffer} clears them.
+	 * 
+	 * @param x location of the first pixel in the x axis.
+	 * @param y location of the pixels in the y axis.
+	 * @param pixels count of pixels.
+	 */
+	public void drawFrameLine(int x, int y, int pixels) {
+		if (pixels <= 0) return;
+		int line = y * depthTilesX;
+		int last = line + ((x + pixels - 1) >> DEPTH_TILE_SHIFT);
+		for (int i = line + (x >> DEPTH_TILE_SHIFT); i <= last; i++) {
+			drawnParts[i] = true;
 		}
 	}
 	
 	/**
-	 * Tells this RenderBuffer to clear its depthBuffer.
+	 * Tells this RenderBuffer to clear its depthBuffer. 
+	 * This starts a new depth generation, the pixels are only written 
+	 * once all generations were used.
 	 */
 	public void clearDepthBuffer() {
-		for (int i = 0; i < depthBuffer.length; i++) {
-			depthBuffer[i] = Integer.MAX_VALUE;
+		if (depthOffset - DEPTH_RANGE < Integer.MIN_VALUE + DEPTH_OFFSET_STEP) {
+			Arrays.fill(depthBuffer, 0, length, Integer.MAX_VALUE);
+			depthOffset = DEPTH_OFFSET_START;
+		} else {
+			depthOffset -= DEPTH_OFFSET_STEP;
+		}
+		clearDepthTiles(0, 0, width, height);
+	}
+	
+	/**
+	 * Tells this RenderBuffer to clear the given rectangle of its frameBuffer.
+	 * 
+	 * @param x location of the rectangle in the x axis.
+	 * @param y location of the rectangle in the y axis.
+	 * @param width width of the rectangle.
+	 * @param height height of the rectangle.
+	 */
+	public void clearFrameBuffer(int x, int y, int width, int height) {
+		fill(frameBufferData, 0, x, y, width, height);
+	}
+	
+	/**
+	 * Tells this RenderBuffer to clear the given rectangle of its depthBuffer.
+	 * 
+	 * @param x location of the rectangle in the x axis.
+	 * @param y location of the rectangle in the y axis.
+	 * @param width width of the rectangle.
+	 * @param height height of the rectangle.
+	 */
+	public void clearDepthBuffer(int x, int y, int width, int height) {
+		fill(depthBuffer, Integer.MAX_VALUE, x, y, width, height);
+		clearDepthTiles(x, y, width, height);
+	}
+	
+	// tiles that are only partly inside of the rectangle are cleared too, 
+	// they just don't know their max depth until lines are drawn over all their pixels again
+	private void clearDepthTiles(int x, int y, int width, int height) {
+		int minX = Math.max(x, 0) >> DEPTH_TILE_SHIFT;
+		int minY = Math.max(y, 0) >> DEPTH_TILE_SHIFT;
+		int maxX = (Math.min(x + width, this.width) + DEPTH_TILE_SIZE - 1) >> DEPTH_TILE_SHIFT;
+		int maxY = (Math.min(y + height, this.height) + DEPTH_TILE_SIZE - 1) >> DEPTH_TILE_SHIFT;
+		for (int i = minY; i < maxY; i++) {
+			int tileHeight = Math.min(DEPTH_TILE_SIZE, this.height - (i << DEPTH_TILE_SHIFT));
+			for (int j = minX; j < maxX; j++) {
+				int tileWidth = Math.min(DEPTH_TILE_SIZE, this.width - (j << DEPTH_TILE_SHIFT));
+				int tile = j + (i * depthTilesX);
+				// the pixels of tiles at the border that are outside of this RenderBuffer are already drawn
+				int drawn = ~(int)((1L << tileWidth) - 1);
+				int line = tile << DEPTH_TILE_SHIFT;
+				for (int k = 0; k < DEPTH_TILE_SIZE; k++) {
+					depthTilesDrawn[line + k] = k < tileHeight ? drawn : -1;
+				}
+				depthTilesFull[tile] = DEPTH_TILE_SIZE - tileHeight;
+				depthTilesMax[tile] = Integer.MIN_VALUE;
+			}
+		}
+	}
+	
+	/**
+	 * Creates the planes of the G-buffer of this RenderBuffer if they don't exist yet.
+	 * This needs to be called before drawing with deferred shading.
+	 */
+	public void createGBuffer() {
+		if (normalBuffer == null) {
+			normalBuffer = new int[capacity];
+			albedoBuffer = new int[capacity];
+		}
+	}
+	
+	/**
+	 * Returns the normal plane of the G-buffer of this RenderBuffer, or null if the G-buffer wasn't created.
+	 * It contains the packed normals of the pixels drawn with deferred shading that were not lit yet, 
+	 * the other pixels are 0.
+	 * 
+	 * @return normal plane of the G-buffer of this RenderBuffer.
+	 */
+	public int[] getNormalBuffer() {
+		return normalBuffer;
+	}
+	
+	/**
+	 * Returns the albedo plane of the G-buffer of this RenderBuffer, or null if the G-buffer wasn't created.
+	 * It contains the unlit colors of the pixels drawn with deferred shading.
+	 * 
+	 * @return albedo plane of the G-buffer of this RenderBuffer.
+	 */
+	public int[] getAlbedoBuffer() {
+		return albedoBuffer;
+	}
+	
+	/**
+	 * Returns the count of tiles of the depthBuffer in the x axis.
+	 * 
+	 * @return count of tiles of the depthBuffer in the x axis.
+	 */
+	public int getDepthTilesX() {
+		return depthTilesX;
+	}
+	
+	/**
+	 * Returns the max depth of the pixels in the tile at the given index. 
+	 * If lines were not drawn over all pixels of the tile since it was cleared, 
+	 * Integer.MAX_VALUE is returned.
+	 * 
+	 * @param tile index of the tile, x + (y * {@link #getDepthTilesX()}).
+	 * @return max depth of the pixels in the tile.
+	 */
+	public int getDepthTileMax(int tile) {
+		if (depthTilesFull[tile] == DEPTH_TILE_SIZE)
+			return depthTilesMax[tile];
+		return Integer.MAX_VALUE;
+	}
+	
+	/**
+	 * Tells the tile at the given index that a line was drawn over the given pixels of it 
+	 * after drawing directly into the depthBuffer. After the line was drawn the depth of all 
+	 * its pixels is at most the given depth, if they passed the depth test or not. 
+	 * {@link #setPixel} doesn't update the tiles, as it only lowers the depth of pixels.
+	 * 
+	 * @param tile index of the tile, x + (y * {@link #getDepthTilesX()}).
+	 * @param x location of the first pixel of the line in the x axis.
+	 * @param y location of the line in the y axis.
+	 * @param pixels count of pixels of the line inside of the tile.
+	 * @param depth max depth of the line, without the {@link #getDepthOffset() depth offset}.
+	 */
+	public void drawDepthTile(int tile, int x, int y, int pixels, int depth) {
+		int line = (tile << DEPTH_TILE_SHIFT) + (y & (DEPTH_TILE_SIZE - 1));
+		int drawn = depthTilesDrawn[line];
+		if (drawn != -1) {
+			drawn |= (int)((1L << pixels) - 1) << (x & (DEPTH_TILE_SIZE - 1));
+			depthTilesDrawn[line] = drawn;
+			if (drawn == -1)
+				depthTilesFull[tile]++;
+		}
+		if (depthTilesMax[tile] < depth)
+			depthTilesMax[tile] = depth;
+	}
+	
+	private void fill(int[] buffer, int value, int x, int y, int width, int height) {
+		// clip rectangle against this RenderBuffer
+		int minX = Math.max(x, 0);
+		int minY = Math.max(y, 0);
+		int maxX = Math.min(x + width, this.width);
+		int maxY = Math.min(y + height, this.height);
+		if (minX >= maxX) return;
+		for (int i = minY; i < maxY; i++) {
+			int start = minX + (i * this.width);
+			Arrays.fill(buffer, start, start + (maxX - minX), value);
 		}
 	}
 	
 	/**
-	 * Resizes this RenderBuffer.
+	 * Resizes this RenderBuffer. 
+	 * The buffers are only reallocated if the new size doesn't fit into the {@link #getCapacity() capacity}.
 	 * 
 	 * @param width width to set.
 	 * @param height height to set.
@@ -114,9 +407,62 @@ public class RenderBuffer implements Externalizable{
 		this.width = width;
 		this.height = height;
 		this.length = width * height;
-		this.frameBuffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
-		this.frameBufferData = ((DataBufferInt)frameBuffer.getRaster().getDataBuffer()).getData();
-		this.depthBuffer = new int[length];
+		if (length > capacity) {
+			ensureCapacity(length);
+		} else {
+			createFrameBuffer();
+		}
+		this.depthTilesX = (width + DEPTH_TILE_SIZE - 1) >> DEPTH_TILE_SHIFT;
+		int depthTiles = depthTilesX * ((height + DEPTH_TILE_SIZE - 1) >> DEPTH_TILE_SHIFT);
+		if (depthTilesFull.length < depthTiles) {
+			depthTilesDrawn = new int[depthTiles << DEPTH_TILE_SHIFT];
+			depthTilesFull = new int[depthTiles];
+			depthTilesMax = new int[depthTiles];
+		}
+		// the depth of the pixels is not known anymore
+		clearDepthTiles(0, 0, width, height);
+		// the lines have a different length now, so all pixels may have been drawn
+		if (drawnParts.length < height * depthTilesX) {
+			drawnParts = new boolean[height * depthTilesX];
+		}
+		Arrays.fill(drawnParts, true);
+	}
+	
+	private void createFrameBuffer() {
+		// the image is only a view of the buffer, so creating it is cheap
+		WritableRaster raster = Raster.createPackedRaster(new DataBufferInt(frameBufferData, length), 
+				width, height, width, IMAGE_MASKS, null);
+		this.frameBuffer = new BufferedImage(IMAGE_MODEL, raster, true, null);
+	}
+	
+	/**
+	 * Makes sure that this RenderBuffer can be resized to the given count of pixels 
+	 * without allocating new buffers.
+	 * 
+	 * @param capacity count of pixels.
+	 */
+	public void ensureCapacity(int capacity) {
+		if (capacity > this.capacity) {
+			this.capacity = capacity;
+			this.frameBufferData = new int[capacity];
+			this.depthBuffer = new int[capacity];
+			// new pixels are behind all depth generations
+			Arrays.fill(depthBuffer, Integer.MAX_VALUE);
+			if (normalBuffer != null) {
+				this.normalBuffer = new int[capacity];
+				this.albedoBuffer = new int[capacity];
+			}
+			createFrameBuffer();
+		}
+	}
+	
+	/**
+	 * Returns the count of pixels this RenderBuffer can hold without allocating new buffers.
+	 * 
+	 * @return count of pixels this RenderBuffer can hold without allocating new buffers.
+	 */
+	public int getCapacity() {
+		return capacity;
 	}
 	
 	/**
@@ -132,9 +478,10 @@ public class RenderBuffer implements Externalizable{
 		// check if pixel is inside RenderBuffer
 		if (pos < length) {
 			// z test
-			if (depthBuffer[pos] > z) {
-				depthBuffer[pos] = z;
+			if (depthBuffer[pos] > z + depthOffset) {
+				depthBuffer[pos] = z + depthOffset;
 				frameBufferData[pos] = color;
+				drawnParts[(y * depthTilesX) + (x >> DEPTH_TILE_SHIFT)] = true;
 			}
 		}
 	}
@@ -158,15 +505,22 @@ public class RenderBuffer implements Externalizable{
 	 * 
 	 * @param x location of pixel in the x axis.
 	 * @param y location of pixel in the y axis.
-	 * @return depth of the pixel at the given coordinates.
+	 * @return depth of the pixel at the given coordinates, Integer.MAX_VALUE if it was cleared.
 	 */
 	public int getPixelDepth(int x, int y) {
 		int pos = x + (y * width);
 		if (pos < length) 
-			return depthBuffer[pos];
+			return getDepth(depthBuffer[pos]);
 		return -1;
 	}
 	
+	// pixels of older depth generations read as cleared
+	private int getDepth(int value) {
+		if (value >= depthOffset + DEPTH_RANGE)
+			return Integer.MAX_VALUE;
+		return value - depthOffset;
+	}
+	
 	/**
 	 * Returns the width of this RenderBuffer.
 	 * 
@@ -193,7 +547,7 @@ public class RenderBuffer implements Externalizable{
 			out.writeInt(frameBufferData[i]);
 		}
 		for (int i = 0; i < length; i++) {
-			out.writeInt(depthBuffer[i]);
+			out.writeInt(getDepth(depthBuffer[i]));
 		}
 	}
 
@@ -205,8 +559,10 @@ public class RenderBuffer implements Externalizable{
 		for (int i = 0; i < length; i++) {
 			frameBufferData[i] = in.readInt();
 		}
+		depthOffset = DEPTH_OFFSET_START;
 		for (int i = 0; i < length; i++) {
-			depthBuffer[i] = in.readInt();
+			int depth = in.readInt();
+			depthBuffer[i] = depth == Integer.MAX_VALUE ? depth : depth + depthOffset;
 		}
 	}
 
@@ -214,9 +570,13 @@ public class RenderBuffer implements Externalizable{
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + Arrays.hashCode(depthBuffer);
+		int depthResult = 1;
+		for (int i = 0; i < length; i++) {
+			depthResult = 31 * depthResult + getDepth(depthBuffer[i]);
+		}
+		result = prime * result + depthResult;
 		result = prime * result + ((frameBuffer == null) ? 0 : frameBuffer.hashCode());
-		result = prime * result + Arrays.hashCode(frameBufferData);
+		result = prime * result + hashCode(frameBufferData, length);
 		result = prime * result + height;
 		result = prime * result + length;
 		result = prime * result + width;
@@ -232,16 +592,35 @@ public class RenderBuffer implements Externalizable{
 		if (getClass() != obj.getClass())
 			return false;
 		RenderBuffer other = (RenderBuffer) obj;
-		if (!Arrays.equals(depthBuffer, other.depthBuffer))
+		if (length != other.length)
 			return false;
-		if (!Arrays.equals(frameBufferData, other.frameBufferData))
+		// only the used part of the buffers is compared, the depth generations may be different
+		for (int i = 0; i < length; i++) {
+			if (getDepth(depthBuffer[i]) != other.getDepth(other.depthBuffer[i]))
+				return false;
+		}
+		if (!equals(frameBufferData, other.frameBufferData, length))
 			return false;
 		if (height != other.height)
 			return false;
-		if (length != other.length)
-			return false;
 		if (width != other.width)
 			return false;
 		return true;
 	}
+	
+	private static int hashCode(int[] buffer, int length) {
+		int result = 1;
+		for (int i = 0; i < length; i++) {
+			result = 31 * result + buffer[i];
+		}
+		return result;
+	}
+	
+	private static boolean equals(int[] buffer1, int[] buffer2, int length) {
+		for (int i = 0; i < length; i++) {
+			if (buffer1[i] != buffer2[i])
+				return false;
+		}
+		return true;
+	}
 }
@@ -44,6 +44,7 @@ public class SceneObject implements Externalizable {
 	private Shader shader = new Shader();
 	private Rigidbody rigidbody = new Rigidbody();
 	private boolean changed = false;
+	private volatile int changes = 0;
 	private boolean active = true;
 
 	public SceneObject() {}
@@ -103,21 +104,37 @@ public class SceneObject implements Externalizable {
 	}
 	
 	/**
-	 * Returns if this scene object has changed since last frame.
+	 * Returns if this scene object may have changed since changed(false) was called. 
+	 * It is set by the methods that change or return the parts of this scene object.
 	 * 
-	 * @return if this scene object has changed since last frame.
+	 * @return if this scene object may have changed since changed(false) was called.
 	 */
 	public boolean changed() {
 		return changed;
 	}
 	
 	/**
-	 * Sets if this scene object has changed since last frame.
+	 * Sets if this scene object has changed. 
+	 * Setting it to true also counts a change, so the {@link com.johnsproject.jpge.graphics.Renderer Renderer} 
+	 * draws this scene object again in the next frame. This has to be done after changing the 
+	 * vertexes, materials or textures of its {@link Mesh} in place.
 	 * 
-	 * @param changed if this scene object has changed since last frame.
+	 * @param changed if this scene object has changed.
 	 */
 	public void changed(boolean changed) {
 		this.changed = changed;
+		if (changed) {
+			changes++;
+		}
+	}
+	
+	/**
+	 * Returns how many times changed(true) was called on this scene object.
+	 * 
+	 * @return how many times changed(true) was called on this scene object.
+	 */
+	public int getChanges() {
+		return changes;
 	}
 	
 	/**
@@ -155,7 +172,6 @@ public class SceneObject implements Externalizable {
 	 * @return if this object is active or not.
 	 */
 	public boolean isActive() {
-		changed = true;
 		return active;
 	}
 
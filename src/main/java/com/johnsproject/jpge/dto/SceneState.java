@@ -0,0 +1,153 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 John Salomon - John´s Project
+ *  
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.johnsproject.jpge.dto;
+
+import java.util.List;
+
+import com.johnsproject.jpge.Engine;
+import com.johnsproject.jpge.graphics.Renderer;
+
+/**
+ * The SceneState class contains a copy of the {@link Transform transforms} of all 
+ * {@link SceneObject SceneObjects} and {@link Camera Cameras} of a {@link Scene}.
+ * The {@link Engine} fills it after each physics update and the {@link Renderer} 
+ * renders from it, so the renderer never reads transforms that are being changed. 
+ * The engine copies them while it holds its scene lock, so the changes of the jpge listeners, 
+ * the input and the physics are never copied in part.
+ * 
+ * @author John´s Project - John Salomon
+ */
+public class SceneState {
+
+	private SceneObject[] sceneObjects = new SceneObject[0];
+	private Transform[] transforms = new Transform[0];
+	private int sceneObjectsCount = 0;
+	private Camera[] cameras = new Camera[0];
+	private Transform[] cameraTransforms = new Transform[0];
+	private int camerasCount = 0;
+	
+	public SceneState() {}
+	
+	/**
+	 * Copies the {@link Transform transforms} of all {@link SceneObject SceneObjects} 
+	 * and {@link Camera Cameras} of the given {@link Scene} to this scene state.
+	 * New memory is only allocated if the scene has more objects than before.
+	 * 
+	 * @param scene {@link Scene} to copy from.
+	 */
+	public void update(Scene scene) {
+		final List<SceneObject> sceneObjects = scene.getSceneObjects();
+		sceneObjectsCount = sceneObjects.size();
+		if (this.sceneObjects.length < sceneObjectsCount) {
+			this.sceneObjects = new SceneObject[sceneObjectsCount];
+			this.transforms = grow(transforms, sceneObjectsCount);
+		}
+		for (int i = 0; i < sceneObjectsCount; i++) {
+			final SceneObject sceneObject = sceneObjects.get(i);
+			this.sceneObjects[i] = sceneObject;
+			transforms[i].copy(sceneObject.getTransform());
+		}
+		final List<Camera> cameras = scene.getCameras();
+		camerasCount = cameras.size();
+		if (this.cameras.length < camerasCount) {
+			this.cameras = new Camera[camerasCount];
+			this.cameraTransforms = grow(cameraTransforms, camerasCount);
+		}
+		for (int i = 0; i < camerasCount; i++) {
+			final Camera camera = cameras.get(i);
+			this.cameras[i] = camera;
+			cameraTransforms[i].copy(camera.getTransform());
+		}
+	}
+	
+	private Transform[] grow(Transform[] transforms, int length) {
+		Transform[] result = new Transform[length];
+		for (int i = 0; i < length; i++) {
+			if (i < transforms.length) {
+				result[i] = transforms[i];
+			} else {
+				result[i] = new Transform();
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns how many {@link SceneObject SceneObjects} are in this scene state.
+	 * 
+	 * @return how many {@link SceneObject SceneObjects} are in this scene state.
+	 */
+	public int getSceneObjectsCount() {
+		return sceneObjectsCount;
+	}
+	
+	/**
+	 * Returns the {@link SceneObject} at the given index.
+	 * 
+	 * @param index index of {@link SceneObject}.
+	 * @return {@link SceneObject} at the given index.
+	 */
+	public SceneObject getSceneObject(int index) {
+		return sceneObjects[index];
+	}
+	
+	/**
+	 * Returns the copy of the {@link Transform} of the {@link SceneObject} at the given index.
+	 * 
+	 * @param index index of {@link SceneObject}.
+	 * @return copy of the {@link Transform} of the {@link SceneObject} at the given index.
+	 */
+	public Transform getTransform(int index) {
+		return transforms[index];
+	}
+	
+	/**
+	 * Returns how many {@link Camera Cameras} are in this scene state.
+	 * 
+	 * @return how many {@link Camera Cameras} are in this scene state.
+	 */
+	public int getCamerasCount() {
+		return camerasCount;
+	}
+	
+	/**
+	 * Returns the {@link Camera} at the given index.
+	 * 
+	 * @param index index of {@link Camera}.
+	 * @return {@link Camera} at the given index.
+	 */
+	public Camera getCamera(int index) {
+		return cameras[index];
+	}
+	
+	/**
+	 * Returns the copy of the {@link Transform} of the {@link Camera} at the given index.
+	 * 
+	 * @param index index of {@link Camera}.
+	 * @return copy of the {@link Transform} of the {@link Camera} at the given index.
+	 */
+	public Transform getCameraTransform(int index) {
+		return cameraTransforms[index];
+	}
+}
@@ -44,11 +44,29 @@ public class Texture implements Externalizable {
 
 	private static final long serialVersionUID = -1930284191151225776L;
 	
+	/**
+	 * Textures with at least this count of pixels are stored in tiles of 
+	 * {@link #TILE_SIZE} x {@link #TILE_SIZE} pixels instead of line by line.
+	 */
+	public static final int TILED_PIXELS = 256 * 256;
+	public static final int TILE_SHIFT = 4;
+	public static final int TILE_SIZE = 1 << TILE_SHIFT;
+	
 	private int[] image = new int[0];
 	private int width = 0, height = 0;
+	// count of pixels in a line of tiles, 0 if the pixels are stored line by line
+	private int tileLine = 0;
+	// log2 of the width if the width and height are powers of two, else -1
+	private int widthShift = -1;
+	// smaller versions of this texture, each one half the size of the one before
+	private Texture[] mipmaps = new Texture[0];
 	
 	public Texture() {}
 	
+	private Texture(int[] image, int width, int height) {
+		setImage(image, width, height);
+	}
+	
 	/**
 	 * Creates a new empty instance of the Texture class with the given width and height.
 	 * 
@@ -57,9 +75,7 @@ public class Texture implements Externalizable {
 	 */
 	public Texture (int width, int height){
 		BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
-		this.image = ((DataBufferInt)img.getRaster().getDataBuffer()).getData();
-		this.width = img.getWidth();
-		this.height = img.getHeight();
+		setImage(((DataBufferInt)img.getRaster().getDataBuffer()).getData(), img.getWidth(), img.getHeight());
 	}
 	
 	/**
@@ -70,9 +86,8 @@ public class Texture implements Externalizable {
 	 */
 	public Texture (String path) throws IOException{
 		BufferedImage img = FileIO.loadImage(path);
-		this.image = ((DataBufferInt)img.getRaster().getDataBuffer()).getData();
-		this.width = img.getWidth();
-		this.height = img.getHeight();
+		setImage(((DataBufferInt)img.getRaster().getDataBuffer()).getData(), img.getWidth(), img.getHeight());
+		updateMipmaps();
 	}
 	
 	/**
@@ -85,9 +100,8 @@ public class Texture implements Externalizable {
 	 */
 	public Texture (String path, int width, int height) throws IOException{
 		BufferedImage img = FileIO.loadImage(path, width, height);
-		this.image = ((DataBufferInt)img.getRaster().getDataBuffer()).getData();
-		this.width = img.getWidth();
-		this.height = img.getHeight();
+		setImage(((DataBufferInt)img.getRaster().getDataBuffer()).getData(), img.getWidth(), img.getHeight());
+		updateMipmaps();
 	}
 	
 	/**
@@ -98,9 +112,8 @@ public class Texture implements Externalizable {
 	 */
 	public Texture (InputStream stream) throws IOException{
 		BufferedImage img = FileIO.loadImage(stream);
-		this.image = ((DataBufferInt)img.getRaster().getDataBuffer()).getData();
-		this.width = img.getWidth();
-		this.height = img.getHeight();
+		setImage(((DataBufferInt)img.getRaster().getDataBuffer()).getData(), img.getWidth(), img.getHeight());
+		updateMipmaps();
 	}
 	
 	/**
@@ -113,9 +126,59 @@ public class Texture implements Externalizable {
 	 */
 	public Texture (InputStream stream, int width, int height) throws IOException{
 		BufferedImage img = FileIO.loadImage(stream, width, height);
-		this.image = ((DataBufferInt)img.getRaster().getDataBuffer()).getData();
-		this.width = img.getWidth();
-		this.height = img.getHeight();
+		setImage(((DataBufferInt)img.getRaster().getDataBuffer()).getData(), img.getWidth(), img.getHeight());
+		updateMipmaps();
+	}
+	
+	// stores the given pixels, that are line by line, in the layout used for the size of this texture
+	private void setImage(int[] pixels, int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.widthShift = -1;
+		if ((width > 0) && (height > 0) && ((width & (width - 1)) == 0) && ((height & (height - 1)) == 0)) {
+			this.widthShift = Integer.numberOfTrailingZeros(width);
+		}
+		if (width * height < TILED_PIXELS) {
+			this.image = pixels;
+			this.tileLine = 0;
+			return;
+		}
+		// the pixels of a tile are next to each other in memory, so sampling 
+		// in any direction stays in the same cache lines for longer
+		int tilesX = (width + TILE_SIZE - 1) >> TILE_SHIFT;
+		int tilesY = (height + TILE_SIZE - 1) >> TILE_SHIFT;
+		this.tileLine = tilesX << (TILE_SHIFT * 2);
+		this.image = new int[tilesY * tileLine];
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				image[getIndex(x, y)] = pixels[x + (y * width)];
+			}
+		}
+	}
+	
+	/**
+	 * Returns the index in the pixels of this texture of the pixel at the given location.
+	 * If this texture {@link #isWrapped() wraps} the locations outside of it wrap around, 
+	 * else they are clamped to this texture.
+	 * 
+	 * @param x location of pixel at the x axis.
+	 * @param y location of pixel at the y axis.
+	 * @return index of the pixel at the given location.
+	 */
+	public int getIndex(int x, int y) {
+		if (widthShift >= 0) {
+			x &= width - 1;
+			y &= height - 1;
+			if (tileLine == 0)
+				return x + (y << widthShift);
+		} else if (tileLine == 0) {
+			return MathUtils.clamp((x + (y*width)), 0, image.length-1);
+		} else {
+			x = MathUtils.clamp(x, 0, width - 1);
+			y = MathUtils.clamp(y, 0, height - 1);
+		}
+		return ((y >> TILE_SHIFT) * tileLine) + ((x >> TILE_SHIFT) << (TILE_SHIFT * 2))
+				+ ((y & (TILE_SIZE - 1)) << TILE_SHIFT) + (x & (TILE_SIZE - 1));
 	}
 	
 	/**
@@ -126,7 +189,7 @@ public class Texture implements Externalizable {
 	 * @param color color of pixel to set.
 	 */
 	public void setPixel(int x, int y, int color){
-		image[MathUtils.clamp((x + (y*width)), 0, image.length-1)] = color;
+		image[getIndex(x, y)] = color;
 	}
 	
 	/**
@@ -137,11 +200,13 @@ public class Texture implements Externalizable {
 	 * @return color of the pixel at the given location.
 	 */
 	public int getPixel(int x, int y){
-		return image[MathUtils.clamp((x + (y*width)), 0, image.length-1)];
+		return image[getIndex(x, y)];
 	}
 	
 	/**
-	 * Returns all pixels of this texture.
+	 * Returns all pixels of this texture. 
+	 * The pixels are stored line by line, or in tiles if {@link #getTileLine()} is not 0.
+	 * Use {@link #getIndex(int, int)} to find a pixel.
 	 * 
 	 * @return all pixels of this texture.
 	 */
@@ -149,6 +214,106 @@ public class Texture implements Externalizable {
 		return image;
 	}
 	
+	/**
+	 * Returns true if the width and height of this texture are powers of two. 
+	 * The locations outside of these textures wrap around, so they repeat, 
+	 * and the pixels are found with masks and shifts.
+	 * Other sizes can be loaded as powers of two with the constructors that resize the image.
+	 * 
+	 * @return true if the width and height of this texture are powers of two.
+	 */
+	public boolean isWrapped() {
+		return widthShift >= 0;
+	}
+	
+	/**
+	 * Returns log2 of the width of this texture if it {@link #isWrapped() wraps}, else -1.
+	 * 
+	 * @return log2 of the width of this texture or -1.
+	 */
+	public int getWidthShift() {
+		return widthShift;
+	}
+	
+	/**
+	 * Returns the count of pixels in a line of tiles of this texture. 
+	 * Big textures are stored in tiles of {@link #TILE_SIZE} x {@link #TILE_SIZE} pixels, 
+	 * line after line of tiles. If this texture is stored line by line this is 0.
+	 * 
+	 * @return count of pixels in a line of tiles, or 0.
+	 */
+	public int getTileLine() {
+		return tileLine;
+	}
+	
+	/**
+	 * Returns the texture of the given mipmap level. 
+	 * Level 0 is this texture, each level after it has half the width and height of the level before.
+	 * 
+	 * @param level mipmap level.
+	 * @return texture of the given mipmap level.
+	 */
+	public Texture getMipmap(int level) {
+		return level == 0 ? this : mipmaps[level - 1];
+	}
+	
+	/**
+	 * Returns the count of mipmap levels of this texture, this texture included.
+	 * 
+	 * @return count of mipmap levels of this texture.
+	 */
+	public int getMipmapsCount() {
+		return mipmaps.length + 1;
+	}
+	
+	/**
+	 * Creates the mipmap levels of this texture down to a size of 1x1.
+	 * Each texel of a level is the average of 2x2 texels of the level before.
+	 * The textures loaded from images create their mipmaps, 
+	 * but after changing the pixels of this texture this needs to be called again.
+	 */
+	public void updateMipmaps() {
+		int levels = 0;
+		for (int size = Math.max(width, height); size > 1; size >>= 1) {
+			levels++;
+		}
+		Texture[] mipmaps = new Texture[levels];
+		Texture level = this;
+		for (int i = 0; i < levels; i++) {
+			level = level.createHalfSize();
+			mipmaps[i] = level;
+		}
+		this.mipmaps = mipmaps;
+	}
+	
+	private Texture createHalfSize() {
+		int width = Math.max(this.width >> 1, 1);
+		int height = Math.max(this.height >> 1, 1);
+		int[] image = new int[width * height];
+		for (int y = 0; y < height; y++) {
+			int y1 = Math.min(y << 1, this.height - 1);
+			int y2 = Math.min((y << 1) + 1, this.height - 1);
+			for (int x = 0; x < width; x++) {
+				int x1 = Math.min(x << 1, this.width - 1);
+				int x2 = Math.min((x << 1) + 1, this.width - 1);
+				image[x + (y * width)] = average(getPixel(x1, y1), getPixel(x2, y1), 
+												getPixel(x1, y2), getPixel(x2, y2));
+			}
+		}
+		return new Texture(image, width, height);
+	}
+	
+	// averages each channel of the given colors
+	private static int average(int color1, int color2, int color3, int color4) {
+		int color = 0;
+		for (int shift = 0; shift < 32; shift += 8) {
+			int sum = ((color1 >>> shift) & 0xFF) + ((color2 >>> shift) & 0xFF) 
+					+ ((color3 >>> shift) & 0xFF) + ((color4 >>> shift) & 0xFF);
+			color |= ((sum + 2) >> 2) << shift;
+		}
+		return color;
+	}
+	
 	/**
 	 * Returns the width of this texture.
 	 * 
@@ -169,9 +334,19 @@ public class Texture implements Externalizable {
 
 	@Override
 	public void writeExternal(ObjectOutput out) throws IOException {
-		out.writeInt(image.length);
-		for (int i = 0; i < image.length; i++) {
-			out.writeInt(image[i]);
+		// the pixels are always written line by line
+		if (tileLine == 0) {
+			out.writeInt(image.length);
+			for (int i = 0; i < image.length; i++) {
+				out.writeInt(image[i]);
+			}
+		} else {
+			out.writeInt(width * height);
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					out.writeInt(getPixel(x, y));
+				}
+			}
 		}
 		out.writeInt(width);
 		out.writeInt(height);
@@ -180,12 +355,14 @@ public class Texture implements Externalizable {
 	@Override
 	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
 		final int lenght = in.readInt();
-		image = new int[lenght];
-		for (int i = 0; i < image.length; i++) {
-			image[i] = in.readInt();
+		int[] pixels = new int[lenght];
+		for (int i = 0; i < pixels.length; i++) {
+			pixels[i] = in.readInt();
 		}
-		width = in.readInt();
-		height = in.readInt();
+		int width = in.readInt();
+		int height = in.readInt();
+		setImage(pixels, width, height);
+		updateMipmaps();
 	}
 
 	@Override
@@ -123,6 +123,17 @@ public class Transform implements Externalizable {
 		rotation = Vector3MathUtils.add(rotation, vector, rotation);
 	}
 
+	/**
+	 * Copies the location, rotation and scale of the given transform to this transform.
+	 * 
+	 * @param transform transform to copy from.
+	 */
+	public void copy(Transform transform) {
+		VectorUtils.copy3(location, transform.location);
+		VectorUtils.copy3(rotation, transform.rotation);
+		VectorUtils.copy3(scale, transform.scale);
+	}
+
 	/**
 	 * Returns the location of this transform.
 	 * 
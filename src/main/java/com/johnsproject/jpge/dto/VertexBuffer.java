@@ -0,0 +1,124 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 John Salomon - John´s Project
+ *  
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.johnsproject.jpge.dto;
+
+import com.johnsproject.jpge.graphics.Shader;
+
+/**
+ * The VertexBuffer class contains the results of the vertex shading of a {@link Mesh} 
+ * seen by one {@link Camera}. The {@link Shader} writes the camera space and projected locations, 
+ * the clipping outcodes, the transformed normals and the shaded colors of the {@link Vertex vertexes} into it, 
+ * so the {@link Vertex vertexes} of the mesh are not changed and many cameras 
+ * can shade the same mesh at the same time.
+ * <br>
+ * Locations and normals are stored as x, y, z of each vertex one after another.
+ * 
+ * @author John´s Project - John Salomon
+ */
+public class VertexBuffer {
+	
+	private int size = 0;
+	private int[] locations = new int[0];
+	private int[] viewLocations = new int[0];
+	private int[] outcodes = new int[0];
+	private int[] normals = new int[0];
+	private int[] colors = new int[0];
+	
+	public VertexBuffer() {}
+	
+	/**
+	 * Sets the count of vertexes this VertexBuffer contains.
+	 * New memory is only allocated if the size is bigger than before.
+	 * 
+	 * @param size count of vertexes.
+	 */
+	public void setSize(int size) {
+		this.size = size;
+		if (colors.length < size) {
+			locations = new int[size * 3];
+			viewLocations = new int[size * 3];
+			outcodes = new int[size];
+			normals = new int[size * 3];
+			colors = new int[size];
+		}
+	}
+	
+	/**
+	 * Returns the count of vertexes this VertexBuffer contains.
+	 * 
+	 * @return count of vertexes this VertexBuffer contains.
+	 */
+	public int getSize() {
+		return size;
+	}
+	
+	/**
+	 * Returns the locations of the vertexes in this VertexBuffer. 
+	 * The location of the vertex at index i starts at i * 3.
+	 * 
+	 * @return locations of the vertexes in this VertexBuffer.
+	 */
+	public int[] getLocations() {
+		return locations;
+	}
+	
+	/**
+	 * Returns the locations of the vertexes in this VertexBuffer in camera space, before they were projected. 
+	 * The location of the vertex at index i starts at i * 3.
+	 * 
+	 * @return camera space locations of the vertexes in this VertexBuffer.
+	 */
+	public int[] getViewLocations() {
+		return viewLocations;
+	}
+	
+	/**
+	 * Returns the outcodes of the vertexes in this VertexBuffer. 
+	 * They tell which planes of the view frustum each vertex is outside of.
+	 * 
+	 * @return outcodes of the vertexes in this VertexBuffer.
+	 */
+	public int[] getOutcodes() {
+		return outcodes;
+	}
+	
+	/**
+	 * Returns the normals of the vertexes in this VertexBuffer. 
+	 * The normal of the vertex at index i starts at i * 3.
+	 * 
+	 * @return normals of the vertexes in this VertexBuffer.
+	 */
+	public int[] getNormals() {
+		return normals;
+	}
+	
+	/**
+	 * Returns the colors of the vertexes in this VertexBuffer.
+	 * 
+	 * @return colors of the vertexes in this VertexBuffer.
+	 */
+	public int[] getColors() {
+		return colors;
+	}
+}
@@ -0,0 +1,700 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 John Salomon - John´s Project
+ *  
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.johnsproject.jpge.graphics;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.johnsproject.jpge.TaskRunner;
+import com.johnsproject.jpge.dto.Camera;
+import com.johnsproject.jpge.dto.Light;
+import com.johnsproject.jpge.dto.RenderBuffer;
+import com.johnsproject.jpge.dto.Texture;
+import com.johnsproject.jpge.utils.RenderUtils;
+
+/**
+ * The Rasterizer class draws the faces, lines and pixels given by the {@link Shader} 
+ * into a {@link RenderBuffer}. 
+ * If its {@link TaskRunner} uses more than one thread, the draw calls are not executed immediately. 
+ * They are recorded and binned into screen tiles by their bounding box, and when {@link #end()} 
+ * is called the tiles are drawn in parallel. Each tile only writes into its own part of the 
+ * frameBuffer and depthBuffer, so no synchronization is needed, and the calls inside a tile are 
+ * drawn in the order they were recorded, so the result is the same as drawing them immediately.
+ *
+ * @author John´s Project - John Salomon
+ */
+public class Rasterizer {
+	
+	private static final int DRAW_CLEAR_DEPTH = 0;
+	private static final int DRAW_PIXEL = 1;
+	private static final int DRAW_LINE = 2;
+	private static final int DRAW_FACE_GOURAUD = 3;
+	private static final int DRAW_FACE_AFFINE = 4;
+	private static final int DRAW_FACE_GOURAUD_HALFSPACE = 5;
+	private static final int DRAW_FACE_AFFINE_HALFSPACE = 6;
+	private static final int DRAW_FACE_PERSPECTIVE = 7;
+	private static final int DRAW_FACE_DEFERRED = 8;
+	private static final int DRAW_DEFERRED_LIGHTS = 9;
+	private static final int COMMAND_SIZE = 20;
+	private static final int DEFAULT_TILE_SIZE = 32;
+	
+	private final TaskRunner taskRunner;
+	private final TileTask tileTask = new TileTask();
+	private final int[] clip = new int[4];
+	private final int[] lines = new int[RenderUtils.HALFSPACE_LINES];
+	private RenderBuffer renderBuffer;
+	private int tileSize = DEFAULT_TILE_SIZE;
+	private int rasterizationType = Shader.RASTERIZE_SCANLINE;
+	private int tilesX = 0;
+	private int tilesY = 0;
+	private int tilesWidth = 0;
+	private int tilesHeight = 0;
+	private int tilesSize = 0;
+	private int[][] tiles = new int[0][];
+	private int[] tilesCount = new int[0];
+	// clip rectangle and half-space lines of each tile, only used by the thread drawing the tile
+	private int[][] tilesClip = new int[0][];
+	private int[][] tilesLines = new int[0][];
+	private int commandsCount = 0;
+	private int[] commands = new int[COMMAND_SIZE * 64];
+	private Camera[] cameras = new Camera[64];
+	private Texture[] textures = new Texture[64];
+	private List<Light> lights;
+	// rectangles {minX, minY, maxX, maxY} in render buffer space the calls are limited to, max values are exclusive
+	private int[] scissors = new int[4];
+	private int scissorsCount = 0;
+	
+	/**
+	 * Creates a new Rasterizer that draws immediately on the thread that calls it.
+	 */
+	public Rasterizer() {
+		this(new TaskRunner(1));
+	}
+	
+	/**
+	 * Creates a new Rasterizer that draws the tiles using the threads of the given {@link TaskRunner}.
+	 * 
+	 * @param taskRunner {@link TaskRunner} used to draw the tiles.
+	 */
+	public Rasterizer(TaskRunner taskRunner) {
+		this.taskRunner = taskRunner;
+	}
+	
+	/**
+	 * Tells this Rasterizer to start drawing into the given {@link RenderBuffer}.
+	 * 
+	 * @param renderBuffer {@link RenderBuffer} to draw into.
+	 */
+	public void begin(RenderBuffer renderBuffer) {
+		this.renderBuffer = renderBuffer;
+		this.commandsCount = 0;
+		this.scissorsCount = 0;
+		if (isParallel()) {
+			updateTiles();
+			for (int i = 0; i < tilesCount.length; i++) {
+				tilesCount[i] = 0;
+			}
+		}
+	}
+	
+	/**
+	 * Limits all calls drawn until {@link #end()} to the given rectangle of the {@link RenderBuffer}. 
+	 * It needs to be set after {@link #begin} and before the calls, 
+	 * calls are limited to the viewport of their {@link Camera} as usual.
+	 * 
+	 * @param x location of the rectangle in the x axis.
+	 * @param y location of the rectangle in the y axis.
+	 * @param width width of the rectangle.
+	 * @param height height of the rectangle.
+	 */
+	public void setScissor(int x, int y, int width, int height) {
+		scissorsCount = 0;
+		addScissor(x, y, width, height);
+	}
+	
+	/**
+	 * Adds the given rectangle of the {@link RenderBuffer} to the rectangles all calls drawn until 
+	 * {@link #end()} are limited to. The calls are drawn once inside each rectangle, 
+	 * so the rectangles shouldn't overlap.
+	 * 
+	 * @param x location of the rectangle in the x axis.
+	 * @param y location of the rectangle in the y axis.
+	 * @param width width of the rectangle.
+	 * @param height height of the rectangle.
+	 */
+	public void addScissor(int x, int y, int width, int height) {
+		int index = scissorsCount * 4;
+		if (index >= scissors.length) {
+			scissors = Arrays.copyOf(scissors, scissors.length * 2);
+		}
+		scissors[index] = x;
+		scissors[index + 1] = y;
+		scissors[index + 2] = x + width;
+		scissors[index + 3] = y + height;
+		scissorsCount++;
+	}
+	
+	/**
+	 * Tells this Rasterizer to draw all recorded calls and waits until they are drawn.
+	 */
+	public void end() {
+		if (isParallel() && (commandsCount > 0)) {
+			taskRunner.run(tileTask, tiles.length);
+		}
+	}
+	
+	/**
+	 * Tells this Rasterizer to clear the depthBuffer of the {@link RenderBuffer} 
+	 * inside the viewport of the given {@link Camera}.
+	 * 
+	 * @param camera {@link Camera} to clear.
+	 */
+	public void clearDepthBuffer(Camera camera) {
+		if (!isParallel()) {
+			renderBuffer.clearDepthBuffer(camera.getLocationX(), camera.getLocationY(), camera.getWidth(), camera.getHeight());
+			return;
+		}
+		int command = record(DRAW_CLEAR_DEPTH, camera, null);
+		bin(command, 0, 0, camera.getWidth() - 1, camera.getHeight() - 1, camera);
+	}
+	
+	/**
+	 * Draws a pixel on the given {@link Camera}.
+	 * 
+	 * @param x location of pixel in the x axis.
+	 * @param y location of pixel in the y axis.
+	 * @param z location of pixel in the z axis.
+	 * @param color color of pixel.
+	 * @param camera {@link Camera} to draw on.
+	 */
+	public void drawPixel(int x, int y, int z, int color, Camera camera) {
+		int command = record(DRAW_PIXEL, camera, null);
+		commands[command + 1] = x;
+		commands[command + 2] = y;
+		commands[command + 3] = z;
+		commands[command + 4] = color;
+		bin(command, x, y, x, y, camera);
+	}
+	
+	/**
+	 * Draws a line on the given {@link Camera}.
+	 * 
+	 * @param x1 start x location.
+	 * @param y1 start y location.
+	 * @param x2 end x location.
+	 * @param y2 end y location.
+	 * @param z z location used by the zBuffer.
+	 * @param color color of the line.
+	 * @param camera {@link Camera} to draw on.
+	 */
+	public void drawLine(int x1, int y1, int x2, int y2, int z, int color, Camera camera) {
+		drawLine(x1, y1, z, x2, y2, z, color, camera);
+	}
+	
+	/**
+	 * Draws a line on the given {@link Camera}.
+	 * The depth is interpolated between the start and the end of the line.
+	 * 
+	 * @param x1 start x location.
+	 * @param y1 start y location.
+	 * @param z1 start z location used by the zBuffer.
+	 * @param x2 end x location.
+	 * @param y2 end y location.
+	 * @param z2 end z location used by the zBuffer.
+	 * @param color color of the line.
+	 * @param camera {@link Camera} to draw on.
+	 */
+	public void drawLine(int x1, int y1, int z1, int x2, int y2, int z2, int color, Camera camera) {
+		int command = record(DRAW_LINE, camera, null);
+		commands[command + 1] = x1;
+		commands[command + 2] = y1;
+		commands[command + 3] = z1;
+		commands[command + 4] = x2;
+		commands[command + 5] = y2;
+		commands[command + 6] = z2;
+		commands[command + 7] = color;
+		bin(command, Math.min(x1, x2), Math.min(y1, y2), Math.max(x1, x2), Math.max(y1, y2), camera);
+	}
+	
+	/**
+	 * Draws a face with the given projected vertexes on the given {@link Camera} using the gouraud shading technic.
+	 * 
+	 * @param x1 x location of the first vertex.
+	 * @param y1 y location of the first vertex.
+	 * @param z1 z location of the first vertex.
+	 * @param vc1 color of the first vertex.
+	 * @param x2 x location of the second vertex.
+	 * @param y2 y location of the second vertex.
+	 * @param z2 z location of the second vertex.
+	 * @param vc2 color of the second vertex.
+	 * @param x3 x location of the third vertex.
+	 * @param y3 y location of the third vertex.
+	 * @param z3 z location of the third vertex.
+	 * @param vc3 color of the third vertex.
+	 * @param color color of the face.
+	 * @param camera {@link Camera} to draw on.
+	 */
+	public void drawFaceGouraud(int x1, int y1, int z1, int vc1, int x2, int y2, int z2, int vc2,
+			int x3, int y3, int z3, int vc3, int color, Camera camera) {
+		boolean halfSpace = rasterizationType == Shader.RASTERIZE_HALFSPACE;
+		int command = record(halfSpace ? DRAW_FACE_GOURAUD_HALFSPACE : DRAW_FACE_GOURAUD, camera, null);
+		recordFace(command, x1, y1, z1, vc1, x2, y2, z2, vc2, x3, y3, z3, vc3);
+		commands[command + 13] = color;
+		binFace(command, camera);
+	}
+	
+	/**
+	 * Draws a face with the given projected vertexes on the given {@link Camera} using the 
+	 * gouraud shading and affine texture mapping technic.
+	 * 
+	 * @param x1 x location of the first vertex.
+	 * @param y1 y location of the first vertex.
+	 * @param z1 z location of the first vertex.
+	 * @param vc1 color of the first vertex.
+	 * @param u1 u coordinate of the first vertex.
+	 * @param v1 v coordinate of the first vertex.
+	 * @param x2 x location of the second vertex.
+	 * @param y2 y location of the second vertex.
+	 * @param z2 z location of the second vertex.
+	 * @param vc2 color of the second vertex.
+	 * @param u2 u coordinate of the second vertex.
+	 * @param v2 v coordinate of the second vertex.
+	 * @param x3 x location of the third vertex.
+	 * @param y3 y location of the third vertex.
+	 * @param z3 z location of the third vertex.
+	 * @param vc3 color of the third vertex.
+	 * @param u3 u coordinate of the third vertex.
+	 * @param v3 v coordinate of the third vertex.
+	 * @param texture {@link Texture} of the face.
+	 * @param camera {@link Camera} to draw on.
+	 */
+	public void drawFaceAffine(int x1, int y1, int z1, int vc1, int u1, int v1,
+			int x2, int y2, int z2, int vc2, int u2, int v2,
+			int x3, int y3, int z3, int vc3, int u3, int v3, Texture texture, Camera camera) {
+		boolean halfSpace = rasterizationType == Shader.RASTERIZE_HALFSPACE;
+		int command = record(halfSpace ? DRAW_FACE_AFFINE_HALFSPACE : DRAW_FACE_AFFINE, camera, texture);
+		recordFace(command, x1, y1, z1, vc1, x2, y2, z2, vc2, x3, y3, z3, vc3);
+		commands[command + 13] = u1;
+		commands[command + 14] = v1;
+		commands[command + 15] = u2;
+		commands[command + 16] = v2;
+		commands[command + 17] = u3;
+		commands[command + 18] = v3;
+		binFace(command, camera);
+	}
+	
+	/**
+	 * Draws a face with the given projected vertexes on the given {@link Camera} using the 
+	 * gouraud shading and perspective correct texture mapping technic.
+	 * The perspective division is done only every subdivision pixels, the pixels in between are mapped affine.
+	 * The face is always filled using the scanline algorithm.
+	 * 
+	 * @param x1 x location of the first vertex.
+	 * @param y1 y location of the first vertex.
+	 * @param z1 z location of the first vertex.
+	 * @param vc1 color of the first vertex.
+	 * @param u1 u coordinate of the first vertex.
+	 * @param v1 v coordinate of the first vertex.
+	 * @param x2 x location of the second vertex.
+	 * @param y2 y location of the second vertex.
+	 * @param z2 z location of the second vertex.
+	 * @param vc2 color of the second vertex.
+	 * @param u2 u coordinate of the second vertex.
+	 * @param v2 v coordinate of the second vertex.
+	 * @param x3 x location of the third vertex.
+	 * @param y3 y location of the third vertex.
+	 * @param z3 z location of the third vertex.
+	 * @param vc3 color of the third vertex.
+	 * @param u3 u coordinate of the third vertex.
+	 * @param v3 v coordinate of the third vertex.
+	 * @param texture {@link Texture} of the face.
+	 * @param subdivision count of pixels between the perspective divisions.
+	 * @param camera {@link Camera} to draw on.
+	 */
+	public void drawFacePerspective(int x1, int y1, int z1, int vc1, int u1, int v1,
+			int x2, int y2, int z2, int vc2, int u2, int v2,
+			int x3, int y3, int z3, int vc3, int u3, int v3, Texture texture, int subdivision, Camera camera) {
+		int command = record(DRAW_FACE_PERSPECTIVE, camera, texture);
+		recordFace(command, x1, y1, z1, vc1, x2, y2, z2, vc2, x3, y3, z3, vc3);
+		commands[command + 13] = u1;
+		commands[command + 14] = v1;
+		commands[command + 15] = u2;
+		commands[command + 16] = v2;
+		commands[command + 17] = u3;
+		commands[command + 18] = v3;
+		commands[command + 19] = subdivision;
+		binFace(command, camera);
+	}
+	
+	/**
+	 * Draws a face with the given projected vertexes into the G-buffer of the {@link RenderBuffer} 
+	 * on the given {@link Camera}, so that it can be lit later by {@link #drawDeferredLights}.
+	 * The face is always filled using the scanline algorithm.
+	 * 
+	 * @param x1 x location of the first vertex.
+	 * @param y1 y location of the first vertex.
+	 * @param z1 z location of the first vertex.
+	 * @param n1 packed normal of the first vertex.
+	 * @param u1 u coordinate of the first vertex.
+	 * @param v1 v coordinate of the first vertex.
+	 * @param x2 x location of the second vertex.
+	 * @param y2 y location of the second vertex.
+	 * @param z2 z location of the second vertex.
+	 * @param n2 packed normal of the second vertex.
+	 * @param u2 u coordinate of the second vertex.
+	 * @param v2 v coordinate of the second vertex.
+	 * @param x3 x location of the third vertex.
+	 * @param y3 y location of the third vertex.
+	 * @param z3 z location of the third vertex.
+	 * @param n3 packed normal of the third vertex.
+	 * @param u3 u coordinate of the third vertex.
+	 * @param v3 v coordinate of the third vertex.
+	 * @param texture {@link Texture} of the face, or null to use the given color.
+	 * @param color color of the face if it has no texture.
+	 * @param camera {@link Camera} to draw on.
+	 */
+	public void drawFaceDeferred(int x1, int y1, int z1, int n1, int u1, int v1,
+			int x2, int y2, int z2, int n2, int u2, int v2,
+			int x3, int y3, int z3, int n3, int u3, int v3, Texture texture, int color, Camera camera) {
+		int command = record(DRAW_FACE_DEFERRED, camera, texture);
+		recordFace(command, x1, y1, z1, n1, x2, y2, z2, n2, x3, y3, z3, n3);
+		commands[command + 13] = u1;
+		commands[command + 14] = v1;
+		commands[command + 15] = u2;
+		commands[command + 16] = v2;
+		commands[command + 17] = u3;
+		commands[command + 18] = v3;
+		commands[command + 19] = color;
+		binFace(command, camera);
+	}
+	
+	/**
+	 * Lights the pixels drawn by {@link #drawFaceDeferred} inside the viewport of the given {@link Camera} 
+	 * using the given {@link Light lights}, each pixel is lit once no matter how many faces were drawn over it.
+	 * Pixels drawn by other calls before this one are not changed if the faces drawn into the G-buffer 
+	 * are drawn before them.
+	 * 
+	 * @param lights {@link Light lights} used to light the pixels.
+	 * @param camera {@link Camera} to light.
+	 */
+	public void drawDeferredLights(List<Light> lights, Camera camera) {
+		// all calls of a rasterizer are drawn in the same frame, so they use the same lights
+		this.lights = lights;
+		int command = record(DRAW_DEFERRED_LIGHTS, camera, null);
+		bin(command, 0, 0, camera.getWidth() - 1, camera.getHeight() - 1, camera);
+	}
+	
+	private boolean isParallel() {
+		return taskRunner.getThreads() > 1;
+	}
+	
+	// draws the recorded command immediately inside each scissor rectangle, the command is not kept
+	private void drawNow(int command, Camera camera) {
+		commandsCount--;
+		for (int i = 0; i < Math.max(scissorsCount, 1); i++) {
+			// clip rectangle of the whole camera
+			clip[0] = 1;
+			clip[1] = 1;
+			clip[2] = camera.getWidth();
+			clip[3] = camera.getHeight();
+			if (clipScissor(clip, camera, i)) {
+				draw(command, clip, lines, camera);
+			}
+		}
+	}
+	
+	// clips the given rectangle against the scissor rectangle at the given index and returns if anything is left
+	private boolean clipScissor(int[] clip, Camera camera, int index) {
+		if (scissorsCount > 0) {
+			int cx = camera.getLocationX();
+			int cy = camera.getLocationY();
+			int i = index * 4;
+			clip[0] = Math.max(clip[0], scissors[i] - cx);
+			clip[1] = Math.max(clip[1], scissors[i + 1] - cy);
+			clip[2] = Math.min(clip[2], scissors[i + 2] - cx);
+			clip[3] = Math.min(clip[3], scissors[i + 3] - cy);
+		}
+		return (clip[0] < clip[2]) && (clip[1] < clip[3]);
+	}
+	
+	private void updateTiles() {
+		int width = renderBuffer.getWidth();
+		int height = renderBuffer.getHeight();
+		if ((width == tilesWidth) && (height == tilesHeight) && (tileSize == tilesSize)) {
+			return;
+		}
+		tilesWidth = width;
+		tilesHeight = height;
+		tilesSize = tileSize;
+		tilesX = (width + tileSize - 1) / tileSize;
+		tilesY = (height + tileSize - 1) / tileSize;
+		tiles = new int[tilesX * tilesY][16];
+		tilesCount = new int[tilesX * tilesY];
+		tilesClip = new int[tilesX * tilesY][4];
+		tilesLines = new int[tilesX * tilesY][RenderUtils.HALFSPACE_LINES];
+	}
+	
+	private int record(int type, Camera camera, Texture texture) {
+		int index = commandsCount++;
+		if (index >= cameras.length) {
+			cameras = Arrays.copyOf(cameras, cameras.length * 2);
+			textures = Arrays.copyOf(textures, textures.length * 2);
+			commands = Arrays.copyOf(commands, commands.length * 2);
+		}
+		cameras[index] = camera;
+		textures[index] = texture;
+		int command = index * COMMAND_SIZE;
+		commands[command] = type;
+		return command;
+	}
+	
+	private void recordFace(int command, int x1, int y1, int z1, int vc1, int x2, int y2, int z2, int vc2,
+			int x3, int y3, int z3, int vc3) {
+		commands[command + 1] = x1;
+		commands[command + 2] = y1;
+		commands[command + 3] = z1;
+		commands[command + 4] = vc1;
+		commands[command + 5] = x2;
+		commands[command + 6] = y2;
+		commands[command + 7] = z2;
+		commands[command + 8] = vc2;
+		commands[command + 9] = x3;
+		commands[command + 10] = y3;
+		commands[command + 11] = z3;
+		commands[command + 12] = vc3;
+	}
+	
+	private void binFace(int command, Camera camera) {
+		int x1 = commands[command + 1], y1 = commands[command + 2];
+		int x2 = commands[command + 5], y2 = commands[command + 6];
+		int x3 = commands[command + 9], y3 = commands[command + 10];
+		// 1 pixel tolerance as the edges are interpolated in fixed point
+		int minX = Math.min(x1, Math.min(x2, x3)) - 1;
+		int minY = Math.min(y1, Math.min(y2, y3)) - 1;
+		int maxX = Math.max(x1, Math.max(x2, x3)) + 1;
+		int maxY = Math.max(y1, Math.max(y2, y3)) + 1;
+		bin(command, Math.max(minX, 1), Math.max(minY, 1), maxX, maxY, camera);
+	}
+	
+	// adds the command to all tiles touched by the given bounding box (in camera space, inclusive) 
+	// inside the scissor rectangles, or draws it immediately if the tiles aren't used
+	private void bin(int command, int minX, int minY, int maxX, int maxY, Camera camera) {
+		if (!isParallel()) {
+			drawNow(command, camera);
+			return;
+		}
+		int cx = camera.getLocationX();
+		int cy = camera.getLocationY();
+		// clip bounding box against camera and render buffer
+		minX = Math.max(Math.max(minX, 0) + cx, 0);
+		minY = Math.max(Math.max(minY, 0) + cy, 0);
+		maxX = Math.min(Math.min(maxX, camera.getWidth() - 1) + cx, tilesWidth - 1);
+		maxY = Math.min(Math.min(maxY, camera.getHeight() - 1) + cy, tilesHeight - 1);
+		for (int i = 0; i < Math.max(scissorsCount, 1); i++) {
+			int rectMinX = minX, rectMinY = minY, rectMaxX = maxX, rectMaxY = maxY;
+			if (scissorsCount > 0) {
+				rectMinX = Math.max(minX, scissors[i * 4]);
+				rectMinY = Math.max(minY, scissors[i * 4 + 1]);
+				rectMaxX = Math.min(maxX, scissors[i * 4 + 2] - 1);
+				rectMaxY = Math.min(maxY, scissors[i * 4 + 3] - 1);
+			}
+			if ((rectMinX > rectMaxX) || (rectMinY > rectMaxY)) {
+				continue;
+			}
+			int tileMaxX = rectMaxX / tilesSize;
+			int tileMaxY = rectMaxY / tilesSize;
+			for (int ty = rectMinY / tilesSize; ty <= tileMaxY; ty++) {
+				for (int tx = rectMinX / tilesSize; tx <= tileMaxX; tx++) {
+					addToTile(tx + (ty * tilesX), command);
+				}
+			}
+		}
+	}
+	
+	private void addToTile(int tile, int command) {
+		int count = tilesCount[tile];
+		// a command inside more than one scissor rectangle of the tile is added once
+		if ((count > 0) && (tiles[tile][count - 1] == command)) {
+			return;
+		}
+		if (count >= tiles[tile].length) {
+			tiles[tile] = Arrays.copyOf(tiles[tile], count * 2);
+		}
+		tiles[tile][count] = command;
+		tilesCount[tile] = count + 1;
+	}
+	
+	private void drawTile(int tile, int[] clip, int[] lines) {
+		int minX = (tile % tilesX) * tilesSize;
+		int minY = (tile / tilesX) * tilesSize;
+		int maxX = Math.min(minX + tilesSize, tilesWidth);
+		int maxY = Math.min(minY + tilesSize, tilesHeight);
+		int[] tileCommands = tiles[tile];
+		int count = tilesCount[tile];
+		for (int i = 0; i < count; i++) {
+			int command = tileCommands[i];
+			Camera camera = cameras[command / COMMAND_SIZE];
+			int cx = camera.getLocationX();
+			int cy = camera.getLocationY();
+			if (commands[command] == DRAW_CLEAR_DEPTH) {
+				// the whole viewport is cleared, not only the pixels that can be drawn
+				int x = Math.max(minX, cx);
+				int y = Math.max(minY, cy);
+				int width = Math.min(maxX, cx + camera.getWidth()) - x;
+				int height = Math.min(maxY, cy + camera.getHeight()) - y;
+				renderBuffer.clearDepthBuffer(x, y, width, height);
+				continue;
+			}
+			for (int j = 0; j < Math.max(scissorsCount, 1); j++) {
+				// clip rectangle of the tile in camera space
+				clip[0] = Math.max(minX - cx, 1);
+				clip[1] = Math.max(minY - cy, 1);
+				clip[2] = Math.min(maxX - cx, camera.getWidth());
+				clip[3] = Math.min(maxY - cy, camera.getHeight());
+				if (clipScissor(clip, camera, j)) {
+					draw(command, clip, lines, camera);
+				}
+			}
+		}
+	}
+	
+	// draws the recorded command inside the given clip rectangle
+	private void draw(int command, int[] clip, int[] lines, Camera camera) {
+		int[] c = commands;
+		int j = command;
+		switch (c[j]) {
+		case DRAW_PIXEL:
+			RenderUtils.setPixel(c[j + 1], c[j + 2], c[j + 3], c[j + 4], clip, camera, renderBuffer);
+			break;
+			
+		case DRAW_LINE:
+			RenderUtils.drawLine(c[j + 1], c[j + 2], c[j + 3], c[j + 4], c[j + 5], c[j + 6], c[j + 7], clip, camera, renderBuffer);
+			break;
+			
+		case DRAW_FACE_GOURAUD:
+			RenderUtils.drawFaceGouraud(c[j + 1], c[j + 2], c[j + 3], c[j + 4],
+										c[j + 5], c[j + 6], c[j + 7], c[j + 8],
+										c[j + 9], c[j + 10], c[j + 11], c[j + 12],
+										c[j + 13], clip, camera, renderBuffer);
+			break;
+			
+		case DRAW_FACE_AFFINE:
+			RenderUtils.drawFaceAffine(c[j + 1], c[j + 2], c[j + 3], c[j + 4], c[j + 13], c[j + 14],
+										c[j + 5], c[j + 6], c[j + 7], c[j + 8], c[j + 15], c[j + 16],
+										c[j + 9], c[j + 10], c[j + 11], c[j + 12], c[j + 17], c[j + 18],
+										textures[command / COMMAND_SIZE], clip, camera, renderBuffer);
+			break;
+			
+		case DRAW_FACE_GOURAUD_HALFSPACE:
+			RenderUtils.drawFaceGouraudHalfSpace(c[j + 1], c[j + 2], c[j + 3], c[j + 4],
+										c[j + 5], c[j + 6], c[j + 7], c[j + 8],
+										c[j + 9], c[j + 10], c[j + 11], c[j + 12],
+										c[j + 13], clip, lines, camera, renderBuffer);
+			break;
+			
+		case DRAW_FACE_AFFINE_HALFSPACE:
+			RenderUtils.drawFaceAffineHalfSpace(c[j + 1], c[j + 2], c[j + 3], c[j + 4], c[j + 13], c[j + 14],
+										c[j + 5], c[j + 6], c[j + 7], c[j + 8], c[j + 15], c[j + 16],
+										c[j + 9], c[j + 10], c[j + 11], c[j + 12], c[j + 17], c[j + 18],
+										textures[command / COMMAND_SIZE], clip, lines, camera, renderBuffer);
+			break;
+			
+		case DRAW_FACE_PERSPECTIVE:
+			RenderUtils.drawFacePerspective(c[j + 1], c[j + 2], c[j + 3], c[j + 4], c[j + 13], c[j + 14],
+										c[j + 5], c[j + 6], c[j + 7], c[j + 8], c[j + 15], c[j + 16],
+										c[j + 9], c[j + 10], c[j + 11], c[j + 12], c[j + 17], c[j + 18],
+										textures[command / COMMAND_SIZE], c[j + 19], clip, camera, renderBuffer);
+			break;
+			
+		case DRAW_FACE_DEFERRED:
+			RenderUtils.drawFaceDeferred(c[j + 1], c[j + 2], c[j + 3], c[j + 4], c[j + 13], c[j + 14],
+										c[j + 5], c[j + 6], c[j + 7], c[j + 8], c[j + 15], c[j + 16],
+										c[j + 9], c[j + 10], c[j + 11], c[j + 12], c[j + 17], c[j + 18],
+										textures[command / COMMAND_SIZE], c[j + 19], clip, camera, renderBuffer);
+			break;
+			
+		case DRAW_DEFERRED_LIGHTS:
+			Shader.shadeDeferred(lights, clip, camera, renderBuffer);
+			break;
+		}
+	}
+	
+	/**
+	 * Returns the size in pixels of the screen tiles used by this Rasterizer.
+	 * 
+	 * @return size in pixels of the screen tiles used by this Rasterizer.
+	 */
+	public int getTileSize() {
+		return tileSize;
+	}
+	
+	/**
+	 * Sets the size in pixels of the screen tiles used by this Rasterizer.
+	 * The new size is used the next time {@link #begin(RenderBuffer)} is called.
+	 * 
+	 * @param tileSize size in pixels of the screen tiles.
+	 */
+	public void setTileSize(int tileSize) {
+		this.tileSize = Math.max(tileSize, 1);
+	}
+	
+	/**
+	 * Returns the algorithm used to fill the faces. 
+	 * {@link Shader#RASTERIZE_SCANLINE} or {@link Shader#RASTERIZE_HALFSPACE}.
+	 * 
+	 * @return algorithm used to fill the faces.
+	 */
+	public int getRasterizationType() {
+		return rasterizationType;
+	}
+	
+	/**
+	 * Sets the algorithm used to fill the faces drawn after this call. 
+	 * {@link Shader#RASTERIZE_SCANLINE} or {@link Shader#RASTERIZE_HALFSPACE}.
+	 * 
+	 * @param rasterizationType algorithm used to fill the faces.
+	 */
+	public void setRasterizationType(int rasterizationType) {
+		this.rasterizationType = rasterizationType;
+	}
+	
+	/**
+	 * Returns the {@link TaskRunner} used by this Rasterizer.
+	 * 
+	 * @return {@link TaskRunner} used by this Rasterizer.
+	 */
+	public TaskRunner getTaskRunner() {
+		return taskRunner;
+	}
+	
+	private class TileTask implements TaskRunner.Task {
+		
+		@Override
+		public void run(int index) {
+			if (tilesCount[index] > 0) {
+				drawTile(index, tilesClip[index], tilesLines[index]);
+			}
+		}
+	}
+}
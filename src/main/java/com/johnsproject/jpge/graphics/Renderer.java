@@ -23,21 +23,144 @@
  */
 package com.johnsproject.jpge.graphics;
 
+import java.util.Arrays;
+import java.util.List;
+
+import com.johnsproject.jpge.TaskRunner;
 import com.johnsproject.jpge.dto.Camera;
 import com.johnsproject.jpge.dto.RenderBuffer;
 import com.johnsproject.jpge.dto.Face;
+import com.johnsproject.jpge.dto.Light;
+import com.johnsproject.jpge.dto.Material;
+import com.johnsproject.jpge.dto.Mesh;
 import com.johnsproject.jpge.dto.Scene;
 import com.johnsproject.jpge.dto.SceneObject;
+import com.johnsproject.jpge.dto.SceneState;
+import com.johnsproject.jpge.dto.Texture;
+import com.johnsproject.jpge.dto.Transform;
+import com.johnsproject.jpge.dto.VertexBuffer;
+import com.johnsproject.jpge.utils.RenderUtils;
+import com.johnsproject.jpge.utils.SortUtils;
+import com.johnsproject.jpge.utils.Vector3MathUtils;
+import com.johnsproject.jpge.utils.VectorUtils;
 
 /**
  * The Renderer class renders the {@link Scene} assigned to the {@link SceneWindow}.
  * It takes the {@link SceneObject SceneObjects} in the view of all {@link Camera Cameras} in the {@link Scene}, 
  * transforms, projects and draws them.
+ * <br>
+ * Rendering happens in two stages. First the vertexes of all visible meshes are shaded 
+ * in parallel, split into ranges, into a {@link VertexBuffer} for each camera and object. 
+ * Then the faces are drawn, {@link Camera Cameras} whose viewports don't overlap are drawn 
+ * at the same time, each one with its own {@link Rasterizer}.
+ * <br>
+ * The {@link SceneObject SceneObjects} can be drawn from front to back, so that more pixels 
+ * of the objects behind are rejected by the depth test before they are shaded.
+ * <br>
+ * Only what changed is drawn again. The Renderer remembers the rectangle each object covered 
+ * on each camera, the rectangles of changed, added and removed objects before and after the change 
+ * are added to a few damaged rectangles, rectangles that overlap or are near each other are joined. 
+ * Only these rectangles are cleared and drawn again with all objects that overlap them. 
+ * If a {@link Camera} or the size of the {@link RenderBuffer} changed its whole viewport is damaged.
+ * The damage of each frame is kept for a few frames, so a {@link RenderBuffer} drawn some frames ago, 
+ * like the back buffers of a swap chain, only draws again what was damaged since then.
+ * Changes are found by comparing the {@link Transform transforms} of the {@link SceneState}, the meshes, 
+ * the colors and textures of their materials and the settings of the shaders, cameras and lights 
+ * with their values of the last frame. Changes that can't be compared, like vertexes or texture pixels 
+ * changed in place, are drawn after calling changed(true) on the {@link SceneObject} or {@link Camera}, 
+ * or after {@link #invalidate()} that draws everything again.
  *
  * @author John´s Project - John Salomon
  */
 public class Renderer {
 	
+	private static final int CLEAR_ROWS = 32;
+	private static final int VERTEX_RANGE = 1024;
+	private static final int SHADER_VALUES = 5;
+	private static final int LIGHT_VALUES = 9;
+	private static final int CAMERA_VALUES = 7;
+	// frames the damage is kept for and render buffers whose last frame is known
+	private static final int DAMAGE_HISTORY = 8;
+	// damaged rectangles kept apart, and the gap in pixels under which rectangles are joined
+	private static final int DAMAGE_RECTANGLES = 4;
+	private static final int DAMAGE_GAP = 16;
+	private static final int RENDER_BUFFERS = 4;
+	
+	private final TaskRunner taskRunner;
+	private final CameraTask cameraTask = new CameraTask();
+	private final ClearTask clearTask = new ClearTask();
+	private final VertexTask vertexTask = new VertexTask();
+	private SceneState sceneState = new SceneState();
+	private Rasterizer[] rasterizers = new Rasterizer[0];
+	private VertexBuffer[][] vertexBuffers = new VertexBuffer[0][0];
+	private boolean[][] visible = new boolean[0][0];
+	private int[][] drawOrders = new int[0][0];
+	private int[] drawCounts = new int[0];
+	private boolean deferred = false;
+	private int[] depthKeys = new int[0];
+	private int[] tempKeys = new int[0];
+	private int[] tempOrder = new int[0];
+	private final int[] sortCounts = new int[SortUtils.RADIX_SORT_COUNTS];
+	private final int[] depthVector = new int[3];
+	private int[] cameraFaces = new int[0];
+	private int sceneObjectsCapacity = 0;
+	private int[] vertexRanges = new int[0];
+	private int vertexRangesCount = 0;
+	private int tileSize = 32;
+	private long lastVertexTime = 0;
+	private boolean frontToBack = false;
+	// rectangles in render buffer space are {minX, minY, maxX, maxY}, max values are exclusive
+	private final int[] damage = new int[DAMAGE_RECTANGLES * 4];
+	private int damageCount = 0;
+	private final int[] frameDamages = new int[DAMAGE_HISTORY * DAMAGE_RECTANGLES * 4];
+	private final int[] frameDamageCounts = new int[DAMAGE_HISTORY];
+	// first row band cleared by the clear task in each damaged rectangle
+	private final int[] clearBands = new int[DAMAGE_RECTANGLES + 1];
+	private int frame = 0;
+	private final RenderBuffer[] renderBuffers = new RenderBuffer[RENDER_BUFFERS];
+	// the frame and the size of each render buffer when it was last drawn
+	private final int[] renderBufferFrames = new int[RENDER_BUFFERS];
+	private final int[] renderBufferSizes = new int[RENDER_BUFFERS * 2];
+	private boolean[] redraw = new boolean[0];
+	private boolean[][] drawn = new boolean[0][0];
+	private int[][] bounds = new int[0][0];
+	private SceneObject[] lastSceneObjects = new SceneObject[0];
+	private Camera[] lastCameras = new Camera[0];
+	private int[] lastViewports = new int[0];
+	// the values of the last frame that are compared to find the changes
+	private boolean[] changed = new boolean[0];
+	private Transform[] lastTransforms = new Transform[0];
+	private Mesh[] lastMeshes = new Mesh[0];
+	private int[][] lastColors = new int[0][0];
+	private Texture[][] lastTextures = new Texture[0][0];
+	private int[] lastChanges = new int[0];
+	private int[] lastCameraChanges = new int[0];
+	private Transform[] lastCameraTransforms = new Transform[0];
+	private int[] lastCameraValues = new int[0];
+	private int[] lastShaders = new int[0];
+	private int[] lastLights = new int[0];
+	private int lastLightsCount = -1;
+	private int lastWidth = 0;
+	private int lastHeight = 0;
+	private volatile boolean invalidated = false;
+	private boolean damageTracking = true;
+	
+	/**
+	 * Creates a new Renderer that uses as many threads as there are processors.
+	 */
+	public Renderer() {
+		this(new TaskRunner());
+	}
+	
+	/**
+	 * Creates a new Renderer that uses the threads of the given {@link TaskRunner}.
+	 * 
+	 * @param taskRunner {@link TaskRunner} to use.
+	 */
+	public Renderer(TaskRunner taskRunner) {
+		this.taskRunner = taskRunner;
+	}
+	
 	/**
 	 * Tells this scene renderer to render the given {@link Scene}.
 	 * 
@@ -47,26 +170,717 @@ public class Renderer {
 	 * @return rendered {@link Face faces}. (faces that are not culled)
 	 */
 	public int render(Scene scene, RenderBuffer renderBuffer) {
+		sceneState.update(scene);
+		return render(scene, sceneState, renderBuffer);
+	}
+	
+	/**
+	 * Tells this scene renderer to render the given {@link Scene} using the 
+	 * {@link Transform transforms} of the given {@link SceneState}.
+	 * 
+	 * @param scene {@link Scene} to render.
+	 * @param sceneState {@link SceneState} containing the transforms to use.
+	 * @param renderBuffer {@link RenderBuffer} to use.
+	 * 
+	 * @return rendered {@link Face faces}. (faces that are not culled)
+	 */
+	public int render(Scene scene, SceneState sceneState, RenderBuffer renderBuffer) {
+		int camerasCount = sceneState.getCamerasCount();
+		int sceneObjectsCount = sceneState.getSceneObjectsCount();
+		if ((rasterizers.length < camerasCount) || (sceneObjectsCapacity < sceneObjectsCount)) {
+			grow(Math.max(camerasCount, rasterizers.length), Math.max(sceneObjectsCount, sceneObjectsCapacity));
+		}
+		frame++;
+		// everything is drawn again if the size of the render buffer changed
+		boolean redrawAll = (renderBuffer.getWidth() != lastWidth) || (renderBuffer.getHeight() != lastHeight);
+		redrawAll |= lightsChanged(scene.getLights()) | invalidated | !damageTracking;
+		invalidated = false;
+		lastWidth = renderBuffer.getWidth();
+		lastHeight = renderBuffer.getHeight();
+		// shade the vertexes of all changed meshes
+		long before = System.nanoTime();
+		prepareVertexRanges(sceneState, redrawAll);
+		vertexTask.scene = scene;
+		vertexTask.sceneState = sceneState;
+		taskRunner.run(vertexTask, vertexRangesCount);
+		lastVertexTime = System.nanoTime() - before;
+		updateDamage(sceneState, renderBuffer, redrawAll);
+		if (deferred) {
+			renderBuffer.createGBuffer();
+		}
+		if (damageCount > 0) {
+			for (int i = 0; i < damageCount; i++) {
+				clearBands[i + 1] = clearBands[i] + (damage[i * 4 + 3] - damage[i * 4 + 1] + CLEAR_ROWS - 1) / CLEAR_ROWS;
+			}
+			clearTask.renderBuffer = renderBuffer;
+			taskRunner.run(clearTask, clearBands[damageCount]);
+		}
+		// draw the faces
+		cameraTask.scene = scene;
+		cameraTask.sceneState = sceneState;
+		cameraTask.renderBuffer = renderBuffer;
+		// a new depth generation clears the depth for the first cameras without writing the pixels
+		renderBuffer.clearDepthBuffer();
+		int start = 0;
+		while (start < camerasCount) {
+			// cameras that don't overlap the cameras before them in the group are rendered at the same time
+			int end = start + 1;
+			while ((end < camerasCount) && !overlaps(sceneState, start, end)) {
+				end++;
+			}
+			cameraTask.start = start;
+			cameraTask.clearDepth = start > 0;
+			taskRunner.run(cameraTask, end - start);
+			start = end;
+		}
 		int rendFaces = 0;
-		renderBuffer.clearFrameBuffer();
-		for (int i = 0; i < scene.getCameras().size(); i++) {
-			renderBuffer.clearDepthBuffer();
-			Camera camera = scene.getCameras().get(i);
-			for (int j = 0; j < scene.getSceneObjects().size(); j++) {
-				SceneObject sceneObject = scene.getSceneObjects().get(j);
-				// check if object is active or has changed (no need to render if its the same)
-				if (sceneObject.isActive() && (sceneObject.changed() || camera.changed())) {
-					rendFaces += sceneObject.getShader().shade(
-							sceneObject.getMesh(), sceneObject.getTransform(), camera, renderBuffer, scene.getLights()
-							);
+		for (int i = 0; i < camerasCount; i++) {
+			rendFaces += cameraFaces[i];
+		}
+		return rendFaces;
+	}
+	
+	// splits the vertexes of the changed meshes seen by each camera into ranges that can be shaded in parallel
+	private void prepareVertexRanges(SceneState sceneState, boolean redrawAll) {
+		vertexRangesCount = 0;
+		for (int j = 0; j < sceneState.getSceneObjectsCount(); j++) {
+			SceneObject sceneObject = sceneState.getSceneObject(j);
+			Mesh mesh = sceneObject.getMesh();
+			changed[j] = (lastSceneObjects[j] != sceneObject) | (lastMeshes[j] != mesh)
+						| (lastChanges[j] != sceneObject.getChanges())
+						| transformChanged(sceneState.getTransform(j), lastTransforms[j])
+						| shaderChanged(sceneObject.getShader(), j * SHADER_VALUES)
+						| materialsChanged(mesh.getMaterials(), j);
+			lastMeshes[j] = mesh;
+			lastChanges[j] = sceneObject.getChanges();
+		}
+		for (int i = 0; i < sceneState.getCamerasCount(); i++) {
+			Camera camera = sceneState.getCamera(i);
+			redraw[i] = redrawAll | (lastCameras[i] != camera)
+						| transformChanged(sceneState.getCameraTransform(i), lastCameraTransforms[i])
+						| (lastCameraChanges[i] != camera.getChanges())
+						| cameraChanged(camera, i * CAMERA_VALUES);
+			lastCameraChanges[i] = camera.getChanges();
+			drawCounts[i] = 0;
+			for (int j = 0; j < sceneState.getSceneObjectsCount(); j++) {
+				SceneObject sceneObject = sceneState.getSceneObject(j);
+				visible[i][j] = false;
+				if (!sceneObject.isActive())
+					continue;
+				// the vertexes of objects that didn't change are still in the vertex buffer
+				visible[i][j] = redraw[i] || changed[j] || !drawn[i][j];
+				if (visible[i][j]) {
+					int vertexes = sceneObject.getMesh().getVertexes().length;
+					vertexBuffers[i][j].setSize(vertexes);
+					for (int start = 0; start < vertexes; start += VERTEX_RANGE) {
+						addVertexRange(i, j, start, Math.min(start + VERTEX_RANGE, vertexes));
+					}
+				}
+				if (frontToBack) {
+					depthKeys[drawCounts[i]] = getDepth(sceneState.getTransform(j), sceneState.getCameraTransform(i));
 				}
+				drawOrders[i][drawCounts[i]++] = j;
+			}
+			if (frontToBack) {
+				SortUtils.radixSort(depthKeys, drawOrders[i], drawCounts[i], tempKeys, tempOrder, sortCounts);
+			}
+		}
+	}
+	
+	// adds the rectangles of the objects that changed since the last frame to the damaged rectangles
+	private void updateDamage(SceneState sceneState, RenderBuffer renderBuffer, boolean redrawAll) {
+		clearDamage();
+		deferred = false;
+		if (redrawAll) {
+			addDamage(0, 0, renderBuffer.getWidth(), renderBuffer.getHeight());
+		}
+		int camerasCount = sceneState.getCamerasCount();
+		int sceneObjectsCount = sceneState.getSceneObjectsCount();
+		for (int i = 0; i < lastCameras.length; i++) {
+			// the viewports of moved and removed cameras are damaged where they were before too
+			if ((lastCameras[i] != null) && ((i >= camerasCount) || redraw[i])) {
+				addDamage(lastViewports[i * 4], lastViewports[i * 4 + 1], lastViewports[i * 4 + 2], lastViewports[i * 4 + 3]);
+			}
+			if (i >= camerasCount) {
+				lastCameras[i] = null;
+				Arrays.fill(drawn[i], false);
+				continue;
+			}
+			Camera camera = sceneState.getCamera(i);
+			int[] viewport = getViewport(camera, renderBuffer, lastViewports, i * 4);
+			if (redraw[i]) {
+				addDamage(viewport[i * 4], viewport[i * 4 + 1], viewport[i * 4 + 2], viewport[i * 4 + 3]);
+			}
+			lastCameras[i] = camera;
+			int[] cameraBounds = bounds[i];
+			for (int j = 0; j < sceneObjectsCapacity; j++) {
+				SceneObject sceneObject = j < sceneObjectsCount ? sceneState.getSceneObject(j) : null;
+				int k = j * 4;
+				boolean active = (sceneObject != null) && sceneObject.isActive();
+				if (active && visible[i][j]) {
+					// the object is damaged where it was and where it is now
+					if (drawn[i][j]) {
+						addDamage(cameraBounds[k], cameraBounds[k + 1], cameraBounds[k + 2], cameraBounds[k + 3]);
+					}
+					updateBounds(vertexBuffers[i][j], camera, viewport, i * 4, cameraBounds, k);
+					addDamage(cameraBounds[k], cameraBounds[k + 1], cameraBounds[k + 2], cameraBounds[k + 3]);
+					drawn[i][j] = true;
+				} else if (!active && drawn[i][j]) {
+					addDamage(cameraBounds[k], cameraBounds[k + 1], cameraBounds[k + 2], cameraBounds[k + 3]);
+					drawn[i][j] = false;
+				}
+				if (active) {
+					deferred |= sceneObject.getShader().getShadingType() == Shader.SHADE_DEFERRED;
+				}
+			}
+		}
+		for (int j = 0; j < sceneObjectsCapacity; j++) {
+			lastSceneObjects[j] = j < sceneObjectsCount ? sceneState.getSceneObject(j) : null;
+		}
+		clipDamage(renderBuffer);
+		System.arraycopy(damage, 0, frameDamages, (frame % DAMAGE_HISTORY) * DAMAGE_RECTANGLES * 4, damageCount * 4);
+		frameDamageCounts[frame % DAMAGE_HISTORY] = damageCount;
+		addRenderBufferDamage(renderBuffer);
+		clipDamage(renderBuffer);
+	}
+	
+	// adds the damage of the frames since the given render buffer was last drawn, 
+	// all of it is damaged if it wasn't drawn in the last frames or was resized since then
+	private void addRenderBufferDamage(RenderBuffer renderBuffer) {
+		int index = -1;
+		int oldest = 0;
+		for (int i = 0; i < RENDER_BUFFERS; i++) {
+			if (renderBuffers[i] == renderBuffer) {
+				index = i;
+			}
+			if (renderBufferFrames[i] < renderBufferFrames[oldest]) {
+				oldest = i;
+			}
+		}
+		if ((index < 0) || (frame - renderBufferFrames[index] > DAMAGE_HISTORY)
+				|| (renderBufferSizes[index * 2] != renderBuffer.getWidth())
+				|| (renderBufferSizes[index * 2 + 1] != renderBuffer.getHeight())) {
+			addDamage(0, 0, renderBuffer.getWidth(), renderBuffer.getHeight());
+		} else {
+			for (int i = renderBufferFrames[index] + 1; i < frame; i++) {
+				for (int j = 0; j < frameDamageCounts[i % DAMAGE_HISTORY]; j++) {
+					int k = ((i % DAMAGE_HISTORY) * DAMAGE_RECTANGLES + j) * 4;
+					addDamage(frameDamages[k], frameDamages[k + 1], frameDamages[k + 2], frameDamages[k + 3]);
+				}
+			}
+		}
+		if (index < 0) {
+			index = oldest;
+			renderBuffers[index] = renderBuffer;
+		}
+		renderBufferFrames[index] = frame;
+		renderBufferSizes[index * 2] = renderBuffer.getWidth();
+		renderBufferSizes[index * 2 + 1] = renderBuffer.getHeight();
+	}
+	
+	// clips the damaged rectangles against the render buffer, rectangles outside of it are removed
+	private void clipDamage(RenderBuffer renderBuffer) {
+		for (int i = damageCount - 1; i >= 0; i--) {
+			int k = i * 4;
+			damage[k] = Math.max(damage[k], 0);
+			damage[k + 1] = Math.max(damage[k + 1], 0);
+			damage[k + 2] = Math.min(damage[k + 2], renderBuffer.getWidth());
+			damage[k + 3] = Math.min(damage[k + 3], renderBuffer.getHeight());
+			if ((damage[k] >= damage[k + 2]) || (damage[k + 1] >= damage[k + 3])) {
+				removeDamage(i);
+			}
+		}
+	}
+	
+	// the transforms of the scene state are compared instead of the changed flags of the objects, 
+	// as the flags are set by the physics thread while the renderer draws an older scene state
+	private boolean transformChanged(Transform transform, Transform lastTransform) {
+		if (transform.equals(lastTransform))
+			return false;
+		lastTransform.copy(transform);
+		return true;
+	}
+	
+	private boolean cameraChanged(Camera camera, int index) {
+		boolean changed = (lastCameraValues[index] != camera.getLocationX())
+						| (lastCameraValues[index + 1] != camera.getLocationY())
+						| (lastCameraValues[index + 2] != camera.getWidth())
+						| (lastCameraValues[index + 3] != camera.getHeight())
+						| (lastCameraValues[index + 4] != camera.getFieldOfView())
+						| (lastCameraValues[index + 5] != camera.getNearClippingPlane())
+						| (lastCameraValues[index + 6] != camera.getFarClippingPlane());
+		lastCameraValues[index] = camera.getLocationX();
+		lastCameraValues[index + 1] = camera.getLocationY();
+		lastCameraValues[index + 2] = camera.getWidth();
+		lastCameraValues[index + 3] = camera.getHeight();
+		lastCameraValues[index + 4] = camera.getFieldOfView();
+		lastCameraValues[index + 5] = camera.getNearClippingPlane();
+		lastCameraValues[index + 6] = camera.getFarClippingPlane();
+		return changed;
+	}
+	
+	private boolean shaderChanged(Shader shader, int index) {
+		boolean changed = (lastShaders[index] != shader.getProjectionType())
+						| (lastShaders[index + 1] != shader.getShadingType())
+						| (lastShaders[index + 2] != shader.getDrawingType())
+						| (lastShaders[index + 3] != shader.getRasterizationType())
+						| (lastShaders[index + 4] != shader.getPerspectiveSubdivision());
+		lastShaders[index] = shader.getProjectionType();
+		lastShaders[index + 1] = shader.getShadingType();
+		lastShaders[index + 2] = shader.getDrawingType();
+		lastShaders[index + 3] = shader.getRasterizationType();
+		lastShaders[index + 4] = shader.getPerspectiveSubdivision();
+		return changed;
+	}
+	
+	// the materials can be changed without changing the mesh, so their colors and textures are compared too
+	private boolean materialsChanged(Material[] materials, int index) {
+		boolean changed = false;
+		if (lastColors[index].length != materials.length) {
+			lastColors[index] = new int[materials.length];
+			lastTextures[index] = new Texture[materials.length];
+			changed = true;
+		}
+		int[] colors = lastColors[index];
+		Texture[] textures = lastTextures[index];
+		for (int i = 0; i < materials.length; i++) {
+			changed |= (colors[i] != materials[i].getColor()) | (textures[i] != materials[i].getTexture());
+			colors[i] = materials[i].getColor();
+			textures[i] = materials[i].getTexture();
+		}
+		return changed;
+	}
+	
+	// the lights shade every object, so any change to them redraws everything
+	private boolean lightsChanged(List<Light> lights) {
+		boolean changed = lights.size() != lastLightsCount;
+		if (lastLights.length < lights.size() * LIGHT_VALUES) {
+			lastLights = new int[lights.size() * LIGHT_VALUES];
+			changed = true;
+		}
+		for (int i = 0; i < lights.size(); i++) {
+			Light light = lights.get(i);
+			int[] location = light.getTransform().getLocation();
+			int[] rotation = light.getTransform().getRotation();
+			int k = i * LIGHT_VALUES;
+			changed |= (lastLights[k] != location[0]) | (lastLights[k + 1] != location[1])
+					| (lastLights[k + 2] != location[2]) | (lastLights[k + 3] != rotation[0])
+					| (lastLights[k + 4] != rotation[1]) | (lastLights[k + 5] != rotation[2])
+					| (lastLights[k + 6] != light.getType()) | (lastLights[k + 7] != light.getStrength())
+					| (lastLights[k + 8] != light.getColor());
+			lastLights[k] = location[0];
+			lastLights[k + 1] = location[1];
+			lastLights[k + 2] = location[2];
+			lastLights[k + 3] = rotation[0];
+			lastLights[k + 4] = rotation[1];
+			lastLights[k + 5] = rotation[2];
+			lastLights[k + 6] = light.getType();
+			lastLights[k + 7] = light.getStrength();
+			lastLights[k + 8] = light.getColor();
+		}
+		lastLightsCount = lights.size();
+		return changed;
+	}
+	
+	private void clearDamage() {
+		damageCount = 0;
+	}
+	
+	// adds the rectangle to the damaged rectangles, the damaged rectangles that overlap or are near it 
+	// are joined with it, so they never overlap and no pixel is drawn twice
+	private void addDamage(int minX, int minY, int maxX, int maxY) {
+		if ((minX >= maxX) || (minY >= maxY))
+			return;
+		int i = 0;
+		while (i < damageCount) {
+			int k = i * 4;
+			if ((minX <= damage[k + 2] + DAMAGE_GAP) && (damage[k] <= maxX + DAMAGE_GAP)
+					&& (minY <= damage[k + 3] + DAMAGE_GAP) && (damage[k + 1] <= maxY + DAMAGE_GAP)) {
+				minX = Math.min(minX, damage[k]);
+				minY = Math.min(minY, damage[k + 1]);
+				maxX = Math.max(maxX, damage[k + 2]);
+				maxY = Math.max(maxY, damage[k + 3]);
+				removeDamage(i);
+				// the joined rectangle can reach the rectangles checked before
+				i = 0;
+			} else {
+				i++;
+			}
+		}
+		if (damageCount == DAMAGE_RECTANGLES) {
+			// too many rectangles, it is joined with the one whose area grows the least
+			int joined = 0;
+			long minGrowth = Long.MAX_VALUE;
+			for (i = 0; i < damageCount; i++) {
+				int k = i * 4;
+				long growth = (long) (Math.max(maxX, damage[k + 2]) - Math.min(minX, damage[k]))
+							* (Math.max(maxY, damage[k + 3]) - Math.min(minY, damage[k + 1]))
+							- (long) (damage[k + 2] - damage[k]) * (damage[k + 3] - damage[k + 1]);
+				if (growth < minGrowth) {
+					minGrowth = growth;
+					joined = i;
+				}
+			}
+			int k = joined * 4;
+			minX = Math.min(minX, damage[k]);
+			minY = Math.min(minY, damage[k + 1]);
+			maxX = Math.max(maxX, damage[k + 2]);
+			maxY = Math.max(maxY, damage[k + 3]);
+			removeDamage(joined);
+			// the bigger rectangle can overlap the others now
+			addDamage(minX, minY, maxX, maxY);
+			return;
+		}
+		int k = damageCount * 4;
+		damage[k] = minX;
+		damage[k + 1] = minY;
+		damage[k + 2] = maxX;
+		damage[k + 3] = maxY;
+		damageCount++;
+	}
+	
+	// removes the damaged rectangle at the given index by moving the last one into its place
+	private void removeDamage(int index) {
+		damageCount--;
+		System.arraycopy(damage, damageCount * 4, damage, index * 4, 4);
+	}
+	
+	// writes the viewport of the camera clipped against the render buffer into the given rectangles
+	private int[] getViewport(Camera camera, RenderBuffer renderBuffer, int[] rectangles, int index) {
+		rectangles[index] = Math.max(camera.getLocationX(), 0);
+		rectangles[index + 1] = Math.max(camera.getLocationY(), 0);
+		rectangles[index + 2] = Math.min(camera.getLocationX() + camera.getWidth(), renderBuffer.getWidth());
+		rectangles[index + 3] = Math.min(camera.getLocationY() + camera.getHeight(), renderBuffer.getHeight());
+		return rectangles;
+	}
+	
+	// writes the rectangle that contains the projected vertexes into the given rectangles
+	private void updateBounds(VertexBuffer vertexBuffer, Camera camera, int[] viewport, int viewportIndex,
+			int[] rectangles, int index) {
+		int[] locations = vertexBuffer.getLocations();
+		int[] outcodes = vertexBuffer.getOutcodes();
+		int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+		int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+		if (vertexBuffer.getSize() == 0) {
+			Arrays.fill(rectangles, index, index + 4, 0);
+			return;
+		}
+		for (int i = 0; i < vertexBuffer.getSize(); i++) {
+			int outcode = outcodes[i];
+			// faces of vertexes that need clipping can reach every pixel of the camera
+			if (RenderUtils.needsClipping(outcode, outcode, outcode)) {
+				System.arraycopy(viewport, viewportIndex, rectangles, index, 4);
+				return;
+			}
+			minX = Math.min(minX, locations[i * 3]);
+			minY = Math.min(minY, locations[i * 3 + 1]);
+			maxX = Math.max(maxX, locations[i * 3]);
+			maxY = Math.max(maxY, locations[i * 3 + 1]);
+		}
+		// 1 pixel tolerance as the edges are interpolated in fixed point
+		rectangles[index] = Math.max(minX - 1 + camera.getLocationX(), viewport[viewportIndex]);
+		rectangles[index + 1] = Math.max(minY - 1 + camera.getLocationY(), viewport[viewportIndex + 1]);
+		rectangles[index + 2] = Math.min(maxX + 2 + camera.getLocationX(), viewport[viewportIndex + 2]);
+		rectangles[index + 3] = Math.min(maxY + 2 + camera.getLocationY(), viewport[viewportIndex + 3]);
+	}
+	
+	// depth of the location of the given object transform in the space of the given camera transform
+	private int getDepth(Transform objectTransform, Transform cameraTransform) {
+		int[] vector = VectorUtils.copy3(depthVector, objectTransform.getLocation());
+		vector = Vector3MathUtils.subtract(vector, cameraTransform.getLocation(), vector);
+		vector = Vector3MathUtils.movePointByAnglesXYZ(vector, cameraTransform.getRotation(), vector);
+		return vector[VectorUtils.Z];
+	}
+	
+	private void addVertexRange(int camera, int sceneObject, int start, int end) {
+		int index = vertexRangesCount * 4;
+		if (index >= vertexRanges.length) {
+			vertexRanges = Arrays.copyOf(vertexRanges, Math.max(vertexRanges.length * 2, 64));
+		}
+		vertexRanges[index] = camera;
+		vertexRanges[index + 1] = sceneObject;
+		vertexRanges[index + 2] = start;
+		vertexRanges[index + 3] = end;
+		vertexRangesCount++;
+	}
+	
+	private int renderCamera(Scene scene, SceneState sceneState, RenderBuffer renderBuffer, int index, boolean clearDepth) {
+		int rendFaces = 0;
+		Rasterizer rasterizer = rasterizers[index];
+		Camera camera = sceneState.getCamera(index);
+		int[] viewport = lastViewports;
+		int i = index * 4;
+		// only the damaged parts of the viewport are drawn
+		if (!isDamaged(viewport, i)) {
+			return 0;
+		}
+		rasterizer.begin(renderBuffer);
+		for (int j = 0; j < damageCount; j++) {
+			if (isDamaged(j, viewport, i)) {
+				int k = j * 4;
+				rasterizer.addScissor(damage[k], damage[k + 1], damage[k + 2] - damage[k], damage[k + 3] - damage[k + 1]);
 			}
-			camera.changed(false);
 		}
-		for (int i = 0; i < scene.getSceneObjects().size(); i++) {
-			SceneObject sceneObject = scene.getSceneObjects().get(i);
-			sceneObject.changed(false);
+		if (clearDepth) {
+			// cameras that overlap cameras rendered before them still need to clear their viewport
+			rasterizer.clearDepthBuffer(camera);
+		}
+		if (deferred) {
+			// deferred objects are lit before the other objects are drawn over them
+			rendFaces += renderObjects(scene, sceneState, rasterizer, index, true);
+			rasterizer.drawDeferredLights(scene.getLights(), camera);
+		}
+		rendFaces += renderObjects(scene, sceneState, rasterizer, index, false);
+		rasterizer.end();
+		return rendFaces;
+	}
+	
+	// draws the objects seen by the camera at the given index that are shaded deferred or not
+	private int renderObjects(Scene scene, SceneState sceneState, Rasterizer rasterizer, int index, boolean deferred) {
+		int rendFaces = 0;
+		Camera camera = sceneState.getCamera(index);
+		int[] drawOrder = drawOrders[index];
+		for (int i = 0; i < drawCounts[index]; i++) {
+			int j = drawOrder[i];
+			SceneObject sceneObject = sceneState.getSceneObject(j);
+			Shader shader = sceneObject.getShader();
+			if (((shader.getShadingType() == Shader.SHADE_DEFERRED) == deferred) && isDamaged(bounds[index], j * 4)) {
+				rendFaces += shader.shadeFaces(sceneObject.getMesh(), sceneState.getTransform(j),
+						camera, vertexBuffers[index][j], rasterizer, scene.getLights());
+			}
 		}
 		return rendFaces;
 	}
+	
+	// checks if the rectangle at the given index overlaps any damaged rectangle
+	private boolean isDamaged(int[] rectangles, int index) {
+		for (int i = 0; i < damageCount; i++) {
+			if (isDamaged(i, rectangles, index)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	// checks if the rectangle at the given index overlaps the damaged rectangle at the given damage index
+	private boolean isDamaged(int damageIndex, int[] rectangles, int index) {
+		int k = damageIndex * 4;
+		return (Math.max(damage[k], rectangles[index]) < Math.min(damage[k + 2], rectangles[index + 2]))
+				&& (Math.max(damage[k + 1], rectangles[index + 1]) < Math.min(damage[k + 3], rectangles[index + 3]));
+	}
+	
+	// checks if the camera at the given index overlaps one of the cameras from start to index - 1
+	private boolean overlaps(SceneState sceneState, int start, int index) {
+		Camera camera = sceneState.getCamera(index);
+		for (int i = start; i < index; i++) {
+			Camera other = sceneState.getCamera(i);
+			if ((camera.getLocationX() < other.getLocationX() + other.getWidth())
+					&& (other.getLocationX() < camera.getLocationX() + camera.getWidth())
+					&& (camera.getLocationY() < other.getLocationY() + other.getHeight())
+					&& (other.getLocationY() < camera.getLocationY() + camera.getHeight())) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private void grow(int cameras, int sceneObjects) {
+		Rasterizer[] rasterizers = new Rasterizer[cameras];
+		VertexBuffer[][] vertexBuffers = new VertexBuffer[cameras][sceneObjects];
+		for (int i = 0; i < cameras; i++) {
+			if (i < this.rasterizers.length) {
+				rasterizers[i] = this.rasterizers[i];
+			} else {
+				rasterizers[i] = new Rasterizer(taskRunner);
+				rasterizers[i].setTileSize(tileSize);
+			}
+			for (int j = 0; j < vertexBuffers[i].length; j++) {
+				if ((i < this.vertexBuffers.length) && (j < this.vertexBuffers[i].length)) {
+					vertexBuffers[i][j] = this.vertexBuffers[i][j];
+				} else {
+					vertexBuffers[i][j] = new VertexBuffer();
+				}
+			}
+		}
+		this.rasterizers = rasterizers;
+		this.vertexBuffers = vertexBuffers;
+		this.visible = new boolean[cameras][sceneObjects];
+		// the objects and cameras were rendered into the old arrays, so everything is drawn again
+		this.redraw = new boolean[cameras];
+		this.drawn = new boolean[cameras][sceneObjects];
+		this.bounds = new int[cameras][sceneObjects * 4];
+		this.lastSceneObjects = new SceneObject[sceneObjects];
+		this.lastCameras = new Camera[cameras];
+		this.lastViewports = new int[cameras * 4];
+		this.changed = new boolean[sceneObjects];
+		this.lastTransforms = createTransforms(sceneObjects);
+		this.lastMeshes = new Mesh[sceneObjects];
+		this.lastColors = new int[sceneObjects][0];
+		this.lastTextures = new Texture[sceneObjects][0];
+		this.lastChanges = new int[sceneObjects];
+		this.lastCameraChanges = new int[cameras];
+		this.lastCameraTransforms = createTransforms(cameras);
+		this.lastCameraValues = new int[cameras * CAMERA_VALUES];
+		this.lastShaders = new int[sceneObjects * SHADER_VALUES];
+		this.lastWidth = 0;
+		this.lastHeight = 0;
+		this.drawOrders = new int[cameras][sceneObjects];
+		this.drawCounts = new int[cameras];
+		this.depthKeys = new int[sceneObjects];
+		this.tempKeys = new int[sceneObjects];
+		this.tempOrder = new int[sceneObjects];
+		this.cameraFaces = new int[cameras];
+		this.sceneObjectsCapacity = sceneObjects;
+	}
+	
+	private Transform[] createTransforms(int count) {
+		Transform[] transforms = new Transform[count];
+		for (int i = 0; i < count; i++) {
+			transforms[i] = new Transform();
+		}
+		return transforms;
+	}
+	
+	/**
+	 * Returns the {@link TaskRunner} used by this Renderer.
+	 * 
+	 * @return {@link TaskRunner} used by this Renderer.
+	 */
+	public TaskRunner getTaskRunner() {
+		return taskRunner;
+	}
+	
+	/**
+	 * Returns how long the vertex stage of the last rendered frame took in nanoseconds.
+	 * 
+	 * @return how long the vertex stage of the last rendered frame took in nanoseconds.
+	 */
+	public long getLastVertexTime() {
+		return lastVertexTime;
+	}
+	
+	/**
+	 * Returns the size in pixels of the screen tiles used by the {@link Rasterizer rasterizers} of this Renderer.
+	 * 
+	 * @return size in pixels of the screen tiles.
+	 */
+	public int getTileSize() {
+		return tileSize;
+	}
+	
+	/**
+	 * Sets the size in pixels of the screen tiles used by the {@link Rasterizer rasterizers} of this Renderer.
+	 * 
+	 * @param tileSize size in pixels of the screen tiles.
+	 */
+	public void setTileSize(int tileSize) {
+		this.tileSize = tileSize;
+		for (int i = 0; i < rasterizers.length; i++) {
+			rasterizers[i].setTileSize(tileSize);
+		}
+	}
+	
+	/**
+	 * Returns if this Renderer draws the {@link SceneObject SceneObjects} from front to back.
+	 * 
+	 * @return if this Renderer draws the {@link SceneObject SceneObjects} from front to back.
+	 */
+	public boolean isFrontToBack() {
+		return frontToBack;
+	}
+	
+	/**
+	 * Sets if this Renderer draws the {@link SceneObject SceneObjects} from front to back. 
+	 * The objects are sorted by the depth of their location in the space of each {@link Camera} every frame. 
+	 * Else they are drawn in the order they were added to the {@link Scene}.
+	 * 
+	 * @param frontToBack if this Renderer draws the {@link SceneObject SceneObjects} from front to back.
+	 */
+	public void setFrontToBack(boolean frontToBack) {
+		this.frontToBack = frontToBack;
+	}
+	
+	/**
+	 * Tells this Renderer to draw everything again in the next frame, 
+	 * like after changes to the {@link Scene} it can't find itself.
+	 */
+	public void invalidate() {
+		invalidated = true;
+	}
+	
+	/**
+	 * Returns if this Renderer only draws again what changed since the last frame.
+	 * 
+	 * @return if this Renderer only draws again what changed since the last frame.
+	 */
+	public boolean isDamageTracking() {
+		return damageTracking;
+	}
+	
+	/**
+	 * Sets if this Renderer only draws again what changed since the last frame. 
+	 * Else everything is drawn every frame.
+	 * 
+	 * @param damageTracking if this Renderer only draws again what changed since the last frame.
+	 */
+	public void setDamageTracking(boolean damageTracking) {
+		this.damageTracking = damageTracking;
+	}
+	
+	// index of the object drawn at the given position of the last frame by the camera at the given index
+	int getDrawOrder(int camera, int position) {
+		return drawOrders[camera][position];
+	}
+	
+	// vertexes of the scene object at the given index shaded by the camera at the given index in the last frame
+	VertexBuffer getVertexBuffer(int camera, int sceneObject) {
+		return vertexBuffers[camera][sceneObject];
+	}
+	
+	private class CameraTask implements TaskRunner.Task {
+		
+		private Scene scene;
+		private SceneState sceneState;
+		private RenderBuffer renderBuffer;
+		private int start;
+		private boolean clearDepth;
+		
+		@Override
+		public void run(int index) {
+			cameraFaces[start + index] = renderCamera(scene, sceneState, renderBuffer, start + index, clearDepth);
+		}
+	}
+	
+	private class VertexTask implements TaskRunner.Task {
+		
+		private Scene scene;
+		private SceneState sceneState;
+		
+		@Override
+		public void run(int index) {
+			int i = index * 4;
+			int camera = vertexRanges[i];
+			int sceneObject = vertexRanges[i + 1];
+			SceneObject object = sceneState.getSceneObject(sceneObject);
+			object.getShader().shadeVertexes(object.getMesh(), sceneState.getTransform(sceneObject),
+					sceneState.getCameraTransform(camera), sceneState.getCamera(camera),
+					vertexBuffers[camera][sceneObject], scene.getLights(), vertexRanges[i + 2], vertexRanges[i + 3]);
+		}
+	}
+	
+	private class ClearTask implements TaskRunner.Task {
+		
+		private RenderBuffer renderBuffer;
+		
+		@Override
+		public void run(int index) {
+			int i = 0;
+			while (index >= clearBands[i + 1]) {
+				i++;
+			}
+			int k = i * 4;
+			int y = damage[k + 1] + ((index - clearBands[i]) * CLEAR_ROWS);
+			renderBuffer.clearDrawnFrameBuffer(damage[k], y, damage[k + 2] - damage[k], Math.min(CLEAR_ROWS, damage[k + 3] - y));
+		}
+	}
 }
@@ -0,0 +1,277 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 John Salomon - John´s Project
+ *  
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.johnsproject.jpge.graphics;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.johnsproject.jpge.Engine;
+import com.johnsproject.jpge.dto.Camera;
+import com.johnsproject.jpge.dto.RenderBuffer;
+
+/**
+ * The ResolutionScaler class is used by the {@link Engine} to change the resolution 
+ * the scene is rendered at, so that the rendering doesn't take longer than the target time.
+ * It lowers the resolution when the average render time is above the target time and 
+ * only raises it again when the expected render time at the higher resolution is clearly 
+ * below the target time, so the resolution doesn't switch back and forth.
+ * <br>
+ * The scale is given in percent of the size set in {@link Engine#setRenderBufferSize(int, int)}.
+ * 
+ * @author John´s Project - John Salomon
+ */
+public class ResolutionScaler {
+	
+	private static final long MILLISECOND = 1000000L;
+	// the resolution is only raised if the expected time is below this percent of the target time
+	private static final int RAISE_THRESHOLD = 90;
+	
+	private long targetTime = 0;
+	private int minScale = 50;
+	private int maxScale = 100;
+	private int step = 10;
+	private int delay = 10;
+	private int scale = 100;
+	private long averageTime = 0;
+	private int wait = 0;
+	// the viewports of the cameras at 100% and the last viewports set by this scaler
+	private Map<Camera, int[]> viewports = new IdentityHashMap<Camera, int[]>();
+	
+	/**
+	 * Creates a new instance of the ResolutionScaler class filled with the given values.
+	 * 
+	 * @param targetTime time the rendering should take in miliseconds.
+	 */
+	public ResolutionScaler(int targetTime) {
+		setTargetTime(targetTime);
+	}
+	
+	/**
+	 * Tells this ResolutionScaler how long the last frame took to render 
+	 * and returns the scale that should be used for the next frame.
+	 * 
+	 * @param renderTime time the last frame took to render in nanoseconds.
+	 * @return scale in percent that should be used for the next frame.
+	 */
+	public int update(long renderTime) {
+		// moving average so that single slow frames don't change the resolution
+		if (averageTime == 0) {
+			averageTime = renderTime;
+		} else {
+			averageTime += (renderTime - averageTime) >> 2;
+		}
+		if (wait > 0) {
+			wait--;
+			return scale;
+		}
+		if ((averageTime > targetTime) && (scale > minScale)) {
+			setScale(scale - step);
+		} else if (scale < maxScale) {
+			// the render time grows with the count of pixels
+			final int next = Math.min(scale + step, maxScale);
+			final long expectedTime = averageTime * next * next / (scale * scale);
+			if (expectedTime * 100 < targetTime * RAISE_THRESHOLD) {
+				setScale(next);
+			}
+		}
+		return scale;
+	}
+	
+	/**
+	 * Returns the given size scaled by the current scale.
+	 * 
+	 * @param size size to scale.
+	 * @return scaled size.
+	 */
+	public int scale(int size) {
+		return Math.max((size * scale) / 100, 1);
+	}
+	
+	/**
+	 * Scales the viewports of the given {@link Camera cameras} to the current scale. 
+	 * The viewports of the cameras are expected to be set for a {@link RenderBuffer} at 100%, 
+	 * if a viewport is changed while its scaled the changed viewport is used as the viewport at 100%.
+	 * 
+	 * @param cameras {@link Camera cameras} to scale.
+	 */
+	public void scaleCameras(List<Camera> cameras) {
+		if (viewports.size() > cameras.size()) {
+			// forget removed cameras
+			viewports.keySet().retainAll(cameras);
+		}
+		for (int i = 0; i < cameras.size(); i++) {
+			final Camera camera = cameras.get(i);
+			int[] viewport = viewports.get(camera);
+			if (viewport == null) {
+				viewport = new int[8];
+				viewports.put(camera, viewport);
+				setViewport(camera, viewport);
+			} else if ((camera.getLocationX() != viewport[4]) || (camera.getLocationY() != viewport[5])
+					|| (camera.getWidth() != viewport[6]) || (camera.getHeight() != viewport[7])) {
+				setViewport(camera, viewport);
+			}
+			final int x = (viewport[0] * scale) / 100;
+			final int y = (viewport[1] * scale) / 100;
+			final int width = scale(viewport[2]);
+			final int height = scale(viewport[3]);
+			if ((x != viewport[4]) || (y != viewport[5]) || (width != viewport[6]) || (height != viewport[7])) {
+				camera.setLocation(x, y);
+				camera.setScreenSize(width, height);
+				viewport[4] = x;
+				viewport[5] = y;
+				viewport[6] = width;
+				viewport[7] = height;
+			}
+		}
+	}
+	
+	private void setViewport(Camera camera, int[] viewport) {
+		viewport[0] = viewport[4] = camera.getLocationX();
+		viewport[1] = viewport[5] = camera.getLocationY();
+		viewport[2] = viewport[6] = camera.getWidth();
+		viewport[3] = viewport[7] = camera.getHeight();
+	}
+	
+	/**
+	 * Returns the current scale in percent.
+	 * 
+	 * @return current scale in percent.
+	 */
+	public int getScale() {
+		return scale;
+	}
+	
+	/**
+	 * Sets the current scale in percent. 
+	 * The scale is kept between the min and max scale.
+	 * 
+	 * @param scale value to set.
+	 */
+	public void setScale(int scale) {
+		this.scale = Math.max(Math.min(scale, maxScale), minScale);
+		this.averageTime = 0;
+		this.wait = delay;
+	}
+	
+	/**
+	 * Returns the time the rendering should take in miliseconds.
+	 * 
+	 * @return time the rendering should take in miliseconds.
+	 */
+	public int getTargetTime() {
+		return (int)(targetTime / MILLISECOND);
+	}
+	
+	/**
+	 * Sets the time the rendering should take in miliseconds.
+	 * 
+	 * @param targetTime value to set.
+	 */
+	public void setTargetTime(int targetTime) {
+		this.targetTime = targetTime * MILLISECOND;
+	}
+	
+	/**
+	 * Returns the lowest scale in percent. 
+	 * Default is 50.
+	 * 
+	 * @return lowest scale in percent.
+	 */
+	public int getMinScale() {
+		return minScale;
+	}
+	
+	/**
+	 * Sets the lowest scale in percent. 
+	 * Default is 50.
+	 * 
+	 * @param minScale value to set.
+	 */
+	public void setMinScale(int minScale) {
+		this.minScale = minScale;
+		setScale(scale);
+	}
+	
+	/**
+	 * Returns the highest scale in percent. 
+	 * Default is 100.
+	 * 
+	 * @return highest scale in percent.
+	 */
+	public int getMaxScale() {
+		return maxScale;
+	}
+	
+	/**
+	 * Sets the highest scale in percent. 
+	 * Default is 100.
+	 * 
+	 * @param maxScale value to set.
+	 */
+	public void setMaxScale(int maxScale) {
+		this.maxScale = maxScale;
+		setScale(scale);
+	}
+	
+	/**
+	 * Returns how much the scale is changed at once in percent. 
+	 * Default is 10.
+	 * 
+	 * @return how much the scale is changed at once in percent.
+	 */
+	public int getStep() {
+		return step;
+	}
+	
+	/**
+	 * Sets how much the scale is changed at once in percent. 
+	 * Default is 10.
+	 * 
+	 * @param step value to set.
+	 */
+	public void setStep(int step) {
+		this.step = step;
+	}
+	
+	/**
+	 * Returns how many frames are waited after the scale changed before it can change again. 
+	 * Default is 10.
+	 * 
+	 * @return how many frames are waited after the scale changed.
+	 */
+	public int getDelay() {
+		return delay;
+	}
+	
+	/**
+	 * Sets how many frames are waited after the scale changed before it can change again. 
+	 * Default is 10.
+	 * 
+	 * @param delay value to set.
+	 */
+	public void setDelay(int delay) {
+		this.delay = delay;
+	}
+}
@@ -46,18 +46,30 @@ public class SceneWindow extends JFrame{
 	private int width = 0;
 	private int height = 0;
 	private ScenePanel panel;
-	private RenderBuffer renderBuffer;
+	private Engine engine;
 	
 	/**
 	 * Creates a new instance of the SceneWindow class filled with the given values.
+	 * This window shows the {@link RenderBuffer} of the default {@link Engine}.
 	 * 
 	 * @param width scene this width.
 	 * @param height scene this height.
 	 */
 	public SceneWindow (int width, int height){
+		this(width, height, Engine.getInstance());
+	}
+	
+	/**
+	 * Creates a new instance of the SceneWindow class filled with the given values.
+	 * 
+	 * @param width scene this width.
+	 * @param height scene this height.
+	 * @param engine {@link Engine} whose {@link RenderBuffer} this window shows.
+	 */
+	public SceneWindow (int width, int height, Engine engine){
 		setSize(width, height);
 		panel = new ScenePanel();
-		renderBuffer = Engine.getInstance().getRenderBuffer();
+		this.engine = engine;
 		try {
 			this.setIconImage(FileIO.loadImage(getClass().getResourceAsStream("/JohnsProjectLogo.png")));
 		} catch (IOException e) {
@@ -76,7 +88,7 @@ public class SceneWindow extends JFrame{
 	}
 	
 	/**
-	 * Tells this SceneWindow to draw the scene being used by the {@link Engine}.
+	 * Tells this SceneWindow to draw the scene being used by its {@link Engine}.
 	 */
 	public void draw() {
 		panel.repaint();
@@ -94,7 +106,7 @@ public class SceneWindow extends JFrame{
 		@Override
 		protected void paintComponent(Graphics g) {
 			super.paintComponent(g);
-			g.drawImage(renderBuffer.getFrameBuffer(), 0, 0, width, height, null);
+			g.drawImage(engine.getFrontRenderBuffer().getFrameBuffer(), 0, 0, width, height, null);
 		}
 	}
 
@@ -29,9 +29,12 @@ import com.johnsproject.jpge.dto.Camera;
 import com.johnsproject.jpge.dto.RenderBuffer;
 import com.johnsproject.jpge.dto.Face;
 import com.johnsproject.jpge.dto.Light;
+import com.johnsproject.jpge.dto.Material;
 import com.johnsproject.jpge.dto.Mesh;
+import com.johnsproject.jpge.dto.Texture;
 import com.johnsproject.jpge.dto.Transform;
 import com.johnsproject.jpge.dto.Vertex;
+import com.johnsproject.jpge.dto.VertexBuffer;
 import com.johnsproject.jpge.utils.ColorUtils;
 import com.johnsproject.jpge.utils.RenderUtils;
 import com.johnsproject.jpge.utils.Vector3MathUtils;
@@ -40,49 +43,128 @@ import com.johnsproject.jpge.utils.VectorUtils;
 /**
  * The Shader class is used to used shade the vertexes and the polygons that are
  * being rendered by the {@link Renderer}.
+ * <br>
+ * If the shading type is SHADE_DEFERRED, the faces are drawn with their normals into the G-buffer 
+ * of the {@link RenderBuffer} and are lit later once for each pixel, see {@link #shadeDeferred}.
  *
  * @author John´s Project - John Salomon
  */
 public class Shader {
 
 	private static final int vx = VectorUtils.X, vy = VectorUtils.Y, vz = VectorUtils.Z;
+	// the components of normals are about -1000 to 1000, packed normals have 8 bits for each
+	private static final int NORMAL_SHIFT = 3;
 	public static final int LIGHT_DIRECTIONAL = 0;
 	public static final int PROJECT_ORTHOGRAPHIC = 0;
 	public static final int PROJECT_PERSPECTIVE = 1;
 	public static final int SHADE_FLAT = 0;
 	public static final int SHADE_GOURAUD = 1;
+	public static final int SHADE_DEFERRED = 2;
 	public static final int DRAW_VERTEX = 0;
 	public static final int DRAW_WIREFRAME = 1;
 	public static final int DRAW_FLAT = 2;
 	public static final int DRAW_TEXTURED = 3;
+	public static final int DRAW_TEXTURED_PERSPECTIVE = 4;
+	public static final int RASTERIZE_SCANLINE = 0;
+	public static final int RASTERIZE_HALFSPACE = 1;
 	
 	private int projectionType = PROJECT_PERSPECTIVE;
 	private int shadingType = SHADE_GOURAUD;
 	private int drawingType = DRAW_TEXTURED;	
+	private int rasterizationType = RASTERIZE_SCANLINE;
+	private int perspectiveSubdivision = 16;
+	private Rasterizer rasterizer;
+	private VertexBuffer vertexBuffer;
 	
 	public int shade(Mesh mesh, Transform objectTransform, Camera camera, RenderBuffer renderBuffer, List<Light> lights) {
+		return shade(mesh, objectTransform, camera.getTransform(), camera, renderBuffer, lights);
+	}
+	
+	public int shade(Mesh mesh, Transform objectTransform, Transform cameraTransform, Camera camera,
+			RenderBuffer renderBuffer, List<Light> lights) {
+		// draw immediately into the given render buffer
+		if (rasterizer == null) {
+			rasterizer = new Rasterizer();
+			vertexBuffer = new VertexBuffer();
+		}
+		if (shadingType == SHADE_DEFERRED) {
+			renderBuffer.createGBuffer();
+		}
+		rasterizer.begin(renderBuffer);
+		int rendFaces = shade(mesh, objectTransform, cameraTransform, camera, vertexBuffer, rasterizer, lights);
+		if (shadingType == SHADE_DEFERRED) {
+			rasterizer.drawDeferredLights(lights, camera);
+		}
+		rasterizer.end();
+		return rendFaces;
+	}
+	
+	public int shade(Mesh mesh, Transform objectTransform, Transform cameraTransform, Camera camera,
+			VertexBuffer vertexBuffer, Rasterizer rasterizer, List<Light> lights) {
+		vertexBuffer.setSize(mesh.getVertexes().length);
+		shadeVertexes(mesh, objectTransform, cameraTransform, camera, vertexBuffer, lights, 0, mesh.getVertexes().length);
+		return shadeFaces(mesh, objectTransform, camera, vertexBuffer, rasterizer, lights);
+	}
+	
+	/**
+	 * Transforms, projects and shades the vertexes from start to end - 1 of the given {@link Mesh} 
+	 * and writes the results into the given {@link VertexBuffer}. The size of the vertex buffer 
+	 * should already be set, so that many threads can shade different ranges of the same mesh.
+	 * 
+	 * @param mesh {@link Mesh} that contains the vertexes.
+	 * @param objectTransform {@link Transform} of the object.
+	 * @param cameraTransform {@link Transform} of the camera.
+	 * @param camera {@link Camera} the vertexes are projected to.
+	 * @param vertexBuffer {@link VertexBuffer} to write into.
+	 * @param lights {@link Light lights} used to shade the vertexes.
+	 * @param start index of the first vertex.
+	 * @param end index after the last vertex.
+	 */
+	public void shadeVertexes(Mesh mesh, Transform objectTransform, Transform cameraTransform, Camera camera,
+			VertexBuffer vertexBuffer, List<Light> lights, int start, int end) {
+		// used to transform vertexes without changing the mesh
+		int[] vector = new int[3];
+		int[] normal = new int[3];
 		// animate and shade vertexes
-		for (int i = 0; i < mesh.getVertexes().length; i++) {
-			Vertex vertex = mesh.getVertex(i);
-			vertex.reset();
-			vertex = shadeVertex(vertex, mesh, objectTransform, lights, camera);
+		for (int i = start; i < end; i++) {
+			shadeVertex(i, mesh.getVertex(i), objectTransform, cameraTransform, lights, camera, vertexBuffer, vector, normal);
 		}
+	}
+	
+	/**
+	 * Culls and draws the faces of the given {@link Mesh} using the vertexes in the given {@link VertexBuffer}.
+	 * 
+	 * @param mesh {@link Mesh} that contains the faces.
+	 * @param objectTransform {@link Transform} of the object.
+	 * @param camera {@link Camera} to draw on.
+	 * @param vertexBuffer {@link VertexBuffer} containing the shaded vertexes.
+	 * @param rasterizer {@link Rasterizer} used to draw the faces.
+	 * @param lights {@link Light lights} used to shade the faces.
+	 * @return rendered {@link Face faces}. (faces that are not culled)
+	 */
+	public int shadeFaces(Mesh mesh, Transform objectTransform, Camera camera, VertexBuffer vertexBuffer,
+			Rasterizer rasterizer, List<Light> lights) {
+		int[] normal = new int[3];
+		// faces that need clipping are written into this polygon
+		int[] polygon = new int[RenderUtils.CLIP_VERTEX_SIZE * RenderUtils.CLIP_MAX_VERTEXES];
+		int[] clipBuffer = new int[RenderUtils.CLIP_VERTEX_SIZE * RenderUtils.CLIP_MAX_VERTEXES];
 		int rendFaces = 0;
+		rasterizer.setRasterizationType(rasterizationType);
 		// shade faces
 		for (int i = 0; i < mesh.getFaces().length; i++) {
 			Face face = mesh.getFace(i);
-			face = shadeFace(face, mesh, objectTransform, lights, camera, renderBuffer);
-			if (!face.isCulled())
+			if (shadeFace(face, mesh, objectTransform, lights, camera, vertexBuffer, rasterizer, normal, polygon, clipBuffer))
 				rendFaces++;
 		}
 		return rendFaces;
 	}
 	
-	private Vertex shadeVertex(Vertex vertex, Mesh mesh, Transform objectTransform, List<Light> lights, Camera camera) {
+	private void shadeVertex(int index, Vertex vertex, Transform objectTransform, Transform cameraTransform,
+			List<Light> lights, Camera camera, VertexBuffer vertexBuffer, int[] vector, int[] normal) {
 		Transform objt = objectTransform;
-		Transform camt = camera.getTransform();
-		int[] vector = vertex.getLocation();
-		int[] normal = vertex.getNormal();
+		Transform camt = cameraTransform;
+		vector = VectorUtils.copy3(vector, vertex.getStartLocation());
+		normal = VectorUtils.copy3(normal, vertex.getNormal());
 		// transform normal in object space
 		normal = Vector3MathUtils.movePointByAnglesXYZ(normal, objt.getRotation(), normal);
 		// transform vertex in object space
@@ -90,13 +172,24 @@ public class Shader {
 		vector = Vector3MathUtils.movePointByAnglesXYZ(vector, objt.getRotation(), vector);
 		if (shadingType == SHADE_GOURAUD) {
 			// calculate shaded color for every vertex
-			vertex.setColor(shade(lights, vector, normal));
+			vertexBuffer.getColors()[index] = shade(lights, normal);
+		}
+		if (shadingType == SHADE_DEFERRED) {
+			// the normal is interpolated like a color and the pixels are lit later
+			vertexBuffer.getColors()[index] = packNormal(normal);
 		}
 		// transform vertex to world space
 		vector = Vector3MathUtils.add(vector, objt.getLocation(), vector);
 		// transform vertex to camera space
 		vector = Vector3MathUtils.subtract(vector, camt.getLocation(), vector);
 		vector = Vector3MathUtils.movePointByAnglesXYZ(vector, camt.getRotation(), vector);
+		int[] viewLocations = vertexBuffer.getViewLocations();
+		int i = index * 3;
+		viewLocations[i + vx] = vector[vx];
+		viewLocations[i + vy] = vector[vy];
+		viewLocations[i + vz] = vector[vz];
+		vertexBuffer.getOutcodes()[index] = RenderUtils.getOutcode(vector[vx], vector[vy], vector[vz],
+															projectionType == PROJECT_PERSPECTIVE, camera);
 		// transform / project vertex to screen space
 		if (projectionType == PROJECT_ORTHOGRAPHIC) {
 			vector = RenderUtils.orthographicProject(vector, camera);
@@ -104,56 +197,231 @@ public class Shader {
 		if (projectionType == PROJECT_PERSPECTIVE) {
 			vector = RenderUtils.perspectiveProject(vector, camera);
 		}
-		return vertex;
+		int[] locations = vertexBuffer.getLocations();
+		int[] normals = vertexBuffer.getNormals();
+		locations[i + vx] = vector[vx];
+		locations[i + vy] = vector[vy];
+		locations[i + vz] = vector[vz];
+		normals[i + vx] = normal[vx];
+		normals[i + vy] = normal[vy];
+		normals[i + vz] = normal[vz];
 	}
 
 	
-	private Face shadeFace(Face face, Mesh mesh, Transform objectTransform, List<Light> lights, Camera camera, RenderBuffer renderBuffer) {
+	private boolean shadeFace(Face face, Mesh mesh, Transform objectTransform, List<Light> lights, Camera camera,
+			VertexBuffer vertexBuffer, Rasterizer rasterizer, int[] normal, int[] polygon, int[] clipBuffer) {
+		int[] locations = vertexBuffer.getLocations();
+		int[] colors = vertexBuffer.getColors();
+		int[] outcodes = vertexBuffer.getOutcodes();
+		int o1 = outcodes[face.getVertex1()], o2 = outcodes[face.getVertex2()], o3 = outcodes[face.getVertex3()];
 		// view frustum culling
-		if (!RenderUtils.isInsideViewFrustum(face, mesh, camera)) {
-			if (!RenderUtils.isBackface(face, mesh)) {
-				// get vertexes
-				Vertex vt1 = mesh.getVertex(face.getVertex1());
-				Vertex vt2 = mesh.getVertex(face.getVertex2());
-				Vertex vt3 = mesh.getVertex(face.getVertex3());
-				if (shadingType == SHADE_FLAT) {
-					// calculate shaded color for 1 vertex
-					int result = shade(lights, objectTransform.getLocation(), vt1.getNormal());
-					// and apply that color to all vertexes
-					vt1.setColor(result);
-					vt2.setColor(result);
-					vt3.setColor(result);
+		if (RenderUtils.isOutsideViewFrustum(o1, o2, o3))
+			return false;
+		boolean clip = RenderUtils.needsClipping(o1, o2, o3);
+		// get location of vertexes
+		int i1 = face.getVertex1() * 3, i2 = face.getVertex2() * 3, i3 = face.getVertex3() * 3;
+		int x1 = locations[i1 + vx], y1 = locations[i1 + vy], z1 = locations[i1 + vz],
+			x2 = locations[i2 + vx], y2 = locations[i2 + vy], z2 = locations[i2 + vz],
+			x3 = locations[i3 + vx], y3 = locations[i3 + vy], z3 = locations[i3 + vz];
+		// faces that need clipping are checked after clipping, 
+		// as the projected locations of vertexes behind the camera are not valid
+		if (!clip && RenderUtils.isBackface(x1, y1, x2, y2, x3, y3))
+			return false;
+		// get colors of vertexes
+		int vc1 = colors[face.getVertex1()];
+		int vc2 = colors[face.getVertex2()];
+		int vc3 = colors[face.getVertex3()];
+		// faces drawn as vertexes or wireframe with deferred shading are not drawn into the G-buffer, so they are lit here
+		if ((shadingType == SHADE_FLAT) || ((shadingType == SHADE_DEFERRED) && (drawingType < DRAW_FLAT))) {
+			// calculate shaded color for 1 vertex
+			int[] normals = vertexBuffer.getNormals();
+			normal[vx] = normals[i1 + vx];
+			normal[vy] = normals[i1 + vy];
+			normal[vz] = normals[i1 + vz];
+			int result = shade(lights, normal);
+			// and apply that color to all vertexes
+			vc1 = result;
+			vc2 = result;
+			vc3 = result;
+		}
+		// draw face
+		Material material = mesh.getMaterial(face.getMaterial());
+		int color = material.getColor();
+		// color used if rendering type is wireframe or vertex
+		int shadedColor = RenderUtils.shadeColor(vc1, color);
+		int[] uv1 = face.getUV1();
+		int[] uv2 = face.getUV2();
+		int[] uv3 = face.getUV3();
+		if (clip) {
+			// write the face into the polygon that is clipped
+			int[] viewLocations = vertexBuffer.getViewLocations();
+			writeClipVertex(polygon, 0, viewLocations, i1, vc1, uv1);
+			writeClipVertex(polygon, 1, viewLocations, i2, vc2, uv2);
+			writeClipVertex(polygon, 2, viewLocations, i3, vc3, uv3);
+			return drawClippedFace(polygon, clipBuffer, vc1, color, shadedColor, material, camera, rasterizer);
+		}
+		drawFace(x1, y1, z1, vc1, uv1[vx], uv1[vy], x2, y2, z2, vc2, uv2[vx], uv2[vy], x3, y3, z3, vc3, uv3[vx], uv3[vy],
+				color, shadedColor, material, camera, rasterizer);
+		return true;
+	}
+	
+	private void writeClipVertex(int[] polygon, int vertex, int[] viewLocations, int location, int vertexColor, int[] uv) {
+		int i = vertex * RenderUtils.CLIP_VERTEX_SIZE;
+		polygon[i] = viewLocations[location + vx];
+		polygon[i + 1] = viewLocations[location + vy];
+		polygon[i + 2] = viewLocations[location + vz];
+		polygon[i + 3] = vertexColor;
+		polygon[i + 4] = uv[vx];
+		polygon[i + 5] = uv[vy];
+	}
+	
+	// clips the polygon in camera space, projects it and draws it as a fan of faces
+	private boolean drawClippedFace(int[] polygon, int[] clipBuffer, int vertexColor, int color, int shadedColor,
+			Material material, Camera camera, Rasterizer rasterizer) {
+		int count = RenderUtils.clipPolygon(polygon, 3, clipBuffer, projectionType == PROJECT_PERSPECTIVE, camera);
+		if (count < 3)
+			return false;
+		// the clip buffer is not needed anymore, its used to project the vertexes
+		int[] vector = clipBuffer;
+		for (int i = 0; i < count * RenderUtils.CLIP_VERTEX_SIZE; i += RenderUtils.CLIP_VERTEX_SIZE) {
+			vector[vx] = polygon[i];
+			vector[vy] = polygon[i + 1];
+			vector[vz] = polygon[i + 2];
+			if (projectionType == PROJECT_ORTHOGRAPHIC) {
+				vector = RenderUtils.orthographicProject(vector, camera);
+			}
+			if (projectionType == PROJECT_PERSPECTIVE) {
+				vector = RenderUtils.perspectiveProject(vector, camera);
+			}
+			polygon[i] = vector[vx];
+			polygon[i + 1] = vector[vy];
+			polygon[i + 2] = vector[vz];
+		}
+		int size = RenderUtils.CLIP_VERTEX_SIZE;
+		boolean drawn = false;
+		for (int i = 1; i < count - 1; i++) {
+			int j1 = 0, j2 = i * size, j3 = (i + 1) * size;
+			// all faces of the polygon face the same direction, but some of them can be too small to tell
+			if (RenderUtils.isBackface(polygon[j1], polygon[j1 + 1], polygon[j2], polygon[j2 + 1], polygon[j3], polygon[j3 + 1]))
+				continue;
+			if (drawingType == DRAW_WIREFRAME) {
+				// only the outline of the polygon is drawn, not the edges between its faces
+				int shadedWireColor = ColorUtils.lerpRBG(shadedColor, vertexColor, -255);
+				for (int k = 0; k < count; k++) {
+					int k1 = k * size, k2 = ((k + 1) % count) * size;
+					rasterizer.drawLine(polygon[k1], polygon[k1 + 1], polygon[k1 + 2], polygon[k2], polygon[k2 + 1], polygon[k2 + 2], shadedWireColor, camera);
 				}
-				// draw face
-				int color = mesh.getMaterial(face.getMaterial()).getColor();
-				// color used if rendering type is wireframe or vertex
-				int shadedColor = ColorUtils.lerpRBG(vt1.getColor(), color, 500);
-				// draw based on the cameras rendering type
-				switch (drawingType) {
-				case DRAW_VERTEX:
-					drawVertex(vt1, vt2, vt3, shadedColor, camera, renderBuffer);
-					break;
+				return true;
+			}
+			drawFace(polygon[j1], polygon[j1 + 1], polygon[j1 + 2], polygon[j1 + 3], polygon[j1 + 4], polygon[j1 + 5],
+					polygon[j2], polygon[j2 + 1], polygon[j2 + 2], polygon[j2 + 3], polygon[j2 + 4], polygon[j2 + 5],
+					polygon[j3], polygon[j3 + 1], polygon[j3 + 2], polygon[j3 + 3], polygon[j3 + 4], polygon[j3 + 5],
+					color, shadedColor, material, camera, rasterizer);
+			drawn = true;
+		}
+		return drawn;
+	}
+	
+	private void drawFace(int x1, int y1, int z1, int vc1, int u1, int v1, int x2, int y2, int z2, int vc2, int u2, int v2,
+			int x3, int y3, int z3, int vc3, int u3, int v3, int color, int shadedColor, Material material,
+			Camera camera, Rasterizer rasterizer) {
+		if ((shadingType == SHADE_DEFERRED) && (drawingType >= DRAW_FLAT)) {
+			// textures are always mapped affine in the G-buffer
+			Texture texture = drawingType == DRAW_FLAT ? null : material.getTexture();
+			rasterizer.drawFaceDeferred(x1, y1, z1, vc1, u1, v1, x2, y2, z2, vc2, u2, v2,
+									x3, y3, z3, vc3, u3, v3, texture, color, camera);
+			return;
+		}
+		// draw based on the cameras rendering type
+		switch (drawingType) {
+		case DRAW_VERTEX:
+			drawVertex(x1, y1, z1, x2, y2, z2, x3, y3, z3, vc1, shadedColor, camera, rasterizer);
+			break;
 
-				case DRAW_WIREFRAME:
-					drawWireframe(vt1, vt2, vt3, shadedColor, camera, renderBuffer);
-					break;
+		case DRAW_WIREFRAME:
+			drawWireframe(x1, y1, z1, x2, y2, z2, x3, y3, z3, vc1, shadedColor, camera, rasterizer);
+			break;
 
-				case DRAW_FLAT:
-					RenderUtils.drawFaceGouraud(face, mesh, camera, renderBuffer);
-					break;
+		case DRAW_FLAT:
+			rasterizer.drawFaceGouraud(x1, y1, z1, vc1, x2, y2, z2, vc2, x3, y3, z3, vc3, color, camera);
+			break;
 
-				case DRAW_TEXTURED:
-					RenderUtils.drawFaceAffine(face, mesh, camera, renderBuffer);
-					break;
+		case DRAW_TEXTURED:
+			rasterizer.drawFaceAffine(x1, y1, z1, vc1, u1, v1, x2, y2, z2, vc2, u2, v2,
+									x3, y3, z3, vc3, u3, v3, material.getTexture(), camera);
+			break;
+			
+		case DRAW_TEXTURED_PERSPECTIVE:
+			rasterizer.drawFacePerspective(x1, y1, z1, vc1, u1, v1, x2, y2, z2, vc2, u2, v2,
+									x3, y3, z3, vc3, u3, v3, material.getTexture(), perspectiveSubdivision, camera);
+			break;
+		}
+	}
+	
+	/**
+	 * Lights the pixels drawn into the G-buffer of the given {@link RenderBuffer} inside the given 
+	 * clip rectangle of the given {@link Camera} and writes them into the frameBuffer. 
+	 * The lit pixels are removed from the G-buffer.
+	 * 
+	 * @param lights {@link Light lights} used to light the pixels.
+	 * @param clip clip rectangle in camera space. {minX, minY, maxX, maxY}, max values are exclusive.
+	 * @param camera {@link Camera} to light.
+	 * @param renderBuffer {@link RenderBuffer} to use.
+	 */
+	public static void shadeDeferred(List<Light> lights, int[] clip, Camera camera, RenderBuffer renderBuffer) {
+		int[] normalBuffer = renderBuffer.getNormalBuffer();
+		if (normalBuffer == null)
+			return;
+		int[] albedoBuffer = renderBuffer.getAlbedoBuffer();
+		int[] frameBuffer = renderBuffer.getFrameBufferData();
+		int width = renderBuffer.getWidth();
+		int minX = Math.max(camera.getLocationX() + clip[0], 0);
+		int minY = Math.max(camera.getLocationY() + clip[1], 0);
+		int maxX = Math.min(camera.getLocationX() + clip[2], width);
+		int maxY = Math.min(camera.getLocationY() + clip[3], renderBuffer.getHeight());
+		int[] normal = new int[3];
+		// neighbour pixels often have the same normal, so the last result is reused
+		int lastNormal = 0;
+		int lastColor = 0;
+		for (int y = minY; y < maxY; y++) {
+			int start = minX + (y * width);
+			int first = -1, last = -1;
+			for (int pos = start, end = start + maxX - minX; pos < end; pos++) {
+				int packedNormal = normalBuffer[pos];
+				if (packedNormal == 0)
+					continue;
+				if (first < 0) first = pos;
+				last = pos;
+				if (packedNormal != lastNormal) {
+					unpackNormal(packedNormal, normal);
+					lastNormal = packedNormal;
+					lastColor = shade(lights, normal);
 				}
+				frameBuffer[pos] = RenderUtils.shadeColor(lastColor, albedoBuffer[pos]);
+				normalBuffer[pos] = 0;
 			}
+			if (first >= 0) renderBuffer.drawFrameLine(minX + first - start, y, last - first + 1);
 		}
-		return face;
 	}
 	
-	private int shade(List<Light> lights, int[] vector, int[] normal) {
+	// packs the normal into a color, each component into a channel, so it can be interpolated like a color
+	private static int packNormal(int[] normal) {
+		return ColorUtils.convert(packNormalComponent(normal[vx]), packNormalComponent(normal[vy]),
+								packNormalComponent(normal[vz]));
+	}
+	
+	private static int packNormalComponent(int value) {
+		return Math.max(0, Math.min(255, (value >> NORMAL_SHIFT) + 128));
+	}
+	
+	private static void unpackNormal(int packedNormal, int[] normal) {
+		normal[vx] = (ColorUtils.getRed(packedNormal) - 128) << NORMAL_SHIFT;
+		normal[vy] = (ColorUtils.getGreen(packedNormal) - 128) << NORMAL_SHIFT;
+		normal[vz] = (ColorUtils.getBlue(packedNormal) - 128) << NORMAL_SHIFT;
+	}
+	
+	private static int shade(List<Light> lights, int[] normal) {
 		int factor = 0;
-		int lightColor = 0;
 		for (int i = 0; i < lights.size(); i++) {
 			Light light = lights.get(i);
 			int[] lightLocation = light.getTransform().getLocation();
@@ -163,40 +431,28 @@ public class Shader {
 				factor /= light.getStrength();
 				break;
 			}
-			lightColor = ColorUtils.lerpRBG(light.getColor(), lightColor, 100);
 		}
-		// return color
-		return ColorUtils.lerpRBG(ColorUtils.convert(255, 255, 255), 0, -factor-50);
+		// return color, the same as ColorUtils.lerpRBG(white, black, -factor-50) but only for one channel
+		int level = (255 + (255 * (factor + 50))) >> 8;
+		return ColorUtils.convert(level, level, level);
 	}
 	
-	private void drawVertex(Vertex vt1, Vertex vt2, Vertex vt3, int color, Camera camera, RenderBuffer RenderBuffer) {
-		// get location of vertexes
-		int[] vp1 = vt1.getLocation();
-		int[] vp2 = vt2.getLocation();
-		int[] vp3 = vt3.getLocation();
-		int x1 = vp1[vx], y1 = vp1[vy], z1 = vp1[vz],
-			x2 = vp2[vx], y2 = vp2[vy], z2 = vp2[vz],
-			x3 = vp3[vx], y3 = vp3[vy], z3 = vp3[vz];
+	private void drawVertex(int x1, int y1, int z1, int x2, int y2, int z2, int x3, int y3, int z3,
+			int vertexColor, int color, Camera camera, Rasterizer rasterizer) {
 	    // color used if rendering type is wireframe or vertex
-	    int shadedColor = ColorUtils.lerpRBG(color,  vt1.getColor(), -255);
-	    RenderUtils.setPixel(x1, y1, z1, shadedColor, camera, RenderBuffer);
-	    RenderUtils.setPixel(x2, y2, z2, shadedColor, camera, RenderBuffer);
-	    RenderUtils.setPixel(x3, y3, z3, shadedColor, camera, RenderBuffer);
+	    int shadedColor = ColorUtils.lerpRBG(color, vertexColor, -255);
+	    rasterizer.drawPixel(x1, y1, z1, shadedColor, camera);
+	    rasterizer.drawPixel(x2, y2, z2, shadedColor, camera);
+	    rasterizer.drawPixel(x3, y3, z3, shadedColor, camera);
 	}
 	
-	private void drawWireframe(Vertex vt1, Vertex vt2, Vertex vt3, int color, Camera camera, RenderBuffer RenderBuffer) {
-		// get location of vertexes
-		int[] vp1 = vt1.getLocation();
-		int[] vp2 = vt2.getLocation();
-		int[] vp3 = vt3.getLocation();
-		int x1 = vp1[vx], y1 = vp1[vy], z1 = vp1[vz],
-			x2 = vp2[vx], y2 = vp2[vy], z2 = vp2[vz],
-			x3 = vp3[vx], y3 = vp3[vy], z3 = vp3[vz];
+	private void drawWireframe(int x1, int y1, int z1, int x2, int y2, int z2, int x3, int y3, int z3,
+			int vertexColor, int color, Camera camera, Rasterizer rasterizer) {
 	    // color used if rendering type is wireframe or vertex
-	    int shadedColor = ColorUtils.lerpRBG(color,  vt1.getColor(), -255);
-	    RenderUtils.drawLine(x1, y1, x2, y2, z1, shadedColor, camera, RenderBuffer);
-		RenderUtils.drawLine(x2, y2, x3, y3, z2, shadedColor, camera, RenderBuffer);
-		RenderUtils.drawLine(x3, y3, x1, y1, z3, shadedColor, camera, RenderBuffer);
+	    int shadedColor = ColorUtils.lerpRBG(color, vertexColor, -255);
+	    rasterizer.drawLine(x1, y1, z1, x2, y2, z2, shadedColor, camera);
+		rasterizer.drawLine(x2, y2, z2, x3, y3, z3, shadedColor, camera);
+		rasterizer.drawLine(x3, y3, z3, x1, y1, z1, shadedColor, camera);
 	}
 	
 	/**
@@ -252,5 +508,47 @@ public class Shader {
 	public void setDrawingType(int drawingType) {
 		this.drawingType = drawingType;
 	}
+	
+	/**
+	 * Returns the rasterization type use by this Shader.
+	 * 
+	 * @return rasterization type use by this Shader.
+	 */
+	public int getRasterizationType() {
+		return rasterizationType;
+	}
+	
+	/**
+	 * Stets the rasterization type of this shader. 
+	 * {@link #RASTERIZE_SCANLINE} fills the faces line by line, 
+	 * {@link #RASTERIZE_HALFSPACE} tests blocks of pixels against the edges of the faces 
+	 * which is faster for small faces.
+	 * 
+	 * @param rasterizationType rasterization type to set.
+	 */
+	public void setRasterizationType(int rasterizationType) {
+		this.rasterizationType = rasterizationType;
+	}
+	
+	/**
+	 * Returns the count of pixels between the perspective divisions 
+	 * used by this Shader if the drawing type is {@link #DRAW_TEXTURED_PERSPECTIVE}.
+	 * 
+	 * @return count of pixels between the perspective divisions used by this Shader.
+	 */
+	public int getPerspectiveSubdivision() {
+		return perspectiveSubdivision;
+	}
+	
+	/**
+	 * Stets the count of pixels between the perspective divisions of this shader. 
+	 * The texture coordinates are only divided by the depth every subdivision pixels 
+	 * and mapped affine in between, lower values are more accurate but slower.
+	 * 
+	 * @param perspectiveSubdivision count of pixels between the perspective divisions to set.
+	 */
+	public void setPerspectiveSubdivision(int perspectiveSubdivision) {
+		this.perspectiveSubdivision = perspectiveSubdivision;
+	}
 
 }
@@ -55,6 +55,22 @@ public class InputManager {
 	private Point mouseLocationOnScreen = new Point();
 
 	public InputManager() {
+		this(true);
+	}
+	
+	/**
+	 * Creates a new InputManager. If listen is false the InputManager doesn't register 
+	 * itself at the awt toolkit, this is used by headless engines.
+	 * 
+	 * @param listen if the InputManager should listen to awt events.
+	 */
+	public InputManager(boolean listen) {
+		if (listen) {
+			listen();
+		}
+	}
+	
+	private void listen() {
 		Toolkit.getDefaultToolkit().addAWTEventListener(new AWTEventListener() {
 			public void eventDispatched(AWTEvent event) {
 				if (event instanceof KeyEvent) {
@@ -34,8 +34,8 @@ import com.johnsproject.jpge.utils.VectorUtils;
 public class PhysicsAnimator {
 
 	private static final int vx = VectorUtils.X, vy = VectorUtils.Y, vz = VectorUtils.Z;
-	private static int[] vectorCache1 = new int[3];
-	private static int[] vectorCache2 = new int[3];
+	private int[] vectorCache1 = new int[3];
+	private int[] vectorCache2 = new int[3];
 
 	public void animate(Scene scene) {
 		for (int i = 0; i < scene.getSceneObjects().size(); i++) {
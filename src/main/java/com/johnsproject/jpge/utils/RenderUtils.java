@@ -41,6 +41,52 @@ public class RenderUtils {
 
 	private static final int vx = VectorUtils.X, vy = VectorUtils.Y, vz = VectorUtils.Z;
 	private static final int SHIFT = 11;
+	// size of the blocks the half-space rasterizer tests at once
+	private static final int BLOCK_SIZE = 8;
+	// larger vertex coordinates would overflow the integer edge functions
+	private static final int HALFSPACE_LIMIT = 8191;
+	// min length of lines that use the depth tiles of the RenderBuffer
+	private static final int DEPTH_TILE_LINE = 32;
+	// planes of the view frustum, the outcode bit of each plane is 1 << plane
+	private static final int PLANE_NEAR = 0;
+	private static final int PLANE_FAR = 1;
+	private static final int PLANE_LEFT = 2;
+	private static final int PLANE_RIGHT = 3;
+	private static final int PLANE_TOP = 4;
+	private static final int PLANE_BOTTOM = 5;
+	// the outcode bits of the guard band planes are after the bits of the view frustum planes, 
+	// there is only a guard band around the x and y planes
+	private static final int GUARD_SHIFT = 6;
+	private static final int VIEW_MASK = (1 << GUARD_SHIFT) - 1;
+	private static final int CLIP_MASK = (1 << PLANE_NEAR) | (VIEW_MASK << GUARD_SHIFT);
+	// channel of a pixel for each shade and color channel, (shade << 8) | color is the index, 
+	// same result as ColorUtils.lerpRBG with factor 500 for one channel
+	private static final byte[] shadeLUT = new byte[256 * 256];
+	static {
+		for (int shade = 0; shade < 256; shade++) {
+			for (int color = 0; color < 256; color++) {
+				shadeLUT[(shade << 8) | color] = (byte)clampChannel((shade + ((color - shade) * 500)) >> 8);
+			}
+		}
+	}
+	
+	/**
+	 * Pixels that faces can reach outside of the camera before they are clipped.
+	 */
+	public static final int GUARD_BAND = 2048;
+	/**
+	 * Count of values of each vertex of a polygon used by {@link #clipPolygon}. 
+	 * The values are x, y, z in camera space, color, u and v.
+	 */
+	public static final int CLIP_VERTEX_SIZE = 6;
+	/**
+	 * Max count of vertexes of a polygon after a triangle was clipped by {@link #clipPolygon}.
+	 */
+	public static final int CLIP_MAX_VERTEXES = 8;
+	/**
+	 * Min length of the lines array used by {@link #drawFaceGouraudHalfSpace} and {@link #drawFaceAffineHalfSpace}.
+	 */
+	public static final int HALFSPACE_LINES = BLOCK_SIZE * 2;
 	
 	/**
 	 * Projects a vector to from world (3D) to screen (2D) coordinates
@@ -113,25 +159,46 @@ public class RenderUtils {
 	 * @return if the given face is inside the view frustum of the given camera.
 	 */
 	public static boolean isInsideViewFrustum(Face face, Mesh mesh, Camera camera) {
-		face.setCulled(false);
 		int[] v1 = mesh.getVertex(face.getVertex1()).getLocation();
 		int[] v2 = mesh.getVertex(face.getVertex2()).getLocation();
 		int[] v3 = mesh.getVertex(face.getVertex3()).getLocation();
+		boolean culled = isInsideViewFrustum(v1[vx], v1[vy], v1[vz], v2[vx], v2[vy], v2[vz], v3[vx], v3[vy], v3[vz], camera);
+		face.setCulled(culled);
+		return culled;
+	}
+	
+	/**
+	 * This method checks if the face with the given projected vertexes is inside the view frustum of the given camera.
+	 * It returns false if the face is inside and true if the face should be culled.
+	 * 
+	 * @param x1 x location of the first vertex.
+	 * @param y1 y location of the first vertex.
+	 * @param z1 z location of the first vertex.
+	 * @param x2 x location of the second vertex.
+	 * @param y2 y location of the second vertex.
+	 * @param z2 z location of the second vertex.
+	 * @param x3 x location of the third vertex.
+	 * @param y3 y location of the third vertex.
+	 * @param z3 z location of the third vertex.
+	 * @param camera {@link Camera}.
+	 * @return if the face should be culled.
+	 */
+	public static boolean isInsideViewFrustum(int x1, int y1, int z1, int x2, int y2, int z2,
+												int x3, int y3, int z3, Camera camera) {
 		int ncp = camera.getNearClippingPlane();
 		int fcp = camera.getFarClippingPlane();
 		int w = camera.getWidth();
 		int h = camera.getHeight();
 		// calculate center of face
-		int x = (v1[vx] + v2[vx] + v3[vx]) / 3;
-		int y = (v1[vy] + v2[vy] + v3[vy]) / 3;
-		int z = (v1[vz] + v2[vz] + v3[vz]) / 3;
+		int x = (x1 + x2 + x3) / 3;
+		int y = (y1 + y2 + y3) / 3;
+		int z = (z1 + z2 + z3) / 3;
 		// tolerance
 		int t = 50;
 		// check if its inside view
 		if (x > -t && x < w + t && y > -t && y < h + t && z > ncp && z < fcp) {
 			return false;
 		}
-		face.setCulled(true);
 		return true;
 	}
 
@@ -144,21 +211,195 @@ public class RenderUtils {
 	 * @return if the given face is a backface.
 	 */
 	public static boolean isBackface(Face face, Mesh mesh) {
-		face.setCulled(false);
 		int[] v1 = mesh.getVertex(face.getVertex1()).getLocation();
 		int[] v2 = mesh.getVertex(face.getVertex2()).getLocation();
 		int[] v3 = mesh.getVertex(face.getVertex3()).getLocation();
-		int v1x = v1[vx], v1y = v1[vy];
-		int v2x = v2[vx], v2y = v2[vy];
-		int v3x = v3[vx], v3y = v3[vy];
+		boolean culled = isBackface(v1[vx], v1[vy], v2[vx], v2[vy], v3[vx], v3[vy]);
+		face.setCulled(culled);
+		return culled;
+	}
+	
+	/**
+	 * This method checks if the face with the given projected vertexes is a backface.
+	 * 
+	 * @param x1 x location of the first vertex.
+	 * @param y1 y location of the first vertex.
+	 * @param x2 x location of the second vertex.
+	 * @param y2 y location of the second vertex.
+	 * @param x3 x location of the third vertex.
+	 * @param y3 y location of the third vertex.
+	 * @return if the face is a backface.
+	 */
+	public static boolean isBackface(int x1, int y1, int x2, int y2, int x3, int y3) {
 		// calculate area of face
-		int a = (v2x - v1x) * (v3y - v1y) - (v3x - v1x) * (v2y - v1y);
+		int a = (x2 - x1) * (y3 - y1) - (x3 - x1) * (y2 - y1);
 		// if area is negative then its a backface
 		if (a < 0) return false;
-		face.setCulled(true);
 		return true;
 	}
 	
+	/**
+	 * Returns the outcode of the given vertex in camera space. 
+	 * The outcode tells which planes of the view frustum of the given camera and 
+	 * which planes of the {@link #GUARD_BAND guard band} around it the vertex is outside of.
+	 * 
+	 * @param x x location of the vertex in camera space.
+	 * @param y y location of the vertex in camera space.
+	 * @param z z location of the vertex in camera space.
+	 * @param perspective if the vertex will be projected using {@link #perspectiveProject}, 
+	 * else {@link #orthographicProject} is used.
+	 * @param camera {@link Camera}.
+	 * @return outcode of the given vertex.
+	 */
+	public static int getOutcode(int x, int y, int z, boolean perspective, Camera camera) {
+		// same planes as in getPlaneDistance, but all at once as its done for every vertex
+		long depth = z;
+		long w = 256;
+		long scale = camera.getScaleFactor();
+		if (perspective) {
+			depth = z + camera.getFieldOfView();
+			w = depth;
+			scale *= camera.getFieldOfView();
+		}
+		long sx = x * scale, sy = y * scale;
+		long left = sx + (camera.getHalfWidth() * w);
+		long right = ((camera.getWidth() - camera.getHalfWidth()) * w) - sx;
+		long top = sy + (camera.getHalfHeight() * w);
+		long bottom = ((camera.getHeight() - camera.getHalfHeight()) * w) - sy;
+		long guard = GUARD_BAND * w;
+		int outcode = 0;
+		if (depth < camera.getNearClippingPlane()) outcode |= 1 << PLANE_NEAR;
+		if (depth > camera.getFarClippingPlane()) outcode |= 1 << PLANE_FAR;
+		if (left < 0) outcode |= 1 << PLANE_LEFT;
+		if (right < 0) outcode |= 1 << PLANE_RIGHT;
+		if (top < 0) outcode |= 1 << PLANE_TOP;
+		if (bottom < 0) outcode |= 1 << PLANE_BOTTOM;
+		if (left + guard < 0) outcode |= 1 << (PLANE_LEFT + GUARD_SHIFT);
+		if (right + guard < 0) outcode |= 1 << (PLANE_RIGHT + GUARD_SHIFT);
+		if (top + guard < 0) outcode |= 1 << (PLANE_TOP + GUARD_SHIFT);
+		if (bottom + guard < 0) outcode |= 1 << (PLANE_BOTTOM + GUARD_SHIFT);
+		return outcode;
+	}
+	
+	/**
+	 * This method checks if the face with the vertexes with the given outcodes is outside of the view frustum. 
+	 * This is the case if all vertexes are outside of the same plane.
+	 * 
+	 * @param outcode1 outcode of the first vertex.
+	 * @param outcode2 outcode of the second vertex.
+	 * @param outcode3 outcode of the third vertex.
+	 * @return if the face should be culled.
+	 */
+	public static boolean isOutsideViewFrustum(int outcode1, int outcode2, int outcode3) {
+		return (outcode1 & outcode2 & outcode3 & VIEW_MASK) != 0;
+	}
+	
+	/**
+	 * This method checks if the face with the vertexes with the given outcodes needs to be clipped by 
+	 * {@link #clipPolygon} before it can be projected and drawn. This is the case if a vertex is behind 
+	 * the near clipping plane or outside of the {@link #GUARD_BAND guard band}. The parts of faces 
+	 * inside of the guard band that are outside of the camera are not clipped, they are skipped while drawing.
+	 * 
+	 * @param outcode1 outcode of the first vertex.
+	 * @param outcode2 outcode of the second vertex.
+	 * @param outcode3 outcode of the third vertex.
+	 * @return if the face needs to be clipped.
+	 */
+	public static boolean needsClipping(int outcode1, int outcode2, int outcode3) {
+		return ((outcode1 | outcode2 | outcode3) & CLIP_MASK) != 0;
+	}
+	
+	/**
+	 * Clips the given polygon in camera space against the near clipping plane of the given camera 
+	 * and the planes of the {@link #GUARD_BAND guard band} around it using the Sutherland-Hodgman algorithm. 
+	 * The colors and texture coordinates of the new vertexes are interpolated.
+	 * Each vertex of the polygon is stored as {@link #CLIP_VERTEX_SIZE} values, 
+	 * x, y, z, color, u and v, one after another.
+	 * 
+	 * @param polygon vertexes of the polygon, the clipped polygon is written into it. 
+	 * It should have space for {@link #CLIP_MAX_VERTEXES}.
+	 * @param count count of vertexes of the polygon.
+	 * @param temp array of the same length as polygon used while clipping.
+	 * @param perspective if the vertexes will be projected using {@link #perspectiveProject}, 
+	 * else {@link #orthographicProject} is used.
+	 * @param camera {@link Camera}.
+	 * @return count of vertexes of the clipped polygon, less than 3 if nothing is left.
+	 */
+	public static int clipPolygon(int[] polygon, int count, int[] temp, boolean perspective, Camera camera) {
+		for (int plane = PLANE_NEAR; (plane <= PLANE_BOTTOM) && (count >= 3); plane++) {
+			if (plane == PLANE_FAR) continue;
+			int guardBand = plane == PLANE_NEAR ? 0 : GUARD_BAND;
+			int clipped = 0;
+			int last = (count - 1) * CLIP_VERTEX_SIZE;
+			long lastDistance = getPlaneDistance(plane, guardBand, polygon[last + vx], polygon[last + vy],
+												polygon[last + vz], perspective, camera);
+			for (int i = 0; i < count * CLIP_VERTEX_SIZE; i += CLIP_VERTEX_SIZE) {
+				long distance = getPlaneDistance(plane, guardBand, polygon[i + vx], polygon[i + vy],
+												polygon[i + vz], perspective, camera);
+				// the edge from the last vertex to this vertex crosses the plane
+				if ((distance < 0) != (lastDistance < 0)) {
+					lerpVertex(polygon, last, i, (double)lastDistance / (lastDistance - distance), temp, clipped);
+					clipped += CLIP_VERTEX_SIZE;
+				}
+				if (distance >= 0) {
+					System.arraycopy(polygon, i, temp, clipped, CLIP_VERTEX_SIZE);
+					clipped += CLIP_VERTEX_SIZE;
+				}
+				last = i;
+				lastDistance = distance;
+			}
+			System.arraycopy(temp, 0, polygon, 0, clipped);
+			count = clipped / CLIP_VERTEX_SIZE;
+		}
+		return count;
+	}
+	
+	// distance of the vertex to the plane, its negative if the vertex is outside
+	// the distance is not normalized, its only used for the sign and to interpolate
+	private static long getPlaneDistance(int plane, int guardBand, int x, int y, int z, boolean perspective, Camera camera) {
+		// depth used by the projection, the x and y planes are scaled by it
+		long depth = z;
+		long w = 256;
+		long scale = camera.getScaleFactor();
+		if (perspective) {
+			depth = z + camera.getFieldOfView();
+			w = depth;
+			scale *= camera.getFieldOfView();
+		}
+		switch (plane) {
+		case PLANE_NEAR:
+			return depth - camera.getNearClippingPlane();
+		case PLANE_FAR:
+			return camera.getFarClippingPlane() - depth;
+		case PLANE_LEFT:
+			return (x * scale) + ((camera.getHalfWidth() + guardBand) * w);
+		case PLANE_RIGHT:
+			return ((camera.getWidth() + guardBand - camera.getHalfWidth()) * w) - (x * scale);
+		case PLANE_TOP:
+			return (y * scale) + ((camera.getHalfHeight() + guardBand) * w);
+		default:
+			return ((camera.getHeight() + guardBand - camera.getHalfHeight()) * w) - (y * scale);
+		}
+	}
+	
+	// writes the vertex at factor between the vertexes at index1 and index2 into result
+	private static void lerpVertex(int[] polygon, int index1, int index2, double factor, int[] result, int index) {
+		// location and texture coordinates
+		for (int i = 0; i < CLIP_VERTEX_SIZE; i++) {
+			int value1 = polygon[index1 + i];
+			int value2 = polygon[index2 + i];
+			result[index + i] = value1 + (int)((value2 - value1) * factor);
+		}
+		// the channels of the color are interpolated one by one
+		int color1 = polygon[index1 + 3];
+		int color2 = polygon[index2 + 3];
+		int r = ColorUtils.getRed(color1) + (int)((ColorUtils.getRed(color2) - ColorUtils.getRed(color1)) * factor);
+		int g = ColorUtils.getGreen(color1) + (int)((ColorUtils.getGreen(color2) - ColorUtils.getGreen(color1)) * factor);
+		int b = ColorUtils.getBlue(color1) + (int)((ColorUtils.getBlue(color2) - ColorUtils.getBlue(color1)) * factor);
+		int a = ColorUtils.getAlpha(color1) + (int)((ColorUtils.getAlpha(color2) - ColorUtils.getAlpha(color1)) * factor);
+		result[index + 3] = ColorUtils.convert(r, g, b, a);
+	}
+	
 	// line drawing with fixed point Brenseham's
 	
 	/**
@@ -175,24 +416,151 @@ public class RenderUtils {
 	 */
 	public static void drawLine(int x1, int y1, int x2, int y2, int z, int color,
 						Camera camera, RenderBuffer renderBuffer) {		
-		int dx = Math.abs(x2 - x1), sx = x1 < x2 ? 1 : -1;
-		int dy = -Math.abs(y2 - y1), sy = y1 < y2 ? 1 : -1;
-		int err = dx + dy, e2; /* error value e_xy */
-
-		while (true) {
-			setPixel(x1, y1, z, color, camera, renderBuffer);
-			if (x1 == x2 && y1 == y2)
-				break;
-			e2 = 2 * err;
-			if (e2 > dy) {
-				err += dy;
-				x1 += sx;
-			} /* e_xy+e_x > 0 */
-			if (e2 < dx) {
-				err += dx;
-				y1 += sy;
-			} /* e_xy+e_y < 0 */
+		drawLine(x1, y1, z, x2, y2, z, color, getClip(camera), camera, renderBuffer);
+	}
+	
+	/**
+	 * Draws a line on the given {@link Camera} using Brenseham's line algorithm.
+	 * Only the pixels inside the given clip rectangle are drawn.
+	 * 
+	 * @param x1 start x location.
+	 * @param y1 start y location.
+	 * @param x2 end x location.
+	 * @param y2 end y location.
+	 * @param z z location used by the zBuffer.
+	 * @param color color of the line.
+	 * @param clip clip rectangle in camera space. {minX, minY, maxX, maxY}, max values are exclusive.
+	 * @param camera {@link Camera} to draw on.
+	 * @param renderBuffer {@link RenderBuffer} to use.
+	 */
+	public static void drawLine(int x1, int y1, int x2, int y2, int z, int color,
+						int[] clip, Camera camera, RenderBuffer renderBuffer) {
+		drawLine(x1, y1, z, x2, y2, z, color, clip, camera, renderBuffer);
+	}
+	
+	/**
+	 * Draws a line on the given {@link Camera} using Brenseham's line algorithm.
+	 * The depth is interpolated between the start and the end of the line.
+	 * 
+	 * @param x1 start x location.
+	 * @param y1 start y location.
+	 * @param z1 start z location used by the zBuffer.
+	 * @param x2 end x location.
+	 * @param y2 end y location.
+	 * @param z2 end z location used by the zBuffer.
+	 * @param color color of the line.
+	 * @param camera {@link Camera} to draw on.
+	 * @param renderBuffer {@link RenderBuffer} to use.
+	 */
+	public static void drawLine(int x1, int y1, int z1, int x2, int y2, int z2, int color,
+						Camera camera, RenderBuffer renderBuffer) {
+		drawLine(x1, y1, z1, x2, y2, z2, color, getClip(camera), camera, renderBuffer);
+	}
+	
+	/**
+	 * Draws a line on the given {@link Camera} using Brenseham's line algorithm.
+	 * The depth is interpolated between the start and the end of the line.
+	 * The line is clipped against the given clip rectangle before it is drawn, 
+	 * so the pixels outside of it cost nothing.
+	 * 
+	 * @param x1 start x location.
+	 * @param y1 start y location.
+	 * @param z1 start z location used by the zBuffer.
+	 * @param x2 end x location.
+	 * @param y2 end y location.
+	 * @param z2 end z location used by the zBuffer.
+	 * @param color color of the line.
+	 * @param clip clip rectangle in camera space. {minX, minY, maxX, maxY}, max values are exclusive.
+	 * @param camera {@link Camera} to draw on.
+	 * @param renderBuffer {@link RenderBuffer} to use.
+	 */
+	public static void drawLine(int x1, int y1, int z1, int x2, int y2, int z2, int color,
+						int[] clip, Camera camera, RenderBuffer renderBuffer) {
+		int width = renderBuffer.getWidth();
+		int cx = camera.getLocationX();
+		int cy = camera.getLocationY();
+		// clip rectangle inside of the render buffer, max values are inclusive
+		int minX = Math.max(clip[0], -cx), maxX = Math.min(clip[2], width - cx) - 1;
+		int minY = Math.max(clip[1], -cy), maxY = Math.min(clip[3], renderBuffer.getHeight() - cy) - 1;
+		boolean xMajor = Math.abs(x2 - x1) >= Math.abs(y2 - y1);
+		// the line is walked along its major axis, the minor axis moves at most one pixel per step
+		int a1 = xMajor ? x1 : y1, a2 = xMajor ? x2 : y2;
+		int b1 = xMajor ? y1 : x1, b2 = xMajor ? y2 : x2;
+		int minA = xMajor ? minX : minY, maxA = xMajor ? maxX : maxY;
+		int minB = xMajor ? minY : minX, maxB = xMajor ? maxY : maxX;
+		// lines are always walked in the same direction so both faces of an edge draw the same pixels
+		if ((a1 > a2) || ((a1 == a2) && (z1 > z2))) {
+			int t = a1; a1 = a2; a2 = t;
+			t = b1; b1 = b2; b2 = t;
+			t = z1; z1 = z2; z2 = t;
+		}
+		int major = a2 - a1;
+		int minor = Math.abs(b2 - b1);
+		int step = b1 <= b2 ? 1 : -1;
+		// the minor axis offset at step i is round(i * minor / major), 
+		// so the visible steps are found without walking the line
+		int first = Math.max(0, minA - a1);
+		int last = Math.min(major, maxA - a1);
+		int lowB = step > 0 ? minB - b1 : b1 - maxB;
+		int highB = step > 0 ? maxB - b1 : b1 - minB;
+		if ((first > last) || (highB < 0) || (lowB > minor))
+			return;
+		if (minor > 0) {
+			if (lowB > 0)
+				first = Math.max(first, (int)ceilDiv((2L * lowB - 1) * major, 2L * minor));
+			if (highB < minor)
+				last = Math.min(last, (int)ceilDiv((2L * highB + 1) * major, 2L * minor) - 1);
+			if (first > last)
+				return;
+		}
+		// error term of the minor axis at the first visible step
+		long error = (2L * first * minor) + major;
+		// a line of one pixel has no major axis
+		int doubleMajor = Math.max(2 * major, 1), doubleMinor = 2 * minor;
+		int a = a1 + first;
+		int b = b1 + (step * (int)(error / doubleMajor));
+		int e = (int)(error % doubleMajor);
+		int dz = major == 0 ? 0 : ((z2 - z1) << SHIFT) / major;
+		int sz = (z1 << SHIFT) + (dz * first);
+		// the line is already clipped, so the buffers are accessed directly
+		int[] frameBuffer = renderBuffer.getFrameBufferData();
+		int[] depthBuffer = renderBuffer.getDepthBuffer();
+		int depthOffset = renderBuffer.getDepthOffset();
+		int x = cx + (xMajor ? a : b);
+		int y = cy + (xMajor ? b : a);
+		int majorStep = xMajor ? 1 : width;
+		int minorStep = xMajor ? step * width : step;
+		int pos = x + (y * width);
+		// the drawn pixels next to each other in a row are told to the render buffer at once
+		int runX = 0, runY = -1, runEnd = 0;
+		for (int i = first; i <= last; i++) {
+			int z = (sz >> SHIFT) + depthOffset;
+			if (depthBuffer[pos] > z) {
+				depthBuffer[pos] = z;
+				frameBuffer[pos] = color;
+				if ((y != runY) || (x != runEnd)) {
+					renderBuffer.drawFrameLine(runX, runY, runEnd - runX);
+					runX = x;
+					runY = y;
+				}
+				runEnd = x + 1;
+			}
+			sz += dz;
+			pos += majorStep;
+			e += doubleMinor;
+			if (xMajor) x++; else y++;
+			if (e >= doubleMajor) {
+				e -= doubleMajor;
+				pos += minorStep;
+				if (xMajor) y += step; else x += step;
+			}
 		}
+		renderBuffer.drawFrameLine(runX, runY, runEnd - runX);
+	}
+	
+	// division rounded up for positive values
+	private static long ceilDiv(long value, long divisor) {
+		return (value + divisor - 1) / divisor;
 	}
 	
 	/**
@@ -211,48 +579,57 @@ public class RenderUtils {
 		int[] vp1 = vt1.getLocation();
 		int[] vp2 = vt2.getLocation();
 		int[] vp3 = vt3.getLocation();
-		// get uvs of face
-		int[] uv1 = face.getUV1();
-		int[] uv2 = face.getUV2();
-		int[] uv3 = face.getUV3();
-		// get colors of vertexes
-		int vc1 = vt1.getColor();
-		int vc2 = vt2.getColor();
-		int vc3 = vt3.getColor();
 		// get face color
 		int color = mesh.getMaterial(face.getMaterial()).getColor();
+		drawFaceGouraud(vp1[vx], vp1[vy], vp1[vz], vt1.getColor(),
+						vp2[vx], vp2[vy], vp2[vz], vt2.getColor(),
+						vp3[vx], vp3[vy], vp3[vz], vt3.getColor(),
+						color, getClip(camera), camera, renderBuffer);
+	}
+	
+	/**
+	 * Draws a face with the given projected vertexes on the given {@link Camera} using the gouraud shading technic.
+	 * Only the pixels inside the given clip rectangle are drawn.
+	 * 
+	 * @param x1 x location of the first vertex.
+	 * @param y1 y location of the first vertex.
+	 * @param z1 z location of the first vertex.
+	 * @param vc1 color of the first vertex.
+	 * @param x2 x location of the second vertex.
+	 * @param y2 y location of the second vertex.
+	 * @param z2 z location of the second vertex.
+	 * @param vc2 color of the second vertex.
+	 * @param x3 x location of the third vertex.
+	 * @param y3 y location of the third vertex.
+	 * @param z3 z location of the third vertex.
+	 * @param vc3 color of the third vertex.
+	 * @param color color of the face.
+	 * @param clip clip rectangle in camera space. {minX, minY, maxX, maxY}, max values are exclusive.
+	 * @param camera {@link Camera} to draw on.
+	 * @param renderBuffer {@link RenderBuffer} to use.
+	 */
+	public static void drawFaceGouraud(int x1, int y1, int z1, int vc1, int x2, int y2, int z2, int vc2,
+						int x3, int y3, int z3, int vc3, int color, int[] clip, Camera camera, RenderBuffer renderBuffer) {
 		int tmp = 0;
-		int x1 = vp1[vx], y1 = vp1[vy], z1 = vp1[vz],
-			x2 = vp2[vx], y2 = vp2[vy], z2 = vp2[vz],
-			x3 = vp3[vx], y3 = vp3[vy], z3 = vp3[vz];
-		int u1 = uv1[vx], v1 = uv1[vy],
-			u2 = uv2[vx], v2 = uv2[vy],
-			u3 = uv3[vx], v3 = uv3[vy];
 		// y sorting
 		if (y1 > y2) { tmp = y2; y2 = y1; y1 = tmp; 
 		   				tmp = x2; x2 = x1; x1 = tmp;
 		   				tmp = z2; z2 = z1; z1 = tmp;
-		   				tmp = v2; v2 = v1; v1 = tmp; 
-		   				tmp = u2; u2 = u1; u1 = tmp;
 		   				tmp = vc2; vc2 = vc1; vc1 = tmp;}
 		if (y2 > y3) { tmp = y3; y3 = y2; y2 = tmp; 
 		   				tmp = x3; x3 = x2; x2 = tmp;
 		   				tmp = z3; z3 = z2; z2 = tmp;
-		   				tmp = v3; v3 = v2; v2 = tmp; 
-		   				tmp = u3; u3 = u2; u2 = tmp;
 		   				tmp = vc3; vc3 = vc2; vc2 = tmp;}
 		if (y1 > y2) { tmp = y2; y2 = y1; y1 = tmp; 
 		   				tmp = x2; x2 = x1; x1 = tmp;
 		   				tmp = z2; z2 = z1; z1 = tmp;
-		   				tmp = v2; v2 = v1; v1 = tmp; 
-		   				tmp = u2; u2 = u1; u1 = tmp;
 		   				tmp = vc2; vc2 = vc1; vc1 = tmp;}
-		face(x1, y1, z1, vc1, x2, y2, z2, vc2, x3, y3, z3, vc3, color, camera, renderBuffer);
+		face(x1, y1, z1, vc1, x2, y2, z2, vc2, x3, y3, z3, vc3, color, clip, camera, renderBuffer);
 	}
 	
 	// face drawing and filling with fixed point scanline algorithm that supports gouraud shading
 	static void face(int x1, int y1, int z1, int vc1, int x2, int y2, int z2, int vc2, int x3, int y3, int z3, int vc3,
-							int color, Camera cam, RenderBuffer renderBuffer) {				
+							int color, int[] clip, Camera cam, RenderBuffer renderBuffer) {				
 		// get color values
 		int r1 = ColorUtils.getRed(vc1), g1 = ColorUtils.getGreen(vc1), b1 = ColorUtils.getBlue(vc1), a1 = ColorUtils.getAlpha(vc1);
 		int r2 = ColorUtils.getRed(vc2), g2 = ColorUtils.getGreen(vc2), b2 = ColorUtils.getBlue(vc2), a2 = ColorUtils.getAlpha(vc2);
@@ -319,7 +696,7 @@ public class RenderUtils {
 			}
 			for (int y = 0; y < y2y1; y++) {
 		    	// bitshift right to get right values
-		    	drawHLine(sx >> SHIFT, ex >> SHIFT, sz, dz, sr, dr, sg, dg, sb, db, sa, da, y1 + y, color, cam, renderBuffer);
+		    	drawHLine(sx >> SHIFT, ex >> SHIFT, sz, dz, sr, dr, sg, dg, sb, db, sa, da, y1 + y, color, clip, cam, renderBuffer);
 		    	// increase left and right values by the calculated delta
 		    	sx += dx2; ex += dx1;
 		    	sz += dz2;
@@ -339,7 +716,7 @@ public class RenderUtils {
 				da = ((da3 - da2) << SHIFT) / (dxdx);
 			}
 			for (int y = 0; y < y3y2; y++) {
-				drawHLine(sx >> SHIFT, ex >> SHIFT, sz, dz, sr, dr, sg, dg, sb, db, sa, da, y2 + y, color, cam, renderBuffer);
+				drawHLine(sx >> SHIFT, ex >> SHIFT, sz, dz, sr, dr, sg, dg, sb, db, sa, da, y2 + y, color, clip, cam, renderBuffer);
 				sx += dx2; ex += dx3;
 				sz += dz2;
 				sr += dr2;
@@ -357,7 +734,7 @@ public class RenderUtils {
 				da = ((da2 - da1) << SHIFT) / (dxdx);
 			}
 			for (int y = 0; y < y2y1; y++) {
-	    		drawHLine(sx >> SHIFT, ex >> SHIFT, sz, dz, sr, dr, sg, dg, sb, db, sa, da, y1 + y, color, cam, renderBuffer);
+	    		drawHLine(sx >> SHIFT, ex >> SHIFT, sz, dz, sr, dr, sg, dg, sb, db, sa, da, y1 + y, color, clip, cam, renderBuffer);
 	    		sx += dx1; ex += dx2;
 	    		sz += dz1;
 	    		sr += dr1;
@@ -375,7 +752,7 @@ public class RenderUtils {
 				da = ((da2 - da3) << SHIFT) / (dxdx);
 			}
 			for (int y = 0; y < y3y2; y++) {
-				drawHLine(sx >> SHIFT, ex >> SHIFT, sz, dz, sr, dr, sg, dg, sb, db, sa, da, y2 + y, color, cam, renderBuffer);
+				drawHLine(sx >> SHIFT, ex >> SHIFT, sz, dz, sr, dr, sg, dg, sb, db, sa, da, y2 + y, color, clip, cam, renderBuffer);
 				sx += dx3; ex += dx2;
 				sz += dz3;
 				sr += dr3;
@@ -387,17 +764,53 @@ public class RenderUtils {
 	}
 	
 	static void drawHLine(int sx, int ex, int sz, int dz, int sr, int dr, int sg, int dg, int sb, int db, int sa, int da,
-			int sy, int color, Camera camera, RenderBuffer renderBuffer) {
-		for (; sx < ex; sx++) {
-			int iColor = ColorUtils.convert(sr >> SHIFT, sg >> SHIFT, sb >> SHIFT, sa >> SHIFT);
-			// no need to shift sz as the z test is just check if its a higher value
-			setPixel(sx, sy, sz >> SHIFT, ColorUtils.lerpRBG(iColor, color, 500), camera, renderBuffer);
+			int sy, int color, int[] clip, Camera camera, RenderBuffer renderBuffer) {
+		// skip lines outside of the clip rectangle
+		if (sy < clip[1] || sy >= clip[3]) return;
+		// move the start of the line into the clip rectangle
+		if (sx < clip[0]) {
+			int d = clip[0] - sx;
+			sz += dz * d;
+			sr += dr * d;
+			sg += dg * d;
+			sb += db * d;
+			sa += da * d;
+			sx = clip[0];
+		}
+		if (ex > clip[2]) ex = clip[2];
+		// the line is already clipped, so the buffers are accessed directly
+		int[] frameBuffer = renderBuffer.getFrameBufferData();
+		int[] depthBuffer = renderBuffer.getDepthBuffer();
+		int width = renderBuffer.getWidth();
+		int x1 = camera.getLocationX() + sx;
+		int y = camera.getLocationY() + sy;
+		int pos = x1 + (y * width);
+		int end = Math.min(pos + ex - sx, width * renderBuffer.getHeight());
+		// long lines behind all pixels of the depth tiles they are in are not drawn, 
+		// short lines are drawn without the depth tiles as they would cost more than they save
+		int x2 = x1 + end - pos;
+		int tileRow = end - pos < DEPTH_TILE_LINE ? -1 : getDepthTileRow(y, clip, camera, renderBuffer);
+		int z1 = sz >> SHIFT, z2 = (sz + (dz * (end - pos - 1))) >> SHIFT;
+		if ((tileRow >= 0) && isLineHidden(tileRow, x1, x2, Math.min(z1, z2), clip, camera, renderBuffer))
+			return;
+		// the depth of older generations is always higher than the depth of the current one
+		int depthOffset = renderBuffer.getDepthOffset();
+		// the frameBuffer only clears the parts of the lines that were drawn
+		renderBuffer.drawFrameLine(x1, y, x2 - x1);
+		for (; pos < end; pos++) {
+			int z = (sz >> SHIFT) + depthOffset;
+			// z test before shading so hidden pixels cost nothing
+			if (depthBuffer[pos] > z) {
+				depthBuffer[pos] = z;
+				frameBuffer[pos] = shade(sr >> SHIFT, sg >> SHIFT, sb >> SHIFT, sa >> SHIFT, color);
+			}
 			sz += dz;
 			sr += dr;
 			sg += dg;
 			sb += db;
 			sa += da;
 		}
+		if (tileRow >= 0) drawDepthTiles(tileRow, x1, x2, y, Math.max(z1, z2), clip, camera, renderBuffer);
 	}
 	
 	/**
@@ -427,13 +840,45 @@ public class RenderUtils {
 		int vc3 = vt3.getColor();
 		// get face texture
 		Texture img = mesh.getMaterial(face.getMaterial()).getTexture();
+		drawFaceAffine(vp1[vx], vp1[vy], vp1[vz], vc1, uv1[vx], uv1[vy],
+						vp2[vx], vp2[vy], vp2[vz], vc2, uv2[vx], uv2[vy],
+						vp3[vx], vp3[vy], vp3[vz], vc3, uv3[vx], uv3[vy],
+						img, getClip(camera), camera, renderBuffer);
+	}
+	
+	/**
+	 * Draws a face with the given projected vertexes on the given {@link Camera} using the 
+	 * gouraud shading and affine texture mapping technic.
+	 * Only the pixels inside the given clip rectangle are drawn.
+	 * 
+	 * @param x1 x location of the first vertex.
+	 * @param y1 y location of the first vertex.
+	 * @param z1 z location of the first vertex.
+	 * @param vc1 color of the first vertex.
+	 * @param u1 u coordinate of the first vertex.
+	 * @param v1 v coordinate of the first vertex.
+	 * @param x2 x location of the second vertex.
+	 * @param y2 y location of the second vertex.
+	 * @param z2 z location of the second vertex.
+	 * @param vc2 color of the second vertex.
+	 * @param u2 u coordinate of the second vertex.
+	 * @param v2 v coordinate of the second vertex.
+	 * @param x3 x location of the third vertex.
+	 * @param y3 y location of the third vertex.
+	 * @param z3 z location of the third vertex.
+	 * @param vc3 color of the third vertex.
+	 * @param u3 u coordinate of the third vertex.
+	 * @param v3 v coordinate of the third vertex.
+	 * @param img {@link Texture} of the face.
+	 * @param clip clip rectangle in camera space. {minX, minY, maxX, maxY}, max values are exclusive.
+	 * @param camera {@link Camera} to draw on.
+	 * @param renderBuffer {@link RenderBuffer} to use.
+	 */
+	public static void drawFaceAffine(int x1, int y1, int z1, int vc1, int u1, int v1,
+						int x2, int y2, int z2, int vc2, int u2, int v2,
+						int x3, int y3, int z3, int vc3, int u3, int v3,
+						Texture img, int[] clip, Camera camera, RenderBuffer renderBuffer) {
 		int tmp = 0;
-		int x1 = vp1[vx], y1 = vp1[vy], z1 = vp1[vz],
-			x2 = vp2[vx], y2 = vp2[vy], z2 = vp2[vz],
-			x3 = vp3[vx], y3 = vp3[vy], z3 = vp3[vz];
-		int u1 = uv1[vx], v1 = uv1[vy],
-			u2 = uv2[vx], v2 = uv2[vy],
-			u3 = uv3[vx], v3 = uv3[vy];
 		// y sorting
 		if (y1 > y2) { tmp = y2; y2 = y1; y1 = tmp; 
 		   				tmp = x2; x2 = x1; x1 = tmp;
@@ -453,15 +898,36 @@ public class RenderUtils {
 		   				tmp = v2; v2 = v1; v1 = tmp; 
 		   				tmp = u2; u2 = u1; u1 = tmp;
 		   				tmp = vc2; vc2 = vc1; vc1 = tmp;}
-		faceAffine(x1, y1, z1, vc1, x2, y2, z2, vc2, x3, y3, z3, vc3, u1, v1, u2, v2, u3, v3, img, camera, renderBuffer);
+		faceAffine(x1, y1, z1, vc1, x2, y2, z2, vc2, x3, y3, z3, vc3, u1, v1, u2, v2, u3, v3, img, 0, false, clip, camera, renderBuffer);
 	}
 	
-	// face drawing and filling with fixed point scanline algorithm that supports gouraud shading
+	// returns the mipmap level of the texture that has about one texel for each pixel of the face,
+	// the level is chosen for the whole face so all tiles of the face use the same one
+	static Texture getMipmap(Texture img, int x1, int y1, int u1, int v1, int x2, int y2, int u2, int v2,
+								int x3, int y3, int u3, int v3) {
+		if ((img == null) || (img.getMipmapsCount() == 1))
+			return img;
+		// twice the area of the face on the screen and in the texture, the uv coordinates go from 0 to 128
+		long pixels = Math.abs(((long)(x2 - x1) * (y3 - y1)) - ((long)(x3 - x1) * (y2 - y1)));
+		long uvs = Math.abs(((long)(u2 - u1) * (v3 - v1)) - ((long)(u3 - u1) * (v2 - v1)));
+		long texels = (uvs * img.getWidth() * img.getHeight()) >> 14;
+		int level = 0;
+		// each level has a quarter of the texels of the level before
+		while ((level < img.getMipmapsCount() - 1) && (texels >= (pixels << 2))) {
+			texels >>= 2;
+			level++;
+		}
+		return img.getMipmap(level);
+	}
+	
+	// face drawing and filling with fixed point scanline algorithm that supports gouraud shading, 
+	// if deferred is true the lines are drawn into the G-buffer
 	static void faceAffine(int x1, int y1, int z1, int vc1, int x2, int y2, int z2, int vc2, int x3, int y3, int z3, int vc3,
 								int u1, int v1, int u2, int v2, int u3, int v3,
-								Texture img, Camera cam, RenderBuffer renderBuffer) {
-		// interpolate uv coordinates
-		int w = img.getWidth() - 1, h = img.getHeight() - 1;
+								Texture img, int color, boolean deferred, int[] clip, Camera cam, RenderBuffer renderBuffer) {
+		// interpolate uv coordinates, faces drawn into the G-buffer don't need a texture
+		img = getMipmap(img, x1, y1, u1, v1, x2, y2, u2, v2, x3, y3, u3, v3);
+		int w = img == null ? 0 : getUVWidth(img), h = img == null ? 0 : getUVHeight(img);
 		int sh = 7;
 		u1 = (u1 * w) >> sh; u2 = (u2 * w) >> sh; u3 = (u3 * w) >> sh;
 		v1 = (v1 * h) >> sh; v2 = (v2 * h) >> sh; v3 = (v3 * h) >> sh;
@@ -545,7 +1011,11 @@ public class RenderUtils {
 			}
 		    for (int y = 0; y < y2y1; y++) {
 		    	// bitshift right to get right values
-		    	drawHLineAffine(sx >> SHIFT, ex >> SHIFT, sz, dz, su, du, sv, dv, sr, dr, sg, dg, sb, db, sa, da, y1 + y, img, cam, renderBuffer);
+		    	if (deferred) {
+		    		drawHLineDeferred(sx >> SHIFT, ex >> SHIFT, sz, dz, su, du, sv, dv, sr, dr, sg, dg, sb, db, y1 + y, img, color, clip, cam, renderBuffer);
+		    	} else {
+		    		drawHLineAffine(sx >> SHIFT, ex >> SHIFT, sz, dz, su, du, sv, dv, sr, dr, sg, dg, sb, db, sa, da, y1 + y, img, clip, cam, renderBuffer);
+		    	}
 		    	// increase left and right values by the calculated delta
 				sx += dx2; ex += dx1;
 				sz += dz2;
@@ -569,7 +1039,11 @@ public class RenderUtils {
 				da = ((da3 - da2) << SHIFT) / (dxdx);
 			}
 	    	for (int y = 0; y < y3y2; y++) {
-				drawHLineAffine(sx >> SHIFT, ex >> SHIFT, sz, dz, su, du, sv, dv, sr, dr, sg, dg, sb, db, sa, da, y2 + y, img, cam, renderBuffer);
+				if (deferred) {
+					drawHLineDeferred(sx >> SHIFT, ex >> SHIFT, sz, dz, su, du, sv, dv, sr, dr, sg, dg, sb, db, y2 + y, img, color, clip, cam, renderBuffer);
+				} else {
+					drawHLineAffine(sx >> SHIFT, ex >> SHIFT, sz, dz, su, du, sv, dv, sr, dr, sg, dg, sb, db, sa, da, y2 + y, img, clip, cam, renderBuffer);
+				}
 				sx += dx2; ex += dx3;
 				sz += dz2;
 				su += du2;
@@ -591,7 +1065,11 @@ public class RenderUtils {
 				da = ((da2 - da1) << SHIFT) / (dxdx);
 			}
 	    	for (int y = 0; y < y2y1; y++) {
-				drawHLineAffine(sx >> SHIFT, ex >> SHIFT, sz, dz, su, du, sv, dv, sr, dr, sg, dg, sb, db, sa, da, y1 + y, img, cam, renderBuffer);
+				if (deferred) {
+					drawHLineDeferred(sx >> SHIFT, ex >> SHIFT, sz, dz, su, du, sv, dv, sr, dr, sg, dg, sb, db, y1 + y, img, color, clip, cam, renderBuffer);
+				} else {
+					drawHLineAffine(sx >> SHIFT, ex >> SHIFT, sz, dz, su, du, sv, dv, sr, dr, sg, dg, sb, db, sa, da, y1 + y, img, clip, cam, renderBuffer);
+				}
 				sx += dx1; ex += dx2;
 				sz += dz1;
 				su += du1;
@@ -613,7 +1091,11 @@ public class RenderUtils {
 				da = ((da2 - da3) << SHIFT) / (dxdx);
 			}
 	    	for (int y = 0; y < y3y2; y++) {
-				drawHLineAffine(sx >> SHIFT, ex >> SHIFT, sz, dz, su, du, sv, dv, sr, dr, sg, dg, sb, db, sa, da, y2 + y, img, cam, renderBuffer);
+				if (deferred) {
+					drawHLineDeferred(sx >> SHIFT, ex >> SHIFT, sz, dz, su, du, sv, dv, sr, dr, sg, dg, sb, db, y2 + y, img, color, clip, cam, renderBuffer);
+				} else {
+					drawHLineAffine(sx >> SHIFT, ex >> SHIFT, sz, dz, su, du, sv, dv, sr, dr, sg, dg, sb, db, sa, da, y2 + y, img, clip, cam, renderBuffer);
+				}
 				sx += dx3; ex += dx2;
 				sz += dz3;
 				su += du3;
@@ -628,13 +1110,54 @@ public class RenderUtils {
 	
 	static void drawHLineAffine(int sx, int ex, int sz, int dz, int su, int du, int sv, int dv, int sr,
 								int dr, int sg, int dg, int sb, int db, int sa, int da, int sy,
-								Texture img, Camera camera, RenderBuffer renderBuffer) {
-		for (; sx < ex; sx++) {
-			// get texture pixel / texel color
-			int color = img.getPixel(su >> SHIFT, sv >> SHIFT);
-			int iColor = ColorUtils.convert(sr >> SHIFT, sg >> SHIFT, sb >> SHIFT, sa >> SHIFT);
-			// no need to shift sz as the z test is just check if its a higher value
-			setPixel(sx, sy, sz >> SHIFT, ColorUtils.lerpRBG(iColor, color, 500), camera, renderBuffer);
+								Texture img, int[] clip, Camera camera, RenderBuffer renderBuffer) {
+		// skip lines outside of the clip rectangle
+		if (sy < clip[1] || sy >= clip[3]) return;
+		// move the start of the line into the clip rectangle
+		if (sx < clip[0]) {
+			int d = clip[0] - sx;
+			sz += dz * d;
+			su += du * d;
+			sv += dv * d;
+			sr += dr * d;
+			sg += dg * d;
+			sb += db * d;
+			sa += da * d;
+			sx = clip[0];
+		}
+		if (ex > clip[2]) ex = clip[2];
+		// the line is already clipped, so the buffers are accessed directly
+		int[] frameBuffer = renderBuffer.getFrameBufferData();
+		int[] depthBuffer = renderBuffer.getDepthBuffer();
+		int width = renderBuffer.getWidth();
+		int x1 = camera.getLocationX() + sx;
+		int y = camera.getLocationY() + sy;
+		int pos = x1 + (y * width);
+		int end = Math.min(pos + ex - sx, width * renderBuffer.getHeight());
+		// long lines behind all pixels of the depth tiles they are in are not drawn, 
+		// short lines are drawn without the depth tiles as they would cost more than they save
+		int x2 = x1 + end - pos;
+		int tileRow = end - pos < DEPTH_TILE_LINE ? -1 : getDepthTileRow(y, clip, camera, renderBuffer);
+		int z1 = sz >> SHIFT, z2 = (sz + (dz * (end - pos - 1))) >> SHIFT;
+		if ((tileRow >= 0) && isLineHidden(tileRow, x1, x2, Math.min(z1, z2), clip, camera, renderBuffer))
+			return;
+		int depthOffset = renderBuffer.getDepthOffset();
+		renderBuffer.drawFrameLine(x1, y, x2 - x1);
+		int[] texels = img.getPixels();
+		int texWidth = img.getWidth();
+		int texHeight = img.getHeight();
+		int widthShift = img.getWidthShift();
+		int tileLine = img.getTileLine();
+		int texEnd = texels.length - 1;
+		for (; pos < end; pos++) {
+			int z = (sz >> SHIFT) + depthOffset;
+			// z test before sampling and shading so hidden pixels cost nothing
+			if (depthBuffer[pos] > z) {
+				// get texture pixel / texel color
+				int texel = getTexel(texels, su >> SHIFT, sv >> SHIFT, texWidth, texHeight, widthShift, tileLine, texEnd);
+				depthBuffer[pos] = z;
+				frameBuffer[pos] = shade(sr >> SHIFT, sg >> SHIFT, sb >> SHIFT, sa >> SHIFT, texel);
+			}
 			sz += dz;
 			su += du;
 			sv += dv;
@@ -643,6 +1166,750 @@ public class RenderUtils {
 			sb += db;
 			sa += da;
 		}
+		if (tileRow >= 0) drawDepthTiles(tileRow, x1, x2, y, Math.max(z1, z2), clip, camera, renderBuffer);
+	}
+	
+	/**
+	 * Draws a face with the given projected vertexes into the G-buffer of the given {@link RenderBuffer}, 
+	 * so that it can be lit later by deferred shading. Only the depth, the normal and the unlit color 
+	 * of the pixels are written, the frameBuffer is not changed. 
+	 * The normals are packed like colors, each component in a channel, and are interpolated like colors.
+	 * The texture coordinates are mapped affine.
+	 * Only the pixels inside the given clip rectangle are drawn.
+	 * 
+	 * @param x1 x location of the first vertex.
+	 * @param y1 y location of the first vertex.
+	 * @param z1 z location of the first vertex.
+	 * @param n1 packed normal of the first vertex.
+	 * @param u1 u coordinate of the first vertex.
+	 * @param v1 v coordinate of the first vertex.
+	 * @param x2 x location of the second vertex.
+	 * @param y2 y location of the second vertex.
+	 * @param z2 z location of the second vertex.
+	 * @param n2 packed normal of the second vertex.
+	 * @param u2 u coordinate of the second vertex.
+	 * @param v2 v coordinate of the second vertex.
+	 * @param x3 x location of the third vertex.
+	 * @param y3 y location of the third vertex.
+	 * @param z3 z location of the third vertex.
+	 * @param n3 packed normal of the third vertex.
+	 * @param u3 u coordinate of the third vertex.
+	 * @param v3 v coordinate of the third vertex.
+	 * @param img {@link Texture} of the face, or null to use the given color.
+	 * @param color color of the face if it has no texture.
+	 * @param clip clip rectangle in camera space. {minX, minY, maxX, maxY}, max values are exclusive.
+	 * @param camera {@link Camera} to draw on.
+	 * @param renderBuffer {@link RenderBuffer} to use, its G-buffer needs to be created.
+	 */
+	public static void drawFaceDeferred(int x1, int y1, int z1, int n1, int u1, int v1,
+						int x2, int y2, int z2, int n2, int u2, int v2,
+						int x3, int y3, int z3, int n3, int u3, int v3,
+						Texture img, int color, int[] clip, Camera camera, RenderBuffer renderBuffer) {
+		int tmp = 0;
+		// y sorting
+		if (y1 > y2) { tmp = y2; y2 = y1; y1 = tmp; 
+		   				tmp = x2; x2 = x1; x1 = tmp;
+		   				tmp = z2; z2 = z1; z1 = tmp;
+		   				tmp = v2; v2 = v1; v1 = tmp; 
+		   				tmp = u2; u2 = u1; u1 = tmp;
+		   				tmp = n2; n2 = n1; n1 = tmp;}
+		if (y2 > y3) { tmp = y3; y3 = y2; y2 = tmp; 
+		   				tmp = x3; x3 = x2; x2 = tmp;
+		   				tmp = z3; z3 = z2; z2 = tmp;
+		   				tmp = v3; v3 = v2; v2 = tmp; 
+		   				tmp = u3; u3 = u2; u2 = tmp;
+		   				tmp = n3; n3 = n2; n2 = tmp;}
+		if (y1 > y2) { tmp = y2; y2 = y1; y1 = tmp; 
+		   				tmp = x2; x2 = x1; x1 = tmp;
+		   				tmp = z2; z2 = z1; z1 = tmp;
+		   				tmp = v2; v2 = v1; v1 = tmp; 
+		   				tmp = u2; u2 = u1; u1 = tmp;
+		   				tmp = n2; n2 = n1; n1 = tmp;}
+		faceAffine(x1, y1, z1, n1, x2, y2, z2, n2, x3, y3, z3, n3, u1, v1, u2, v2, u3, v3, img, color, true, clip, camera, renderBuffer);
+	}
+	
+	static void drawHLineDeferred(int sx, int ex, int sz, int dz, int su, int du, int sv, int dv, int sr,
+								int dr, int sg, int dg, int sb, int db, int sy,
+								Texture img, int color, int[] clip, Camera camera, RenderBuffer renderBuffer) {
+		// skip lines outside of the clip rectangle
+		if (sy < clip[1] || sy >= clip[3]) return;
+		// move the start of the line into the clip rectangle
+		if (sx < clip[0]) {
+			int d = clip[0] - sx;
+			sz += dz * d;
+			su += du * d;
+			sv += dv * d;
+			sr += dr * d;
+			sg += dg * d;
+			sb += db * d;
+			sx = clip[0];
+		}
+		if (ex > clip[2]) ex = clip[2];
+		// the line is already clipped, so the buffers are accessed directly
+		int[] normalBuffer = renderBuffer.getNormalBuffer();
+		int[] albedoBuffer = renderBuffer.getAlbedoBuffer();
+		int[] depthBuffer = renderBuffer.getDepthBuffer();
+		int width = renderBuffer.getWidth();
+		int x1 = camera.getLocationX() + sx;
+		int y = camera.getLocationY() + sy;
+		int pos = x1 + (y * width);
+		int end = Math.min(pos + ex - sx, width * renderBuffer.getHeight());
+		// long lines behind all pixels of the depth tiles they are in are not drawn, 
+		// short lines are drawn without the depth tiles as they would cost more than they save
+		int x2 = x1 + end - pos;
+		int tileRow = end - pos < DEPTH_TILE_LINE ? -1 : getDepthTileRow(y, clip, camera, renderBuffer);
+		int z1 = sz >> SHIFT, z2 = (sz + (dz * (end - pos - 1))) >> SHIFT;
+		if ((tileRow >= 0) && isLineHidden(tileRow, x1, x2, Math.min(z1, z2), clip, camera, renderBuffer))
+			return;
+		int depthOffset = renderBuffer.getDepthOffset();
+		int[] texels = img == null ? null : img.getPixels();
+		int texWidth = img == null ? 0 : img.getWidth();
+		int texHeight = img == null ? 0 : img.getHeight();
+		int widthShift = img == null ? -1 : img.getWidthShift();
+		int tileLine = img == null ? 0 : img.getTileLine();
+		int texEnd = img == null ? 0 : texels.length - 1;
+		for (; pos < end; pos++) {
+			int z = (sz >> SHIFT) + depthOffset;
+			if (depthBuffer[pos] > z) {
+				depthBuffer[pos] = z;
+				// the alpha channel tells the lighting pass that the pixel was drawn
+				normalBuffer[pos] = 0xFF000000 | (clampChannel(sr >> SHIFT) << 16)
+									| (clampChannel(sg >> SHIFT) << 8) | clampChannel(sb >> SHIFT);
+				if (texels == null) {
+					albedoBuffer[pos] = color;
+				} else {
+					albedoBuffer[pos] = getTexel(texels, su >> SHIFT, sv >> SHIFT, texWidth, texHeight, widthShift, tileLine, texEnd);
+				}
+			}
+			sz += dz;
+			su += du;
+			sv += dv;
+			sr += dr;
+			sg += dg;
+			sb += db;
+		}
+		if (tileRow >= 0) drawDepthTiles(tileRow, x1, x2, y, Math.max(z1, z2), clip, camera, renderBuffer);
+	}
+	
+	/**
+	 * Draws a face with the given projected vertexes on the given {@link Camera} using the 
+	 * gouraud shading and perspective correct texture mapping technic.
+	 * The texture coordinates are divided by the depth only every subdivision pixels, 
+	 * the pixels in between are mapped affine.
+	 * Only the pixels inside the given clip rectangle are drawn.
+	 * 
+	 * @param x1 x location of the first vertex.
+	 * @param y1 y location of the first vertex.
+	 * @param z1 z location of the first vertex.
+	 * @param vc1 color of the first vertex.
+	 * @param u1 u coordinate of the first vertex.
+	 * @param v1 v coordinate of the first vertex.
+	 * @param x2 x location of the second vertex.
+	 * @param y2 y location of the second vertex.
+	 * @param z2 z location of the second vertex.
+	 * @param vc2 color of the second vertex.
+	 * @param u2 u coordinate of the second vertex.
+	 * @param v2 v coordinate of the second vertex.
+	 * @param x3 x location of the third vertex.
+	 * @param y3 y location of the third vertex.
+	 * @param z3 z location of the third vertex.
+	 * @param vc3 color of the third vertex.
+	 * @param u3 u coordinate of the third vertex.
+	 * @param v3 v coordinate of the third vertex.
+	 * @param img {@link Texture} of the face.
+	 * @param subdivision count of pixels between the perspective divisions.
+	 * @param clip clip rectangle in camera space. {minX, minY, maxX, maxY}, max values are exclusive.
+	 * @param camera {@link Camera} to draw on.
+	 * @param renderBuffer {@link RenderBuffer} to use.
+	 */
+	public static void drawFacePerspective(int x1, int y1, int z1, int vc1, int u1, int v1,
+						int x2, int y2, int z2, int vc2, int u2, int v2,
+						int x3, int y3, int z3, int vc3, int u3, int v3,
+						Texture img, int subdivision, int[] clip, Camera camera, RenderBuffer renderBuffer) {
+		// the depth of vertexes behind the camera can't be used to divide
+		if ((z1 <= 0) || (z2 <= 0) || (z3 <= 0)) {
+			drawFaceAffine(x1, y1, z1, vc1, u1, v1, x2, y2, z2, vc2, u2, v2, x3, y3, z3, vc3, u3, v3,
+							img, clip, camera, renderBuffer);
+			return;
+		}
+		int tmp = 0;
+		// y sorting
+		if (y1 > y2) { tmp = y2; y2 = y1; y1 = tmp; 
+		   				tmp = x2; x2 = x1; x1 = tmp;
+		   				tmp = z2; z2 = z1; z1 = tmp;
+		   				tmp = v2; v2 = v1; v1 = tmp; 
+		   				tmp = u2; u2 = u1; u1 = tmp;
+		   				tmp = vc2; vc2 = vc1; vc1 = tmp;}
+		if (y2 > y3) { tmp = y3; y3 = y2; y2 = tmp; 
+		   				tmp = x3; x3 = x2; x2 = tmp;
+		   				tmp = z3; z3 = z2; z2 = tmp;
+		   				tmp = v3; v3 = v2; v2 = tmp; 
+		   				tmp = u3; u3 = u2; u2 = tmp;
+		   				tmp = vc3; vc3 = vc2; vc2 = tmp;}
+		if (y1 > y2) { tmp = y2; y2 = y1; y1 = tmp; 
+		   				tmp = x2; x2 = x1; x1 = tmp;
+		   				tmp = z2; z2 = z1; z1 = tmp;
+		   				tmp = v2; v2 = v1; v1 = tmp; 
+		   				tmp = u2; u2 = u1; u1 = tmp;
+		   				tmp = vc2; vc2 = vc1; vc1 = tmp;}
+		facePerspective(x1, y1, z1, vc1, x2, y2, z2, vc2, x3, y3, z3, vc3, u1, v1, u2, v2, u3, v3,
+						img, Math.max(subdivision, 1), clip, camera, renderBuffer);
+	}
+	
+	// face drawing and filling with scanline algorithm that supports gouraud shading and perspective correct textures, 
+	// the values are interpolated using the gradients of the face so each line can start anywhere
+	static void facePerspective(int x1, int y1, int z1, int vc1, int x2, int y2, int z2, int vc2, int x3, int y3, int z3, int vc3,
+								int u1, int v1, int u2, int v2, int u3, int v3,
+								Texture img, int subdivision, int[] clip, Camera cam, RenderBuffer renderBuffer) {
+		double area = ((double)(x2 - x1) * (y3 - y1)) - ((double)(y2 - y1) * (x3 - x1));
+		if (area == 0) return;
+		// interpolate uv coordinates
+		img = getMipmap(img, x1, y1, u1, v1, x2, y2, u2, v2, x3, y3, u3, v3);
+		int w = getUVWidth(img), h = getUVHeight(img);
+		int sh = 7;
+		u1 = (u1 * w) >> sh; u2 = (u2 * w) >> sh; u3 = (u3 * w) >> sh;
+		v1 = (v1 * h) >> sh; v2 = (v2 * h) >> sh; v3 = (v3 * h) >> sh;
+		// get color values
+		int r1 = ColorUtils.getRed(vc1), g1 = ColorUtils.getGreen(vc1), b1 = ColorUtils.getBlue(vc1), a1 = ColorUtils.getAlpha(vc1);
+		int r2 = ColorUtils.getRed(vc2), g2 = ColorUtils.getGreen(vc2), b2 = ColorUtils.getBlue(vc2), a2 = ColorUtils.getAlpha(vc2);
+		int r3 = ColorUtils.getRed(vc3), g3 = ColorUtils.getGreen(vc3), b3 = ColorUtils.getBlue(vc3), a3 = ColorUtils.getAlpha(vc3);
+		// 1/z, u/z and v/z are linear in screen space, doubles are used as 
+		// they are only needed at the perspective divisions and would overflow in fixed point
+		double q1 = 1.0 / z1, q2 = 1.0 / z2, q3 = 1.0 / z3;
+		double uq1 = (u1 << SHIFT) * q1, uq2 = (u2 << SHIFT) * q2, uq3 = (u3 << SHIFT) * q3;
+		double vq1 = (v1 << SHIFT) * q1, vq2 = (v2 << SHIFT) * q2, vq3 = (v3 << SHIFT) * q3;
+		// deltas for each x and y location
+		int e2dx = y3 - y1, e3dx = y1 - y2;
+		int e2dy = x1 - x3, e3dy = x2 - x1;
+		double scale = (double)(1 << SHIFT) / area;
+		int dzx = gradient(z1, z2, z3, e2dx, e3dx, scale), dzy = gradient(z1, z2, z3, e2dy, e3dy, scale);
+		int drx = gradient(r1, r2, r3, e2dx, e3dx, scale), dry = gradient(r1, r2, r3, e2dy, e3dy, scale);
+		int dgx = gradient(g1, g2, g3, e2dx, e3dx, scale), dgy = gradient(g1, g2, g3, e2dy, e3dy, scale);
+		int dbx = gradient(b1, b2, b3, e2dx, e3dx, scale), dby = gradient(b1, b2, b3, e2dy, e3dy, scale);
+		int dax = gradient(a1, a2, a3, e2dx, e3dx, scale), day = gradient(a1, a2, a3, e2dy, e3dy, scale);
+		double dqx = (((q2 - q1) * e2dx) + ((q3 - q1) * e3dx)) / area, dqy = (((q2 - q1) * e2dy) + ((q3 - q1) * e3dy)) / area;
+		double duqx = (((uq2 - uq1) * e2dx) + ((uq3 - uq1) * e3dx)) / area, duqy = (((uq2 - uq1) * e2dy) + ((uq3 - uq1) * e3dy)) / area;
+		double dvqx = (((vq2 - vq1) * e2dx) + ((vq3 - vq1) * e3dx)) / area, dvqy = (((vq2 - vq1) * e2dy) + ((vq3 - vq1) * e3dy)) / area;
+		// x deltas for each y location
+		int y2y1 = y2 == y1 ? 1 : y2 - y1;
+		int y3y1 = y3 == y1 ? 1 : y3 - y1;
+		int y3y2 = y3 == y2 ? 1 : y3 - y2;
+		int dx1 = ((x2 - x1) << SHIFT) / y2y1;
+		int dx2 = ((x3 - x1) << SHIFT) / y3y1;
+		int dx3 = ((x3 - x2) << SHIFT) / y3y2;
+		// only the lines inside of the clip rectangle are drawn
+		int minY = Math.max(y1, clip[1]);
+		int maxY = Math.min(y3, clip[3]);
+		for (int y = minY; y < maxY; y++) {
+			// x location of the long edge and the short edge in this line
+			int lx = (x1 << SHIFT) + dx2 * (y - y1);
+			int sx = y < y2 ? (x1 << SHIFT) + dx1 * (y - y1) : (x2 << SHIFT) + dx3 * (y - y2);
+			if (sx > lx) { int tmp = sx; sx = lx; lx = tmp; }
+			sx >>= SHIFT;
+			lx >>= SHIFT;
+			if (sx >= lx) continue;
+			int ox = sx - x1, oy = y - y1;
+			drawHLinePerspective(sx, lx, start(z1, dzx, dzy, ox, oy), dzx,
+					start(r1, drx, dry, ox, oy), drx, start(g1, dgx, dgy, ox, oy), dgx,
+					start(b1, dbx, dby, ox, oy), dbx, start(a1, dax, day, ox, oy), dax,
+					q1 + (dqx * ox) + (dqy * oy), dqx, uq1 + (duqx * ox) + (duqy * oy), duqx,
+					vq1 + (dvqx * ox) + (dvqy * oy), dvqx, y, subdivision, img, clip, cam, renderBuffer);
+		}
+	}
+	
+	static void drawHLinePerspective(int sx, int ex, int sz, int dz, int sr, int dr, int sg, int dg, int sb, int db,
+								int sa, int da, double sq, double dq, double suq, double duq, double svq, double dvq,
+								int sy, int subdivision, Texture img, int[] clip, Camera camera, RenderBuffer renderBuffer) {
+		// skip lines outside of the clip rectangle
+		if (sy < clip[1] || sy >= clip[3]) return;
+		// move the start of the line into the clip rectangle
+		if (sx < clip[0]) {
+			int d = clip[0] - sx;
+			sz += dz * d;
+			sr += dr * d;
+			sg += dg * d;
+			sb += db * d;
+			sa += da * d;
+			sq += dq * d;
+			suq += duq * d;
+			svq += dvq * d;
+			sx = clip[0];
+		}
+		if (ex > clip[2]) ex = clip[2];
+		// the line is already clipped, so the buffers are accessed directly
+		int[] frameBuffer = renderBuffer.getFrameBufferData();
+		int[] depthBuffer = renderBuffer.getDepthBuffer();
+		int width = renderBuffer.getWidth();
+		int x1 = camera.getLocationX() + sx;
+		int y = camera.getLocationY() + sy;
+		int pos = x1 + (y * width);
+		int end = Math.min(pos + ex - sx, width * renderBuffer.getHeight());
+		// long lines behind all pixels of the depth tiles they are in are not drawn, 
+		// short lines are drawn without the depth tiles as they would cost more than they save
+		int x2 = x1 + end - pos;
+		int tileRow = end - pos < DEPTH_TILE_LINE ? -1 : getDepthTileRow(y, clip, camera, renderBuffer);
+		int z1 = sz >> SHIFT, z2 = (sz + (dz * (end - pos - 1))) >> SHIFT;
+		if ((tileRow >= 0) && isLineHidden(tileRow, x1, x2, Math.min(z1, z2), clip, camera, renderBuffer))
+			return;
+		int depthOffset = renderBuffer.getDepthOffset();
+		renderBuffer.drawFrameLine(x1, y, x2 - x1);
+		int[] texels = img.getPixels();
+		int texWidth = img.getWidth();
+		int texHeight = img.getHeight();
+		int widthShift = img.getWidthShift();
+		int tileLine = img.getTileLine();
+		int texEnd = texels.length - 1;
+		// texture coordinates at the start of the line
+		int su = (int)(suq / sq);
+		int sv = (int)(svq / sq);
+		while (pos < end) {
+			int n = Math.min(subdivision, end - pos);
+			// texture coordinates at the end of this part of the line
+			sq += dq * n;
+			suq += duq * n;
+			svq += dvq * n;
+			int eu = (int)(suq / sq);
+			int ev = (int)(svq / sq);
+			// affine texture mapping in between
+			int du = (eu - su) / n;
+			int dv = (ev - sv) / n;
+			for (int segmentEnd = pos + n; pos < segmentEnd; pos++) {
+				int z = (sz >> SHIFT) + depthOffset;
+				// z test before sampling and shading so hidden pixels cost nothing
+				if (depthBuffer[pos] > z) {
+					// get texture pixel / texel color
+					int texel = getTexel(texels, su >> SHIFT, sv >> SHIFT, texWidth, texHeight, widthShift, tileLine, texEnd);
+					depthBuffer[pos] = z;
+					frameBuffer[pos] = shade(sr >> SHIFT, sg >> SHIFT, sb >> SHIFT, sa >> SHIFT, texel);
+				}
+				sz += dz;
+				su += du;
+				sv += dv;
+				sr += dr;
+				sg += dg;
+				sb += db;
+				sa += da;
+			}
+			su = eu;
+			sv = ev;
+		}
+		if (tileRow >= 0) drawDepthTiles(tileRow, x1, x2, y, Math.max(z1, z2), clip, camera, renderBuffer);
+	}
+	
+	/**
+	 * Draws a face with the given projected vertexes on the given {@link Camera} using the gouraud shading technic.
+	 * The face is filled using edge functions, the pixels are tested in blocks of 8x8 pixels 
+	 * so that blocks fully inside or outside of the face don't need to test each pixel.
+	 * Only the pixels inside the given clip rectangle are drawn.
+	 * 
+	 * @param x1 x location of the first vertex.
+	 * @param y1 y location of the first vertex.
+	 * @param z1 z location of the first vertex.
+	 * @param vc1 color of the first vertex.
+	 * @param x2 x location of the second vertex.
+	 * @param y2 y location of the second vertex.
+	 * @param z2 z location of the second vertex.
+	 * @param vc2 color of the second vertex.
+	 * @param x3 x location of the third vertex.
+	 * @param y3 y location of the third vertex.
+	 * @param z3 z location of the third vertex.
+	 * @param vc3 color of the third vertex.
+	 * @param color color of the face.
+	 * @param clip clip rectangle in camera space. {minX, minY, maxX, maxY}, max values are exclusive.
+	 * @param camera {@link Camera} to draw on.
+	 * @param renderBuffer {@link RenderBuffer} to use.
+	 */
+	public static void drawFaceGouraudHalfSpace(int x1, int y1, int z1, int vc1, int x2, int y2, int z2, int vc2,
+						int x3, int y3, int z3, int vc3, int color, int[] clip, Camera camera, RenderBuffer renderBuffer) {
+		drawFaceGouraudHalfSpace(x1, y1, z1, vc1, x2, y2, z2, vc2, x3, y3, z3, vc3, color, 
+								clip, new int[HALFSPACE_LINES], camera, renderBuffer);
+	}
+	
+	/**
+	 * Draws a face with the given projected vertexes on the given {@link Camera} using the gouraud shading technic.
+	 * The face is filled using edge functions, the pixels are tested in blocks of 8x8 pixels 
+	 * so that blocks fully inside or outside of the face don't need to test each pixel.
+	 * Only the pixels inside the given clip rectangle are drawn.
+	 * 
+	 * @param x1 x location of the first vertex.
+	 * @param y1 y location of the first vertex.
+	 * @param z1 z location of the first vertex.
+	 * @param vc1 color of the first vertex.
+	 * @param x2 x location of the second vertex.
+	 * @param y2 y location of the second vertex.
+	 * @param z2 z location of the second vertex.
+	 * @param vc2 color of the second vertex.
+	 * @param x3 x location of the third vertex.
+	 * @param y3 y location of the third vertex.
+	 * @param z3 z location of the third vertex.
+	 * @param vc3 color of the third vertex.
+	 * @param color color of the face.
+	 * @param clip clip rectangle in camera space. {minX, minY, maxX, maxY}, max values are exclusive.
+	 * @param lines array the face lines of each row of blocks are written into, 
+	 * at least {@link #HALFSPACE_LINES} long.
+	 * @param camera {@link Camera} to draw on.
+	 * @param renderBuffer {@link RenderBuffer} to use.
+	 */
+	public static void drawFaceGouraudHalfSpace(int x1, int y1, int z1, int vc1, int x2, int y2, int z2, int vc2,
+						int x3, int y3, int z3, int vc3, int color, int[] clip, int[] lines, 
+						Camera camera, RenderBuffer renderBuffer) {
+		if (!isHalfSpaceSafe(x1, y1, x2, y2, x3, y3)) {
+			drawFaceGouraud(x1, y1, z1, vc1, x2, y2, z2, vc2, x3, y3, z3, vc3, color, clip, camera, renderBuffer);
+			return;
+		}
+		faceHalfSpace(x1, y1, z1, vc1, 0, 0, x2, y2, z2, vc2, 0, 0, x3, y3, z3, vc3, 0, 0,
+						color, null, clip, lines, camera, renderBuffer);
+	}
+	
+	/**
+	 * Draws a face with the given projected vertexes on the given {@link Camera} using the 
+	 * gouraud shading and affine texture mapping technic.
+	 * The face is filled using edge functions, the pixels are tested in blocks of 8x8 pixels 
+	 * so that blocks fully inside or outside of the face don't need to test each pixel.
+	 * Only the pixels inside the given clip rectangle are drawn.
+	 * 
+	 * @param x1 x location of the first vertex.
+	 * @param y1 y location of the first vertex.
+	 * @param z1 z location of the first vertex.
+	 * @param vc1 color of the first vertex.
+	 * @param u1 u coordinate of the first vertex.
+	 * @param v1 v coordinate of the first vertex.
+	 * @param x2 x location of the second vertex.
+	 * @param y2 y location of the second vertex.
+	 * @param z2 z location of the second vertex.
+	 * @param vc2 color of the second vertex.
+	 * @param u2 u coordinate of the second vertex.
+	 * @param v2 v coordinate of the second vertex.
+	 * @param x3 x location of the third vertex.
+	 * @param y3 y location of the third vertex.
+	 * @param z3 z location of the third vertex.
+	 * @param vc3 color of the third vertex.
+	 * @param u3 u coordinate of the third vertex.
+	 * @param v3 v coordinate of the third vertex.
+	 * @param img {@link Texture} of the face.
+	 * @param clip clip rectangle in camera space. {minX, minY, maxX, maxY}, max values are exclusive.
+	 * @param camera {@link Camera} to draw on.
+	 * @param renderBuffer {@link RenderBuffer} to use.
+	 */
+	public static void drawFaceAffineHalfSpace(int x1, int y1, int z1, int vc1, int u1, int v1,
+						int x2, int y2, int z2, int vc2, int u2, int v2,
+						int x3, int y3, int z3, int vc3, int u3, int v3,
+						Texture img, int[] clip, Camera camera, RenderBuffer renderBuffer) {
+		drawFaceAffineHalfSpace(x1, y1, z1, vc1, u1, v1, x2, y2, z2, vc2, u2, v2, x3, y3, z3, vc3, u3, v3,
+								img, clip, new int[HALFSPACE_LINES], camera, renderBuffer);
+	}
+	
+	/**
+	 * Draws a face with the given projected vertexes on the given {@link Camera} using the 
+	 * gouraud shading and affine texture mapping technic.
+	 * The face is filled using edge functions, the pixels are tested in blocks of 8x8 pixels 
+	 * so that blocks fully inside or outside of the face don't need to test each pixel.
+	 * Only the pixels inside the given clip rectangle are drawn.
+	 * 
+	 * @param x1 x location of the first vertex.
+	 * @param y1 y location of the first vertex.
+	 * @param z1 z location of the first vertex.
+	 * @param vc1 color of the first vertex.
+	 * @param u1 u coordinate of the first vertex.
+	 * @param v1 v coordinate of the first vertex.
+	 * @param x2 x location of the second vertex.
+	 * @param y2 y location of the second vertex.
+	 * @param z2 z location of the second vertex.
+	 * @param vc2 color of the second vertex.
+	 * @param u2 u coordinate of the second vertex.
+	 * @param v2 v coordinate of the second vertex.
+	 * @param x3 x location of the third vertex.
+	 * @param y3 y location of the third vertex.
+	 * @param z3 z location of the third vertex.
+	 * @param vc3 color of the third vertex.
+	 * @param u3 u coordinate of the third vertex.
+	 * @param v3 v coordinate of the third vertex.
+	 * @param img {@link Texture} of the face.
+	 * @param clip clip rectangle in camera space. {minX, minY, maxX, maxY}, max values are exclusive.
+	 * @param lines array the face lines of each row of blocks are written into, 
+	 * at least {@link #HALFSPACE_LINES} long.
+	 * @param camera {@link Camera} to draw on.
+	 * @param renderBuffer {@link RenderBuffer} to use.
+	 */
+	public static void drawFaceAffineHalfSpace(int x1, int y1, int z1, int vc1, int u1, int v1,
+						int x2, int y2, int z2, int vc2, int u2, int v2,
+						int x3, int y3, int z3, int vc3, int u3, int v3,
+						Texture img, int[] clip, int[] lines, Camera camera, RenderBuffer renderBuffer) {
+		if (!isHalfSpaceSafe(x1, y1, x2, y2, x3, y3)) {
+			drawFaceAffine(x1, y1, z1, vc1, u1, v1, x2, y2, z2, vc2, u2, v2, x3, y3, z3, vc3, u3, v3,
+							img, clip, camera, renderBuffer);
+			return;
+		}
+		// scale uv coordinates to the texture size
+		img = getMipmap(img, x1, y1, u1, v1, x2, y2, u2, v2, x3, y3, u3, v3);
+		int w = getUVWidth(img), h = getUVHeight(img);
+		int sh = 7;
+		u1 = (u1 * w) >> sh; u2 = (u2 * w) >> sh; u3 = (u3 * w) >> sh;
+		v1 = (v1 * h) >> sh; v2 = (v2 * h) >> sh; v3 = (v3 * h) >> sh;
+		faceHalfSpace(x1, y1, z1, vc1, u1, v1, x2, y2, z2, vc2, u2, v2, x3, y3, z3, vc3, u3, v3,
+						0, img, clip, lines, camera, renderBuffer);
+	}
+	
+	private static boolean isHalfSpaceSafe(int x1, int y1, int x2, int y2, int x3, int y3) {
+		return (Math.abs(x1) <= HALFSPACE_LIMIT) && (Math.abs(y1) <= HALFSPACE_LIMIT)
+			&& (Math.abs(x2) <= HALFSPACE_LIMIT) && (Math.abs(y2) <= HALFSPACE_LIMIT)
+			&& (Math.abs(x3) <= HALFSPACE_LIMIT) && (Math.abs(y3) <= HALFSPACE_LIMIT);
+	}
+	
+	// face filling with edge functions and 8x8 block traversal, 
+	// the pixels are textured if img is not null else they are lerped with the given color
+	static void faceHalfSpace(int x1, int y1, int z1, int vc1, int u1, int v1,
+							int x2, int y2, int z2, int vc2, int u2, int v2,
+							int x3, int y3, int z3, int vc3, int u3, int v3,
+							int color, Texture img, int[] clip, int[] lines, Camera cam, RenderBuffer renderBuffer) {
+		int area = ((x2 - x1) * (y3 - y1)) - ((y2 - y1) * (x3 - x1));
+		if (area == 0) return;
+		if (area < 0) {
+			// swap two vertexes so that the inside of the face is positive for all edges
+			int tmp = 0;
+			tmp = x3; x3 = x2; x2 = tmp;
+			tmp = y3; y3 = y2; y2 = tmp;
+			tmp = z3; z3 = z2; z2 = tmp;
+			tmp = vc3; vc3 = vc2; vc2 = tmp;
+			tmp = u3; u3 = u2; u2 = tmp;
+			tmp = v3; v3 = v2; v2 = tmp;
+			area = -area;
+		}
+		// bounding box clipped against the clip rectangle, max values are exclusive
+		int minX = Math.max(Math.min(x1, Math.min(x2, x3)), clip[0]);
+		int minY = Math.max(Math.min(y1, Math.min(y2, y3)), clip[1]);
+		int maxX = Math.min(Math.max(x1, Math.max(x2, x3)) + 1, clip[2]);
+		int maxY = Math.min(Math.max(y1, Math.max(y2, y3)) + 1, clip[3]);
+		if ((minX >= maxX) || (minY >= maxY)) return;
+		// edge function deltas for each x and y location, 
+		// edge 1 is opposite to vertex 1, edge 2 to vertex 2 and edge 3 to vertex 3
+		int e1dx = y2 - y3, e1dy = x3 - x2;
+		int e2dx = y3 - y1, e2dy = x1 - x3;
+		int e3dx = y1 - y2, e3dy = x2 - x1;
+		// top left fill rule, pixels on other edges are not drawn so shared edges are only drawn once
+		int bias1 = isTopLeft(e1dx, e1dy) ? 0 : -1;
+		int bias2 = isTopLeft(e2dx, e2dy) ? 0 : -1;
+		int bias3 = isTopLeft(e3dx, e3dy) ? 0 : -1;
+		// get color values
+		int r1 = ColorUtils.getRed(vc1), g1 = ColorUtils.getGreen(vc1), b1 = ColorUtils.getBlue(vc1), a1 = ColorUtils.getAlpha(vc1);
+		int r2 = ColorUtils.getRed(vc2), g2 = ColorUtils.getGreen(vc2), b2 = ColorUtils.getBlue(vc2), a2 = ColorUtils.getAlpha(vc2);
+		int r3 = ColorUtils.getRed(vc3), g3 = ColorUtils.getGreen(vc3), b3 = ColorUtils.getBlue(vc3), a3 = ColorUtils.getAlpha(vc3);
+		// deltas for each x and y location, only one division per face
+		double scale = (double)(1 << SHIFT) / area;
+		int dzx = gradient(z1, z2, z3, e2dx, e3dx, scale), dzy = gradient(z1, z2, z3, e2dy, e3dy, scale);
+		int dux = 0, duy = 0, dvx = 0, dvy = 0;
+		if (img != null) {
+			dux = gradient(u1, u2, u3, e2dx, e3dx, scale); duy = gradient(u1, u2, u3, e2dy, e3dy, scale);
+			dvx = gradient(v1, v2, v3, e2dx, e3dx, scale); dvy = gradient(v1, v2, v3, e2dy, e3dy, scale);
+		}
+		int drx = gradient(r1, r2, r3, e2dx, e3dx, scale), dry = gradient(r1, r2, r3, e2dy, e3dy, scale);
+		int dgx = gradient(g1, g2, g3, e2dx, e3dx, scale), dgy = gradient(g1, g2, g3, e2dy, e3dy, scale);
+		int dbx = gradient(b1, b2, b3, e2dx, e3dx, scale), dby = gradient(b1, b2, b3, e2dy, e3dy, scale);
+		int dax = gradient(a1, a2, a3, e2dx, e3dx, scale), day = gradient(a1, a2, a3, e2dy, e3dy, scale);
+		// start and end of the face in each line of the current row of blocks
+		for (int by = minY; by < maxY; by += BLOCK_SIZE) {
+			int bh = Math.min(BLOCK_SIZE, maxY - by);
+			for (int i = 0; i < bh; i++) {
+				lines[i * 2] = maxX;
+				lines[i * 2 + 1] = minX;
+			}
+			for (int bx = minX; bx < maxX; bx += BLOCK_SIZE) {
+				int ex = Math.min(bx + BLOCK_SIZE, maxX);
+				int bw = ex - bx - 1;
+				// edge functions at the top left pixel of the block
+				int e1 = ((x3 - x2) * (by - y2)) - ((y3 - y2) * (bx - x2)) + bias1;
+				int e2 = ((x1 - x3) * (by - y3)) - ((y1 - y3) * (bx - x3)) + bias2;
+				int e3 = ((x2 - x1) * (by - y1)) - ((y2 - y1) * (bx - x1)) + bias3;
+				// the extreme values of a linear function are at the corners of the block
+				int e1min = e1 + Math.min(e1dx * bw, 0) + Math.min(e1dy * (bh - 1), 0);
+				int e2min = e2 + Math.min(e2dx * bw, 0) + Math.min(e2dy * (bh - 1), 0);
+				int e3min = e3 + Math.min(e3dx * bw, 0) + Math.min(e3dy * (bh - 1), 0);
+				int e1max = e1 + Math.max(e1dx * bw, 0) + Math.max(e1dy * (bh - 1), 0);
+				int e2max = e2 + Math.max(e2dx * bw, 0) + Math.max(e2dy * (bh - 1), 0);
+				int e3max = e3 + Math.max(e3dx * bw, 0) + Math.max(e3dy * (bh - 1), 0);
+				// skip blocks that are fully outside of an edge, the or is negative if one value is negative
+				if ((e1max | e2max | e3max) < 0) continue;
+				// blocks fully inside all edges don't need to test each pixel
+				boolean inside = (e1min | e2min | e3min) >= 0;
+				for (int i = 0; i < bh; i++) {
+					int sx = bx;
+					int lx = ex;
+					if (!inside) {
+						// find the pixels of the face in this line, only the edges are needed to find them
+						int pe1 = e1, pe2 = e2, pe3 = e3;
+						while ((sx < ex) && ((pe1 | pe2 | pe3) < 0)) {
+							pe1 += e1dx; pe2 += e2dx; pe3 += e3dx;
+							sx++;
+						}
+						// the face is convex so the line ends at the first pixel outside of it
+						lx = sx;
+						while ((lx < ex) && ((pe1 | pe2 | pe3) >= 0)) {
+							pe1 += e1dx; pe2 += e2dx; pe3 += e3dx;
+							lx++;
+						}
+					}
+					if (sx < lx) {
+						// the parts of the line in the blocks are next to each other as the face is convex
+						if (sx < lines[i * 2]) lines[i * 2] = sx;
+						if (lx > lines[i * 2 + 1]) lines[i * 2 + 1] = lx;
+					}
+					e1 += e1dy; e2 += e2dy; e3 += e3dy;
+				}
+			}
+			// values at the left side of the bounding box in the first line of this row of blocks
+			int ox = minX - x1, oy = by - y1;
+			int sz = start(z1, dzx, dzy, ox, oy), su = start(u1, dux, duy, ox, oy), sv = start(v1, dvx, dvy, ox, oy);
+			int sr = start(r1, drx, dry, ox, oy), sg = start(g1, dgx, dgy, ox, oy);
+			int sb = start(b1, dbx, dby, ox, oy), sa = start(a1, dax, day, ox, oy);
+			// draw the lines of this row of blocks
+			for (int i = 0; i < bh; i++) {
+				int sx = lines[i * 2];
+				int lx = lines[i * 2 + 1];
+				if (sx < lx) {
+					int d = sx - minX;
+					if (img == null) {
+						drawHLine(sx, lx, sz + dzx * d, dzx, sr + drx * d, drx, sg + dgx * d, dgx,
+								sb + dbx * d, dbx, sa + dax * d, dax, by + i, color, clip, cam, renderBuffer);
+					} else {
+						drawHLineAffine(sx, lx, sz + dzx * d, dzx, su + dux * d, dux, sv + dvx * d, dvx,
+								sr + drx * d, drx, sg + dgx * d, dgx, sb + dbx * d, dbx, sa + dax * d, dax,
+								by + i, img, clip, cam, renderBuffer);
+					}
+				}
+				sz += dzy; su += duy; sv += dvy;
+				sr += dry; sg += dgy; sb += dby; sa += day;
+			}
+		}
+	}
+	
+	// edges going up or horizontal edges going right, the winding is already fixed
+	private static boolean isTopLeft(int edx, int edy) {
+		return (edx > 0) || ((edx == 0) && (edy > 0));
+	}
+	
+	// fixed point delta of a value interpolated with the edge functions of vertex 2 and 3
+	private static int gradient(int value1, int value2, int value3, int e2d, int e3d, double scale) {
+		return (int)((((long)(value2 - value1) * e2d) + ((long)(value3 - value1) * e3d)) * scale);
+	}
+	
+	// fixed point value at the given offset to vertex 1
+	private static int start(int value1, int dx, int dy, int ox, int oy) {
+		return (int)(((long)value1 << SHIFT) + ((long)dx * ox) + ((long)dy * oy));
+	}
+	
+	// index of the first depth tile of the line in the given RenderBuffer, or -1 if the tiles of the line 
+	// are not completely inside of the clip rectangle, the other parts of them could be drawn by other threads
+	private static int getDepthTileRow(int y, int[] clip, Camera camera, RenderBuffer renderBuffer) {
+		int top = (y >> RenderBuffer.DEPTH_TILE_SHIFT) << RenderBuffer.DEPTH_TILE_SHIFT;
+		int bottom = top + (1 << RenderBuffer.DEPTH_TILE_SHIFT);
+		if ((top < camera.getLocationY() + clip[1])
+				|| (bottom > Math.min(camera.getLocationY() + clip[3], renderBuffer.getHeight())))
+			return -1;
+		return (y >> RenderBuffer.DEPTH_TILE_SHIFT) * renderBuffer.getDepthTilesX();
+	}
+	
+	// first depth tile in the x axis that is completely inside of the clip rectangle
+	private static int getFirstDepthTile(int[] clip, Camera camera) {
+		int left = Math.max(camera.getLocationX() + clip[0], 0);
+		return (left + (1 << RenderBuffer.DEPTH_TILE_SHIFT) - 1) >> RenderBuffer.DEPTH_TILE_SHIFT;
+	}
+	
+	// depth tile in the x axis after the last one that is completely inside of the clip rectangle
+	private static int getLastDepthTile(int[] clip, Camera camera, RenderBuffer renderBuffer) {
+		int right = Math.min(camera.getLocationX() + clip[2], renderBuffer.getWidth());
+		return right >> RenderBuffer.DEPTH_TILE_SHIFT;
+	}
+	
+	// true if the pixels x1 to x2 of the line are behind all pixels of the depth tiles they are in
+	private static boolean isLineHidden(int tileRow, int x1, int x2, int depth, int[] clip, Camera camera, RenderBuffer renderBuffer) {
+		int first = x1 >> RenderBuffer.DEPTH_TILE_SHIFT;
+		int last = (x2 - 1) >> RenderBuffer.DEPTH_TILE_SHIFT;
+		if ((first < getFirstDepthTile(clip, camera)) || (last >= getLastDepthTile(clip, camera, renderBuffer)))
+			return false;
+		for (int i = first; i <= last; i++) {
+			if (renderBuffer.getDepthTileMax(tileRow + i) > depth)
+				return false;
+		}
+		return true;
+	}
+	
+	// tells the depth tiles that are completely inside of the clip rectangle 
+	// that the pixels x1 to x2 of the line were drawn with the given max depth
+	private static void drawDepthTiles(int tileRow, int x1, int x2, int y, int depth, int[] clip, Camera camera, RenderBuffer renderBuffer) {
+		int first = Math.max(x1 >> RenderBuffer.DEPTH_TILE_SHIFT, getFirstDepthTile(clip, camera));
+		int last = Math.min((x2 - 1) >> RenderBuffer.DEPTH_TILE_SHIFT, getLastDepthTile(clip, camera, renderBuffer) - 1);
+		for (int i = first; i <= last; i++) {
+			int start = Math.max(x1, i << RenderBuffer.DEPTH_TILE_SHIFT);
+			int stop = Math.min(x2, (i + 1) << RenderBuffer.DEPTH_TILE_SHIFT);
+			renderBuffer.drawDepthTile(tileRow + i, start, y, stop - start, depth);
+		}
+	}
+	
+	// returns the texel at the given texture coordinates, the texels are stored line by line if tileLine is 0 
+	// or else in tiles, the branches are the same for the whole line so they cost almost nothing.
+	// the coordinates wrap around with masks if the texture size is a power of two (widthShift >= 0), 
+	// this is the same as Texture.getIndex
+	private static int getTexel(int[] texels, int u, int v, int texWidth, int texHeight, int widthShift, int tileLine, int texEnd) {
+		if (widthShift >= 0) {
+			u &= texWidth - 1;
+			v &= texHeight - 1;
+			if (tileLine == 0)
+				return texels[u + (v << widthShift)];
+		} else if (tileLine == 0) {
+			return texels[Math.min(clampMin(u + (v * texWidth)), texEnd)];
+		} else {
+			u = Math.min(clampMin(u), texWidth - 1);
+			v = Math.min(clampMin(v), texHeight - 1);
+		}
+		return texels[((v >> Texture.TILE_SHIFT) * tileLine) + ((u >> Texture.TILE_SHIFT) << (Texture.TILE_SHIFT * 2))
+						+ ((v & (Texture.TILE_SIZE - 1)) << Texture.TILE_SHIFT) + (u & (Texture.TILE_SIZE - 1))];
+	}
+	
+	// the uv coordinates 0 - 128 are scaled to 0 - getUVWidth, textures that wrap around are scaled 
+	// to their full size so that the next repetition starts exactly after the last texel
+	private static int getUVWidth(Texture img) {
+		return img.isWrapped() ? img.getWidth() : img.getWidth() - 1;
+	}
+	
+	private static int getUVHeight(Texture img) {
+		return img.isWrapped() ? img.getHeight() : img.getHeight() - 1;
+	}
+	
+	/**
+	 * Returns the color of a pixel with the given color lit by the given shade. 
+	 * The result is the same as ColorUtils.lerpRBG(shade, color, 500), 
+	 * but each channel is looked up in a table instead of calculated.
+	 * 
+	 * @param shade shade of the pixel, the color of the lights reaching it.
+	 * @param color color of the pixel, the color of the material or the texel.
+	 * @return lit color of the pixel.
+	 */
+	public static int shadeColor(int shade, int color) {
+		return shade((shade >> 16) & 0xFF, (shade >> 8) & 0xFF, shade & 0xFF, (shade >> 24) & 0xFF, color);
+	}
+	
+	// same result as ColorUtils.lerpRBG(ColorUtils.convert(r, g, b, a), color, 500) 
+	// but without unpacking the color of the vertexes and without branches, 
+	// the clamped shade selects a line of the shadeLUT that is indexed by the color channel
+	private static int shade(int r, int g, int b, int a, int color) {
+		r = clampChannel(r) << 8;
+		g = clampChannel(g) << 8;
+		b = clampChannel(b) << 8;
+		return (clampChannel(a) << 24)
+				| ((shadeLUT[r | ((color >> 16) & 0xFF)] & 0xFF) << 16)
+				| ((shadeLUT[g | ((color >> 8) & 0xFF)] & 0xFF) << 8)
+				| (shadeLUT[b | (color & 0xFF)] & 0xFF);
+	}
+	
+	// clamps the value to 0 - 255 without branches
+	private static int clampChannel(int value) {
+		value &= ~(value >> 31);
+		return (value | ((255 - value) >> 31)) & 0xFF;
+	}
+	
+	// clamps negative values to 0 without branches
+	private static int clampMin(int value) {
+		return value & ~(value >> 31);
 	}
 	
 	/**
@@ -661,4 +1928,33 @@ public class RenderUtils {
 			renderBuffer.setPixel(camera.getLocationX() + x, camera.getLocationY() + y, z, color);
 		}
 	}
+	
+	/**
+	 * Sets a pixel in the RenderBuffer with given coordinates taking in account the camera, 
+	 * but only if it is inside the given clip rectangle.
+	 * 
+	 * @param x location of pixel in the x axis.
+	 * @param y location of pixel in the y axis.
+	 * @param z location of pixel in the z axis.
+	 * @param color color of pixel.
+	 * @param clip clip rectangle in camera space. {minX, minY, maxX, maxY}, max values are exclusive.
+	 * @param camera {@link Camera} to draw on.
+	 * @param renderBuffer {@link RenderBuffer} to use.
+	 */
+	public static void setPixel(int x, int y, int z, int color, int[] clip, Camera camera, RenderBuffer renderBuffer) {
+		if (x >= clip[0] && x < clip[2] && y >= clip[1] && y < clip[3]) {
+			renderBuffer.setPixel(camera.getLocationX() + x, camera.getLocationY() + y, z, color);
+		}
+	}
+	
+	/**
+	 * Returns the clip rectangle of the given {@link Camera}. 
+	 * This rectangle contains all pixels that can be drawn on the camera.
+	 * 
+	 * @param camera {@link Camera}.
+	 * @return clip rectangle in camera space. {minX, minY, maxX, maxY}, max values are exclusive.
+	 */
+	public static int[] getClip(Camera camera) {
+		return new int[] {1, 1, camera.getWidth(), camera.getHeight()};
+	}
 }
@@ -0,0 +1,95 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 John Salomon - John´s Project
+ *  
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.johnsproject.jpge.utils;
+
+/**
+ * The SortUtils class provides fast methods for sorting. 
+ * The caller provides the temporary arrays so they can be reused.
+ * 
+ * @author John´s Project - John Salomon
+ * 
+ */
+public class SortUtils {
+	
+	private static final int RADIX_BITS = 8;
+	private static final int RADIX = 1 << RADIX_BITS;
+	private static final int RADIX_MASK = RADIX - 1;
+	
+	/**
+	 * Min length of the counts array used by {@link #radixSort}.
+	 */
+	public static final int RADIX_SORT_COUNTS = RADIX;
+	
+	/**
+	 * Sorts the first count values of the given values array by the keys at the same index 
+	 * in the keys array from the lowest to the highest key. Values with the same key stay in 
+	 * the same order. The keys array is sorted too. <br>
+	 * This is a radix sort, it takes linear time as it never compares two keys.
+	 * 
+	 * @param keys keys of the values to sort.
+	 * @param values values to sort.
+	 * @param count count of values to sort.
+	 * @param tempKeys temporary array, at least count long.
+	 * @param tempValues temporary array, at least count long.
+	 * @param counts temporary array, at least {@link #RADIX_SORT_COUNTS} long.
+	 */
+	public static void radixSort(int[] keys, int[] values, int count, int[] tempKeys, int[] tempValues, int[] counts) {
+		int[] srcKeys = keys, srcValues = values;
+		int[] dstKeys = tempKeys, dstValues = tempValues;
+		for (int shift = 0; shift < 32; shift += RADIX_BITS) {
+			// the sign bit is flipped so negative keys are sorted before positive ones
+			int flip = shift == 32 - RADIX_BITS ? RADIX >> 1 : 0;
+			for (int i = 0; i < RADIX; i++) {
+				counts[i] = 0;
+			}
+			for (int i = 0; i < count; i++) {
+				counts[((srcKeys[i] >> shift) & RADIX_MASK) ^ flip]++;
+			}
+			// skip this digit if all keys have the same one
+			if ((count == 0) || (counts[((srcKeys[0] >> shift) & RADIX_MASK) ^ flip] == count))
+				continue;
+			int sum = 0;
+			for (int i = 0; i < RADIX; i++) {
+				int c = counts[i];
+				counts[i] = sum;
+				sum += c;
+			}
+			for (int i = 0; i < count; i++) {
+				int index = counts[((srcKeys[i] >> shift) & RADIX_MASK) ^ flip]++;
+				dstKeys[index] = srcKeys[i];
+				dstValues[index] = srcValues[i];
+			}
+			int[] tmp = srcKeys;
+			srcKeys = dstKeys;
+			dstKeys = tmp;
+			tmp = srcValues;
+			srcValues = dstValues;
+			dstValues = tmp;
+		}
+		if (srcKeys != keys) {
+			System.arraycopy(srcKeys, 0, keys, 0, count);
+			System.arraycopy(srcValues, 0, values, 0, count);
+		}
+	}
+}
@@ -0,0 +1,171 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 John Salomon - John´s Project
+ *  
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.johnsproject.jpge;
+
+import org.junit.Test;
+
+import com.johnsproject.jpge.dto.Camera;
+import com.johnsproject.jpge.dto.Light;
+import com.johnsproject.jpge.dto.Mesh;
+import com.johnsproject.jpge.dto.RenderBuffer;
+import com.johnsproject.jpge.dto.SceneObject;
+import com.johnsproject.jpge.dto.Transform;
+import com.johnsproject.jpge.graphics.Renderer;
+import com.johnsproject.jpge.graphics.ResolutionScaler;
+import com.johnsproject.jpge.io.SOMImporter;
+
+/**
+ * Test class for {@link Engine}.
+ * 
+ * @author John's Project - John Salomon
+ *
+ */
+public class EngineTest {
+	
+	@Test
+	public void headlessTest() throws Exception {
+		Engine engine = new Engine(true);
+		assert(engine.isHeadless());
+		assert(!engine.isPlaying());
+		fillScene(engine);
+		engine.step(10);
+		assert(engine.renderFrame() > 0);
+		assert(engine.getRenderBuffer().getPixel(160, 120) != 0);
+	}
+	
+	@Test
+	public void swapChainTest() throws Exception {
+		Engine engine = new Engine(true);
+		fillScene(engine);
+		engine.renderFrame();
+		RenderBuffer front = engine.getFrontRenderBuffer();
+		assert(front == engine.getRenderBuffer());
+		assert(front.getPixel(160, 120) != 0);
+		// frames rendered while the front buffer is shown don't touch it
+		engine.setRenderBufferSize(160, 120);
+		engine.renderFrame();
+		engine.renderFrame();
+		assert(front != engine.getRenderBuffer());
+		assert(front.getWidth() == 320);
+		assert(engine.getRenderBuffer().getWidth() == 160);
+		assert(engine.getFrontRenderBuffer() == engine.getRenderBuffer());
+	}
+	
+	@Test
+	public void resolutionScalerTest() throws Exception {
+		Engine engine = new Engine(true);
+		fillScene(engine);
+		ResolutionScaler scaler = new ResolutionScaler(1000);
+		scaler.setScale(50);
+		engine.setResolutionScaler(scaler);
+		engine.renderFrame();
+		RenderBuffer renderBuffer = engine.getRenderBuffer();
+		int[] depthBuffer = renderBuffer.getDepthBuffer();
+		assert(renderBuffer.getWidth() == 160);
+		assert(renderBuffer.getCapacity() == 320 * 240);
+		assert(engine.getScene().getCameras().get(0).getWidth() == 160);
+		assert(renderBuffer.getPixel(80, 60) != 0);
+		// the buffers are reused when the scale changes, 
+		// without a reader the engine renders into two buffers by turns
+		engine.renderFrame();
+		scaler.setScale(80);
+		engine.renderFrame();
+		assert(engine.getRenderBuffer() == renderBuffer);
+		assert(renderBuffer.getWidth() == 256);
+		assert(renderBuffer.getDepthBuffer() == depthBuffer);
+	}
+	
+	@Test
+	public void damageTest() throws Exception {
+		Engine engine = new Engine(true);
+		fillScene(engine);
+		// without a reader the engine renders into two buffers by turns, 
+		// so both of them are drawn completely once
+		int faces = engine.renderFrame();
+		assert(faces > 0);
+		assert(engine.renderFrame() == faces);
+		for (int i = 0; i < 4; i++) {
+			assert(engine.renderFrame() < faces);
+			assert(engine.getRenderBuffer().getPixel(160, 120) != 0);
+		}
+		// each buffer draws again what changed since it was last drawn
+		Transform transform = engine.getScene().getSceneObjects().get(0).getTransform();
+		for (int i = 0; i < 4; i++) {
+			transform.setLocation((i + 1) * 300, 0, 0);
+			assert(engine.renderFrame() > 0);
+			RenderBuffer expected = new RenderBuffer(320, 240);
+			new Renderer(new TaskRunner(1)).render(engine.getScene(), expected);
+			for (int j = 0; j < 320 * 240; j++) {
+				assert(engine.getRenderBuffer().getFrameBufferData()[j] == expected.getFrameBufferData()[j]);
+			}
+		}
+	}
+	
+	@Test
+	public void schedulerTest() throws Exception {
+		EngineScheduler scheduler = new EngineScheduler(2);
+		Engine engine1 = new Engine(scheduler);
+		Engine engine2 = new Engine(scheduler);
+		fillScene(engine1);
+		fillScene(engine2);
+		Thread.sleep(500);
+		engine1.pause();
+		engine2.pause();
+		scheduler.shutdown();
+		assert(engine1.getScheduler() == scheduler);
+		// the scene doesn't change, so the last frames draw nothing again but still show it
+		assert(engine1.getRenderBuffer().getPixel(160, 120) != 0);
+		assert(engine2.getRenderBuffer().getPixel(160, 120) != 0);
+	}
+	
+	@Test
+	public void sceneLockTest() throws Exception {
+		EngineScheduler scheduler = new EngineScheduler(2);
+		final Engine engine = new Engine(scheduler);
+		fillScene(engine);
+		final int[] updates = new int[2];
+		engine.addJPGEListener(new JPGE() {
+			@Override
+			public void update() {
+				// the physics can't copy the transform while the listener moves the object
+				updates[0]++;
+				if (Thread.holdsLock(engine.getSceneLock())) updates[1]++;
+				engine.getScene().getSceneObjects().get(0).getTransform().translate(1, 1, 1);
+			}
+		});
+		Thread.sleep(300);
+		engine.pause();
+		scheduler.shutdown();
+		assert((updates[0] > 0) && (updates[0] == updates[1]));
+	}
+	
+	private void fillScene(Engine engine) throws Exception {
+		Mesh mesh = SOMImporter.load(getClass().getResourceAsStream(Mesh.RESOURCES_CUBE));
+		SceneObject sceneObject = new SceneObject("test", new Transform(new int[] {0, 0, 0}, new int[] {30, 30, 0}, new int[] {1, 1, 1}), mesh);
+		sceneObject.getRigidbody().useGravity(false);
+		engine.getScene().addSceneObject(sceneObject);
+		engine.getScene().addCamera(new Camera("testCam", new Transform(new int[] {0, 0, -5000}, new int[] {0, 0, 0}, new int[] {1, 1, 1}), 0, 0, 320, 240));
+		engine.getScene().addLight(new Light("testLight", new Transform(new int[] {0, 0, 0}, new int[] {0, 0, 0}, new int[] {1, 1, 1})));
+	}
+}
@@ -78,7 +78,7 @@ public class ExampleScene implements JPGE, JPGEKeyListener, JPGEMouseListener{
 		camera2 = new Camera("testCam2", new Transform(new int[] {0, -10000, 0}, new int[] {90, 0, 0}, new int[] {1, 1, 1}), renderWidth-(renderWidth/3), 0, renderWidth/3, renderHeight/3);	
 		light = new Light("testLight", new Transform(new int[] {0, 0, 0}, new int[] {0, 0, 0}, new int[] {1, 1, 1}));
 		Engine.getInstance().setSceneWindow(new SceneWindow(windowWidth, windowHeight));
-		Engine.getInstance().getRenderBuffer().setSize(renderWidth, renderHeight);
+		Engine.getInstance().setRenderBufferSize(renderWidth, renderHeight);
 		Engine.getInstance().getScene().addLight(light);
 		Engine.getInstance().getScene().addSceneObject(sceneObject1);
 		Engine.getInstance().getScene().addSceneObject(sceneObject2);
@@ -181,6 +181,10 @@ public class ExampleScene implements JPGE, JPGEKeyListener, JPGEMouseListener{
 			sceneObject1.getShader().setDrawingType(Shader.DRAW_TEXTURED);
 			sceneObject2.getShader().setDrawingType(Shader.DRAW_TEXTURED);
 			break;
+		case '5':
+			sceneObject1.getShader().setDrawingType(Shader.DRAW_TEXTURED_PERSPECTIVE);
+			sceneObject2.getShader().setDrawingType(Shader.DRAW_TEXTURED_PERSPECTIVE);
+			break;
 		case '6':
 			sceneObject1.getShader().setProjectionType(Shader.PROJECT_ORTHOGRAPHIC);
 			sceneObject2.getShader().setProjectionType(Shader.PROJECT_ORTHOGRAPHIC);
@@ -0,0 +1,59 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 John Salomon - John´s Project
+ *  
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.johnsproject.jpge;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link FixedTimestep}.
+ * 
+ * @author John's Project - John Salomon
+ *
+ */
+public class FixedTimestepTest {
+	
+	@Test
+	public void firstStartTest() throws Exception {
+		FixedTimestep timestep = new FixedTimestep(30, 5);
+		assert(timestep.start() == 1);
+		assert(timestep.finish() > 0);
+	}
+	
+	@Test
+	public void highRateTest() throws Exception {
+		FixedTimestep timestep = new FixedTimestep(2000, 1);
+		assert(timestep.getStepTime() == 500000);
+	}
+	
+	@Test
+	public void catchUpTest() throws Exception {
+		FixedTimestep timestep = new FixedTimestep(1000, 3);
+		timestep.start();
+		timestep.finish();
+		Thread.sleep(20);
+		assert(timestep.start() == 3);
+		assert(timestep.getLastOverrunTime() > 0);
+		assert(timestep.finish() >= 0);
+	}
+}
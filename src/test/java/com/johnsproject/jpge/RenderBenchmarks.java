@@ -0,0 +1,147 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 John Salomon - John´s Project
+ *  
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.johnsproject.jpge;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.johnsproject.jpge.dto.Camera;
+import com.johnsproject.jpge.dto.Light;
+import com.johnsproject.jpge.dto.Mesh;
+import com.johnsproject.jpge.dto.RenderBuffer;
+import com.johnsproject.jpge.dto.Scene;
+import com.johnsproject.jpge.dto.SceneObject;
+import com.johnsproject.jpge.dto.Texture;
+import com.johnsproject.jpge.dto.Transform;
+import com.johnsproject.jpge.graphics.Renderer;
+import com.johnsproject.jpge.io.SOMImporter;
+
+/**
+ * Benchmarks of the whole rendering process. 
+ * Every benchmark renders complete frames of one of the bundled meshes 
+ * at the given resolution, drawing type and rasterization type, the object is rotated each frame 
+ * so that nothing is skipped by the {@link Renderer}.
+ * <br>
+ * Besides the frames per second the results contain the rendered faces per second (faces) 
+ * and the pixels of the {@link RenderBuffer} rendered per second (pixels).
+ * <br>
+ * Run with: java -cp ... com.johnsproject.jpge.RenderBenchmarks [jmh options]
+ * 
+ * @author John´s Project - John Salomon
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1)
+public class RenderBenchmarks {
+	
+	public static void main(String[] args) throws Exception {
+		if (args.length == 0) {
+			args = new String[] {RenderBenchmarks.class.getSimpleName()};
+		}
+		org.openjdk.jmh.Main.main(args);
+	}
+	
+	@Param({Mesh.RESOURCES_MONKEY, Mesh.RESOURCES_SPHERE, Mesh.RESOURCES_TORUS, Mesh.RESOURCES_ALL})
+	public String mesh;
+	
+	@Param({"320x240", "640x480", "1280x720"})
+	public String resolution;
+	
+	// Shader.DRAW_VERTEX, DRAW_WIREFRAME, DRAW_FLAT, DRAW_TEXTURED, DRAW_TEXTURED_PERSPECTIVE
+	@Param({"0", "1", "2", "3", "4"})
+	public int drawingType;
+	
+	// Shader.RASTERIZE_SCANLINE, RASTERIZE_HALFSPACE
+	@Param({"0", "1"})
+	public int rasterizationType;
+	
+	private Scene scene;
+	private SceneObject sceneObject;
+	private Renderer renderer;
+	private RenderBuffer renderBuffer;
+	
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		final String[] size = resolution.split("x");
+		final int width = Integer.parseInt(size[0]);
+		final int height = Integer.parseInt(size[1]);
+		Mesh mesh = SOMImporter.load(getClass().getResourceAsStream(this.mesh));
+		Texture texture = new Texture(getClass().getResourceAsStream("/JohnsProject.png"));
+		for (int i = 0; i < mesh.getMaterials().length; i++) {
+			mesh.getMaterial(i).setTexture(texture);
+		}
+		sceneObject = new SceneObject("benchmark", new Transform(new int[] {0, 0, 0}, new int[] {30, 0, 0}, new int[] {1, 1, 1}), mesh);
+		sceneObject.getShader().setDrawingType(drawingType);
+		sceneObject.getShader().setRasterizationType(rasterizationType);
+		scene = new Scene();
+		scene.addSceneObject(sceneObject);
+		scene.addCamera(new Camera("benchmarkCam", new Transform(new int[] {0, 0, -10000}, new int[] {0, 0, 0}, new int[] {1, 1, 1}), 0, 0, width, height));
+		scene.addLight(new Light("benchmarkLight", new Transform(new int[] {0, 0, 0}, new int[] {0, 0, 0}, new int[] {1, 1, 1})));
+		renderer = new Renderer();
+		renderBuffer = new RenderBuffer(width, height);
+	}
+	
+	/**
+	 * Counts the rendered faces and pixels, JMH reports them per second.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Counters {
+		public long faces;
+		public long pixels;
+		
+		@Setup(Level.Iteration)
+		public void reset() {
+			faces = 0;
+			pixels = 0;
+		}
+	}
+	
+	@Benchmark
+	public int renderBenchmark(Counters counters) {
+		sceneObject.getTransform().rotate(0, 1, 0);
+		// the whole frame is drawn every time, so the pixels counted are the pixels drawn
+		renderer.invalidate();
+		final int faces = renderer.render(scene, renderBuffer);
+		counters.faces += faces;
+		counters.pixels += renderBuffer.getWidth() * renderBuffer.getHeight();
+		return faces;
+	}
+}
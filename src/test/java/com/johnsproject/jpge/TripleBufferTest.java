@@ -0,0 +1,62 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 John Salomon - John´s Project
+ *  
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.johnsproject.jpge;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link TripleBuffer}.
+ * 
+ * @author John's Project - John Salomon
+ *
+ */
+public class TripleBufferTest {
+	
+	@Test
+	public void publishTest() throws Exception {
+		TripleBuffer<int[]> buffer = new TripleBuffer<int[]>(new int[1], new int[1], new int[1]);
+		assert(!buffer.isFresh());
+		buffer.getBack()[0] = 5;
+		buffer.publish();
+		assert(buffer.isFresh());
+		assert(buffer.getFront()[0] == 5);
+		assert(!buffer.isFresh());
+		// front stays the same until something new is published
+		buffer.getBack()[0] = 6;
+		assert(buffer.getFront()[0] == 5);
+		buffer.publish();
+		assert(buffer.getFront()[0] == 6);
+	}
+	
+	@Test
+	public void latestTest() throws Exception {
+		TripleBuffer<int[]> buffer = new TripleBuffer<int[]>(new int[1], new int[1], new int[1]);
+		for (int i = 0; i < 10; i++) {
+			buffer.getBack()[0] = i;
+			buffer.publish();
+		}
+		assert(buffer.getFront()[0] == 9);
+		assert(buffer.getBack() != buffer.getFront());
+	}
+}
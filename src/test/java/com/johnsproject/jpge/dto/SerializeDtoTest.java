@@ -136,6 +136,14 @@ public class SerializeDtoTest {
 		FileIO.writeObjectToFile(FILE_PATH, object);
 		Texture rObject = (Texture) FileIO.readObjectFromFile(FILE_PATH);
 		assert(rObject.equals(object));
+		// big textures are stored in tiles
+		object = new Texture(300, 260);
+		object.setPixel(299, 259, 5);
+		FileIO.writeObjectToFile(FILE_PATH, object);
+		rObject = (Texture) FileIO.readObjectFromFile(FILE_PATH);
+		assert(rObject.getTileLine() != 0);
+		assert(rObject.getPixel(299, 259) == 5);
+		assert(rObject.equals(object));
 	}
 	
 	@Test
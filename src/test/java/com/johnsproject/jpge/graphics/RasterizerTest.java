@@ -0,0 +1,315 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 John Salomon - John´s Project
+ *  
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.johnsproject.jpge.graphics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import com.johnsproject.jpge.TaskRunner;
+import com.johnsproject.jpge.dto.Camera;
+import com.johnsproject.jpge.dto.Light;
+import com.johnsproject.jpge.dto.Mesh;
+import com.johnsproject.jpge.dto.RenderBuffer;
+import com.johnsproject.jpge.dto.Scene;
+import com.johnsproject.jpge.dto.SceneObject;
+import com.johnsproject.jpge.dto.Texture;
+import com.johnsproject.jpge.dto.Transform;
+import com.johnsproject.jpge.io.SOMImporter;
+import com.johnsproject.jpge.utils.ColorUtils;
+import com.johnsproject.jpge.utils.RenderUtils;
+
+/**
+ * Test class for {@link Rasterizer}.
+ * 
+ * @author John's Project - John Salomon
+ *
+ */
+public class RasterizerTest {
+	
+	@Test
+	public void tilesTest() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			for (int drawingType = 0; drawingType <= Shader.DRAW_TEXTURED_PERSPECTIVE; drawingType++) {
+				RenderBuffer immediate = new RenderBuffer(320, 240);
+				Renderer renderer = new Renderer(new TaskRunner(1));
+				int faces = renderer.render(createScene(drawingType), immediate);
+				RenderBuffer tiled = new RenderBuffer(320, 240);
+				renderer = new Renderer(new TaskRunner(executor, 4));
+				renderer.setTileSize(16);
+				assert(renderer.render(createScene(drawingType), tiled) == faces);
+				assert(faces > 0);
+				RendererTest.assertSameFrame(immediate, tiled, true);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void binningTest() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			Camera camera = new Camera("testCam", new Transform(), 0, 0, 320, 240);
+			int white = ColorUtils.convert(255, 255, 255);
+			int red = ColorUtils.convert(255, 0, 0);
+			RenderBuffer renderBuffer = new RenderBuffer(320, 240);
+			Rasterizer rasterizer = new Rasterizer(new TaskRunner(executor, 4));
+			rasterizer.setTileSize(16);
+			rasterizer.setRasterizationType(Shader.RASTERIZE_HALFSPACE);
+			rasterizer.begin(renderBuffer);
+			rasterizer.clearDepthBuffer(camera);
+			// a line and a square that cross many tiles
+			rasterizer.drawLine(10, 5, 100, 300, 200, 100, white, camera);
+			rasterizer.drawFaceGouraud(10, 210, 10, white, 250, 210, 10, white, 10, 230, 10, white, white, camera);
+			rasterizer.drawFaceGouraud(250, 210, 10, white, 250, 230, 10, white, 10, 230, 10, white, white, camera);
+			// pixels at the same depth keep the color of the first call
+			rasterizer.drawPixel(300, 20, 50, white, camera);
+			rasterizer.drawPixel(300, 20, 50, red, camera);
+			rasterizer.drawPixel(301, 20, 50, white, camera);
+			rasterizer.drawPixel(301, 20, 20, red, camera);
+			// the calls are only recorded until end is called
+			for (int y = 0; y < 240; y++) {
+				for (int x = 0; x < 320; x++) {
+					assert(renderBuffer.getPixel(x, y) == 0);
+				}
+			}
+			rasterizer.end();
+			int line = 0;
+			int square = 0;
+			for (int y = 0; y < 240; y++) {
+				for (int x = 0; x < 320; x++) {
+					if (renderBuffer.getPixel(x, y) == 0) continue;
+					if (y < 205) line++;
+					else square++;
+				}
+			}
+			assert(line == 291 + 2);
+			assert(square == 240 * 20);
+			assert(renderBuffer.getPixel(300, 20) == white);
+			assert(renderBuffer.getPixel(301, 20) == red);
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void halfSpaceTest() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			for (int drawingType = Shader.DRAW_FLAT; drawingType <= Shader.DRAW_TEXTURED; drawingType++) {
+				RenderBuffer scanline = new RenderBuffer(320, 240);
+				int faces = new Renderer(new TaskRunner(1)).render(createScene(drawingType), scanline);
+				RenderBuffer halfSpace = new RenderBuffer(320, 240);
+				Scene scene = createScene(drawingType);
+				scene.getSceneObjects().get(0).getShader().setRasterizationType(Shader.RASTERIZE_HALFSPACE);
+				assert(new Renderer(new TaskRunner(1)).render(scene, halfSpace) == faces);
+				RenderBuffer tiled = new RenderBuffer(320, 240);
+				scene = createScene(drawingType);
+				scene.getSceneObjects().get(0).getShader().setRasterizationType(Shader.RASTERIZE_HALFSPACE);
+				Renderer renderer = new Renderer(new TaskRunner(executor, 4));
+				renderer.setTileSize(16);
+				renderer.render(scene, tiled);
+				RendererTest.assertSameFrame(halfSpace, tiled, true);
+				int drawn = 0;
+				int different = 0;
+				for (int y = 0; y < 240; y++) {
+					for (int x = 0; x < 320; x++) {
+						if (scanline.getPixel(x, y) != 0) drawn++;
+						// both algorithms fill the edges a bit different
+						if ((scanline.getPixel(x, y) == 0) != (halfSpace.getPixel(x, y) == 0)) different++;
+					}
+				}
+				assert(drawn > 1000);
+				assert(different * 20 < drawn);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void deferredLightsTest() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			Camera camera = new Camera("testCam", new Transform(), 0, 0, 64, 64);
+			List<Light> lights = new ArrayList<Light>();
+			// a light without direction shades every normal with the same level
+			lights.add(new Light("testLight", new Transform()));
+			int shade = ColorUtils.convert(50, 50, 50);
+			int normal = ColorUtils.convert(128, 128, 255);
+			int far = ColorUtils.convert(200, 40, 40);
+			int near = ColorUtils.convert(40, 40, 200);
+			for (int threads = 1; threads <= 4; threads += 3) {
+				RenderBuffer renderBuffer = new RenderBuffer(64, 64);
+				renderBuffer.clearDepthBuffer();
+				renderBuffer.createGBuffer();
+				Rasterizer rasterizer = new Rasterizer(threads == 1 ? new TaskRunner(1) : new TaskRunner(executor, threads));
+				rasterizer.setTileSize(16);
+				rasterizer.begin(renderBuffer);
+				// a far square, a near one in front of its corner and the far one again over the near one
+				drawSquareDeferred(rasterizer, 4, 40, 200, normal, far, camera);
+				drawSquareDeferred(rasterizer, 24, 36, 100, normal, near, camera);
+				drawSquareDeferred(rasterizer, 4, 40, 200, normal, far, camera);
+				// the faces are only written into the G-buffer until the lights are drawn
+				for (int i = 0; i < 64 * 64; i++) {
+					assert(renderBuffer.getFrameBufferData()[i] == 0);
+				}
+				rasterizer.drawDeferredLights(lights, camera);
+				rasterizer.end();
+				for (int y = 0; y < 64; y++) {
+					for (int x = 0; x < 64; x++) {
+						assert(renderBuffer.getNormalBuffer()[x + y * 64] == 0);
+						// each pixel is lit once with the color of the nearest face, 
+						// the pixels next to the edges are left out as they depend on the fill rules
+						int pixel = renderBuffer.getPixel(x, y);
+						if (isInside(x, y, 24, 36, -2)) assert(pixel == ColorUtils.lerpRBG(shade, near, 500));
+						else if (isInside(x, y, 24, 36, 2)) continue;
+						else if (isInside(x, y, 4, 40, -2)) assert(pixel == ColorUtils.lerpRBG(shade, far, 500));
+						else if (!isInside(x, y, 4, 40, 2)) assert(pixel == 0);
+					}
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void perspectiveTest() throws Exception {
+		RenderBuffer affine = new RenderBuffer(320, 240);
+		int faces = new Renderer(new TaskRunner(1)).render(createScene(Shader.DRAW_TEXTURED), affine);
+		RenderBuffer exact = new RenderBuffer(320, 240);
+		Scene scene = createScene(Shader.DRAW_TEXTURED_PERSPECTIVE);
+		scene.getSceneObjects().get(0).getShader().setPerspectiveSubdivision(1);
+		assert(new Renderer(new TaskRunner(1)).render(scene, exact) == faces);
+		RenderBuffer subdivided = new RenderBuffer(320, 240);
+		scene = createScene(Shader.DRAW_TEXTURED_PERSPECTIVE);
+		scene.getSceneObjects().get(0).getShader().setPerspectiveSubdivision(16);
+		assert(new Renderer(new TaskRunner(1)).render(scene, subdivided) == faces);
+		int drawn = 0;
+		int covered = 0;
+		int different = 0;
+		for (int y = 0; y < 240; y++) {
+			for (int x = 0; x < 320; x++) {
+				assert((exact.getPixel(x, y) == 0) == (subdivided.getPixel(x, y) == 0));
+				if (exact.getPixel(x, y) != 0) drawn++;
+				// both modes fill the edges a bit different
+				if ((affine.getPixel(x, y) == 0) != (exact.getPixel(x, y) == 0)) covered++;
+				if (exact.getPixel(x, y) != subdivided.getPixel(x, y)) different++;
+			}
+		}
+		assert(drawn > 1000);
+		assert(covered * 20 < drawn);
+		// the affine steps in between the divisions only miss a few texels
+		assert(different * 10 < drawn);
+	}
+	
+	@Test
+	public void perspectiveDepthTest() throws Exception {
+		Camera camera = new Camera("testCam", new Transform(), 0, 0, 128, 64);
+		int[] clip = RenderUtils.getClip(camera);
+		int color = ColorUtils.convert(0, 0, 0);
+		// the red value of each texel is its x location
+		Texture texture = new Texture(128, 1);
+		for (int x = 0; x < 128; x++) {
+			texture.setPixel(x, 0, ColorUtils.convert(x, 0, 0));
+		}
+		// face going from z 100 at the left to z 400 at the right, u goes from 0 to 128
+		RenderBuffer perspective = new RenderBuffer(128, 64);
+		perspective.clearDepthBuffer();
+		RenderUtils.drawFacePerspective(0, 0, 100, color, 0, 0, 127, 0, 400, color, 128, 0, 0, 63, 100, color, 0, 0,
+										texture, 8, clip, camera, perspective);
+		RenderBuffer affine = new RenderBuffer(128, 64);
+		affine.clearDepthBuffer();
+		RenderUtils.drawFaceAffine(0, 0, 100, color, 0, 0, 127, 0, 400, color, 128, 0, 0, 63, 100, color, 0, 0,
+									texture, clip, camera, affine);
+		// at the middle of the top edge the correct u is at 1/5 of the texture as the
+		// nearer left side covers more pixels, affine mapping uses the half of it
+		int perspectiveRed = ColorUtils.getRed(perspective.getPixel(64, 2));
+		int affineRed = ColorUtils.getRed(affine.getPixel(64, 2));
+		assert(Math.abs(perspectiveRed - ColorUtils.getRed(ColorUtils.lerpRBG(color, ColorUtils.convert(26, 0, 0), 500))) < 8);
+		assert(Math.abs(affineRed - ColorUtils.getRed(ColorUtils.lerpRBG(color, ColorUtils.convert(64, 0, 0), 500))) < 8);
+	}
+	
+	@Test
+	public void halfSpaceEdgesTest() throws Exception {
+		Camera camera = new Camera("testCam", new Transform(), 0, 0, 64, 64);
+		int[] clip = RenderUtils.getClip(camera);
+		int color = ColorUtils.convert(255, 255, 255);
+		// two faces sharing an edge, together they are a square of 40x40 pixels
+		RenderBuffer face1 = new RenderBuffer(64, 64);
+		face1.clearDepthBuffer();
+		RenderUtils.drawFaceGouraudHalfSpace(10, 10, 10, color, 50, 10, 10, color, 10, 50, 10, color, color, clip, camera, face1);
+		RenderBuffer face2 = new RenderBuffer(64, 64);
+		face2.clearDepthBuffer();
+		RenderUtils.drawFaceGouraudHalfSpace(50, 10, 10, color, 50, 50, 10, color, 10, 50, 10, color, color, clip, camera, face2);
+		int count1 = 0;
+		int count2 = 0;
+		for (int y = 0; y < 64; y++) {
+			for (int x = 0; x < 64; x++) {
+				boolean inside = (x >= 10) && (x < 50) && (y >= 10) && (y < 50);
+				boolean drawn1 = face1.getPixel(x, y) != 0;
+				boolean drawn2 = face2.getPixel(x, y) != 0;
+				// every pixel of the square is drawn exactly once
+				assert(inside == (drawn1 || drawn2));
+				assert(!(drawn1 && drawn2));
+				if (drawn1) count1++;
+				if (drawn2) count2++;
+			}
+		}
+		assert(count1 + count2 == 40 * 40);
+	}
+	
+	// draws a square of the given size with two faces that have the given packed normal and color
+	private void drawSquareDeferred(Rasterizer rasterizer, int location, int size, int z, int normal, int color, Camera camera) {
+		int min = location, max = location + size;
+		rasterizer.drawFaceDeferred(min, min, z, normal, 0, 0, max, min, z, normal, 0, 0,
+									min, max, z, normal, 0, 0, null, color, camera);
+		rasterizer.drawFaceDeferred(max, min, z, normal, 0, 0, max, max, z, normal, 0, 0,
+									min, max, z, normal, 0, 0, null, color, camera);
+	}
+	
+	// if the given pixel is inside of the square of the given size grown by the given border
+	private boolean isInside(int x, int y, int location, int size, int border) {
+		int min = location - border, max = location + size + border;
+		return (x >= min) && (x <= max) && (y >= min) && (y <= max);
+	}
+	
+	private Scene createScene(int drawingType) throws Exception {
+		Scene scene = new Scene();
+		Mesh mesh = SOMImporter.load(getClass().getResourceAsStream(Mesh.RESOURCES_MONKEY));
+		SceneObject sceneObject = new SceneObject("test", new Transform(new int[] {0, 0, 0}, new int[] {30, 40, 0}, new int[] {1, 1, 1}), mesh);
+		sceneObject.getShader().setDrawingType(drawingType);
+		scene.addSceneObject(sceneObject);
+		scene.addCamera(new Camera("testCam", new Transform(new int[] {0, 0, -5000}, new int[] {0, 0, 0}, new int[] {1, 1, 1}), 0, 0, 320, 240));
+		scene.addCamera(new Camera("testCam2", new Transform(new int[] {0, -6000, 0}, new int[] {90, 0, 0}, new int[] {1, 1, 1}), 210, 0, 106, 80));
+		scene.addLight(new Light("testLight", new Transform(new int[] {0, 0, 0}, new int[] {0, 0, 0}, new int[] {1, 1, 1})));
+		return scene;
+	}
+}
@@ -23,12 +23,388 @@
  */
 package com.johnsproject.jpge.graphics;
 
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import org.junit.Test;
 
+import com.johnsproject.jpge.TaskRunner;
+import com.johnsproject.jpge.dto.Camera;
+import com.johnsproject.jpge.dto.Light;
+import com.johnsproject.jpge.dto.Mesh;
+import com.johnsproject.jpge.dto.RenderBuffer;
+import com.johnsproject.jpge.dto.Scene;
+import com.johnsproject.jpge.dto.SceneObject;
+import com.johnsproject.jpge.dto.SceneState;
+import com.johnsproject.jpge.dto.Transform;
+import com.johnsproject.jpge.dto.VertexBuffer;
+import com.johnsproject.jpge.io.SOMImporter;
+import com.johnsproject.jpge.utils.ColorUtils;
+
 public class RendererTest {
 	
 	@Test
 	public void test() throws Exception {
 		System.out.println((1+3) >> 1);
 	}
+	
+	@Test
+	public void splitScreenTest() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			RenderBuffer serial = new RenderBuffer(320, 240);
+			int faces = new Renderer(new TaskRunner(1)).render(createSplitScreen(), serial);
+			RenderBuffer parallel = new RenderBuffer(320, 240);
+			Renderer renderer = new Renderer(new TaskRunner(executor, 4));
+			assert(renderer.render(createSplitScreen(), parallel) == faces);
+			assert(faces > 0);
+			assertSameFrame(serial, parallel, false);
+			for (int i = 0; i < 4; i++) {
+				// each camera shades the mesh into its own vertex buffer
+				for (int j = 0; j < i; j++) {
+					int[] locations = renderer.getVertexBuffer(i, 0).getLocations();
+					assert(!Arrays.equals(locations, renderer.getVertexBuffer(j, 0).getLocations()));
+				}
+				// each camera draws the same as when it is rendered alone, and only inside of its viewport
+				Scene scene = createSplitScreen();
+				Camera camera = scene.getCameras().get(i);
+				for (int j = 3; j >= 0; j--) {
+					if (j != i) scene.removeCamera(scene.getCameras().get(j));
+				}
+				RenderBuffer single = new RenderBuffer(320, 240);
+				assert(new Renderer(new TaskRunner(1)).render(scene, single) > 0);
+				for (int y = 0; y < 240; y++) {
+					for (int x = 0; x < 320; x++) {
+						boolean inside = (x >= camera.getLocationX()) && (x < camera.getLocationX() + camera.getWidth())
+								&& (y >= camera.getLocationY()) && (y < camera.getLocationY() + camera.getHeight());
+						if (inside) assert(single.getPixel(x, y) == parallel.getPixel(x, y));
+						else assert(single.getPixel(x, y) == 0);
+					}
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void vertexStageTest() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			RenderBuffer serial = new RenderBuffer(320, 240);
+			int faces = new Renderer(new TaskRunner(1)).render(createCrowd(), serial);
+			RenderBuffer parallel = new RenderBuffer(320, 240);
+			Renderer renderer = new Renderer(new TaskRunner(executor, 4));
+			Scene scene = createCrowd();
+			assert(renderer.render(scene, parallel) == faces);
+			assert(renderer.getLastVertexTime() > 0);
+			assertSameFrame(serial, parallel, false);
+			Mesh original = SOMImporter.load(getClass().getResourceAsStream(Mesh.RESOURCES_MONKEY));
+			for (int i = 0; i < 9; i++) {
+				Mesh mesh = scene.getSceneObjects().get(i).getMesh();
+				VertexBuffer vertexBuffer = renderer.getVertexBuffer(0, i);
+				assert(vertexBuffer.getSize() == mesh.getVertexes().length);
+				// the shaded vertexes are in the vertex buffer of the camera, the mesh is not changed
+				int x = 0;
+				for (int j = 0; j < vertexBuffer.getSize(); j++) {
+					assert(Arrays.equals(mesh.getVertex(j).getLocation(), original.getVertex(j).getLocation()));
+					x += vertexBuffer.getLocations()[j * 3];
+				}
+				// the objects of the left, middle and right column are projected to that part of the screen
+				x /= vertexBuffer.getSize();
+				if (i % 3 == 0) assert(x < 110);
+				if (i % 3 == 1) assert((x > 130) && (x < 190));
+				if (i % 3 == 2) assert(x > 210);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void clippingTest() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			// the camera is so near that the mesh crosses the near clipping plane and the screen edges
+			for (int distance : new int[] {-900, -300, 0}) {
+				RenderBuffer serial = new RenderBuffer(320, 240);
+				int faces = new Renderer(new TaskRunner(1)).render(createNearScene(distance), serial);
+				RenderBuffer parallel = new RenderBuffer(320, 240);
+				assert(new Renderer(new TaskRunner(executor, 4)).render(createNearScene(distance), parallel) == faces);
+				assert(faces > 0);
+				assertSameFrame(serial, parallel, false);
+				int drawn = 0;
+				for (int y = 0; y < 240; y++) {
+					for (int x = 0; x < 320; x++) {
+						if (serial.getPixel(x, y) != 0) drawn++;
+					}
+				}
+				// the faces that are partly visible fill the screen instead of being culled
+				if (distance == -900) assert(drawn > 320 * 240 * 9 / 10);
+			}
+			// the faces crossing the near plane are cut at it instead of being culled
+			Scene scene = createNearScene(-2000);
+			scene.getCameras().get(0).setNearClippingPlane(1500);
+			RenderBuffer renderBuffer = new RenderBuffer(320, 240);
+			assert(new Renderer(new TaskRunner(executor, 4)).render(scene, renderBuffer) > 0);
+			int minDepth = Integer.MAX_VALUE;
+			for (int y = 0; y < 240; y++) {
+				for (int x = 0; x < 320; x++) {
+					if (renderBuffer.getPixel(x, y) != 0) minDepth = Math.min(minDepth, renderBuffer.getPixelDepth(x, y));
+				}
+			}
+			assert((minDepth >= 1500 - 1) && (minDepth < 1500 + 10));
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void frontToBackTest() throws Exception {
+		RenderBuffer unsorted = new RenderBuffer(320, 240);
+		Renderer unsortedRenderer = new Renderer(new TaskRunner(1));
+		int faces = unsortedRenderer.render(createStack(), unsorted);
+		Renderer renderer = new Renderer(new TaskRunner(1));
+		renderer.setFrontToBack(true);
+		RenderBuffer sorted = new RenderBuffer(320, 240);
+		// the order of the objects is different for each camera
+		assert(renderer.render(createStack(), sorted) == faces);
+		assert(faces > 0);
+		for (int i = 0; i < 5; i++) {
+			assert(unsortedRenderer.getDrawOrder(0, i) == i);
+			assert(unsortedRenderer.getDrawOrder(1, i) == i);
+			// the first camera is in front of the stack and the second one behind it
+			assert(renderer.getDrawOrder(0, i) == i);
+			assert(renderer.getDrawOrder(1, i) == 4 - i);
+		}
+		for (int y = 0; y < 240; y++) {
+			for (int x = 0; x < 320; x++) {
+				assert(unsorted.getPixel(x, y) == sorted.getPixel(x, y));
+			}
+		}
+	}
+	
+	@Test
+	public void deferredTest() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			RenderBuffer forward = new RenderBuffer(320, 240);
+			int faces = new Renderer(new TaskRunner(1)).render(createStack(), forward);
+			for (int forwardObjects = 0; forwardObjects < 2; forwardObjects++) {
+				RenderBuffer serial = new RenderBuffer(320, 240);
+				assert(new Renderer(new TaskRunner(1)).render(createDeferredStack(forwardObjects), serial) == faces);
+				Renderer renderer = new Renderer(new TaskRunner(executor, 4));
+				renderer.setTileSize(16);
+				RenderBuffer parallel = new RenderBuffer(320, 240);
+				assert(renderer.render(createDeferredStack(forwardObjects), parallel) == faces);
+				assertSameFrame(serial, parallel, false);
+				for (int i = 0; i < 320 * 240; i++) {
+					// the same pixels are drawn and all of them are lit
+					assert(serial.getDepthBuffer()[i] == forward.getDepthBuffer()[i]);
+					assert(serial.getNormalBuffer()[i] == 0);
+					assert(parallel.getNormalBuffer()[i] == 0);
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void damageTest() throws Exception {
+		Scene scene = createCrowd();
+		Renderer renderer = new Renderer(new TaskRunner(1));
+		RenderBuffer renderBuffer = new RenderBuffer(320, 240);
+		for (int frame = 0; frame < 8; frame++) {
+			// only the changed parts of the last frame are drawn again
+			updateCrowd(scene, frame);
+			int damagedFaces = renderer.render(scene, renderBuffer);
+			Scene fresh = createCrowd();
+			updateCrowd(fresh, frame);
+			RenderBuffer expected = new RenderBuffer(320, 240);
+			int faces = new Renderer(new TaskRunner(1)).render(fresh, expected);
+			if (frame == 1) assert(damagedFaces < faces);
+			for (int i = 0; i < 320 * 240; i++) {
+				assert(renderBuffer.getFrameBufferData()[i] == expected.getFrameBufferData()[i]);
+			}
+		}
+	}
+	
+	@Test
+	public void damageRectanglesTest() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			for (int threads = 1; threads <= 4; threads += 3) {
+				Scene scene = createCrowd();
+				Renderer renderer = new Renderer(new TaskRunner(executor, threads));
+				RenderBuffer renderBuffer = new RenderBuffer(320, 240);
+				int faces = renderer.render(scene, renderBuffer);
+				// changes in opposite corners are drawn in separate rectangles, 
+				// a rectangle joining them would cover all objects
+				for (int frame = 0; frame < 2; frame++) {
+					scene.getSceneObjects().get(0).getTransform().rotate(0, 20, 0);
+					scene.getSceneObjects().get(8).getTransform().rotate(0, 20, 0);
+					int cornersFaces = renderer.render(scene, renderBuffer);
+					assert((cornersFaces > 0) && (cornersFaces < faces));
+				}
+				Scene fresh = createCrowd();
+				fresh.getSceneObjects().get(0).getTransform().rotate(0, 40, 0);
+				fresh.getSceneObjects().get(8).getTransform().rotate(0, 40, 0);
+				RenderBuffer expected = new RenderBuffer(320, 240);
+				new Renderer(new TaskRunner(1)).render(fresh, expected);
+				assertSameFrame(expected, renderBuffer, false);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void sceneStateTest() throws Exception {
+		Scene scene = createCrowd();
+		Renderer renderer = new Renderer(new TaskRunner(1));
+		RenderBuffer renderBuffer = new RenderBuffer(320, 240);
+		SceneState sceneState = new SceneState();
+		sceneState.update(scene);
+		assert(renderer.render(scene, sceneState, renderBuffer) > 0);
+		// reading the transforms like the physics does sets the changed flags, but nothing moved
+		for (int i = 0; i < scene.getSceneObjects().size(); i++) {
+			scene.getSceneObjects().get(i).getTransform();
+		}
+		scene.getCameras().get(0).getTransform();
+		sceneState.update(scene);
+		assert(renderer.render(scene, sceneState, renderBuffer) == 0);
+		// an object moved after the scene state was copied is drawn with the next scene state
+		scene.getSceneObjects().get(4).getTransform().setLocation(600, 0, 0);
+		assert(renderer.render(scene, sceneState, renderBuffer) == 0);
+		sceneState.update(scene);
+		assert(renderer.render(scene, sceneState, renderBuffer) > 0);
+		Scene fresh = createCrowd();
+		fresh.getSceneObjects().get(4).getTransform().setLocation(600, 0, 0);
+		RenderBuffer expected = new RenderBuffer(320, 240);
+		new Renderer(new TaskRunner(1)).render(fresh, expected);
+		for (int i = 0; i < 320 * 240; i++) {
+			assert(renderBuffer.getFrameBufferData()[i] == expected.getFrameBufferData()[i]);
+		}
+	}
+	
+	@Test
+	public void invalidationTest() throws Exception {
+		Scene scene = createCrowd();
+		scene.getSceneObjects().get(4).getShader().setDrawingType(Shader.DRAW_FLAT);
+		Renderer renderer = new Renderer(new TaskRunner(1));
+		RenderBuffer renderBuffer = new RenderBuffer(320, 240);
+		int faces = renderer.render(scene, renderBuffer);
+		assert(renderer.render(scene, renderBuffer) == 0);
+		// the colors of the materials are compared
+		Mesh mesh = scene.getSceneObjects().get(4).getMesh();
+		mesh.getMaterial(0).setColor(ColorUtils.convert(200, 30, 30));
+		int changedFaces = renderer.render(scene, renderBuffer);
+		assert((changedFaces > 0) && (changedFaces < faces));
+		assert(renderer.render(scene, renderBuffer) == 0);
+		// vertexes changed in place are drawn after changed(true)
+		mesh.getVertex(0).setLocation(0, 0, -2000);
+		assert(renderer.render(scene, renderBuffer) == 0);
+		scene.getSceneObjects().get(4).changed(true);
+		assert(renderer.render(scene, renderBuffer) > 0);
+		Scene fresh = createCrowd();
+		fresh.getSceneObjects().get(4).getShader().setDrawingType(Shader.DRAW_FLAT);
+		fresh.getSceneObjects().get(4).getMesh().getMaterial(0).setColor(ColorUtils.convert(200, 30, 30));
+		fresh.getSceneObjects().get(4).getMesh().getVertex(0).setLocation(0, 0, -2000);
+		RenderBuffer expected = new RenderBuffer(320, 240);
+		new Renderer(new TaskRunner(1)).render(fresh, expected);
+		assertSameFrame(expected, renderBuffer, false);
+		// the whole viewport is drawn after changed(true) on the camera or after invalidate
+		scene.getCameras().get(0).changed(true);
+		assert(renderer.render(scene, renderBuffer) == faces);
+		assert(renderer.render(scene, renderBuffer) == 0);
+		renderer.invalidate();
+		assert(renderer.render(scene, renderBuffer) == faces);
+		assert(renderer.render(scene, renderBuffer) == 0);
+		renderer.setDamageTracking(false);
+		assert(renderer.render(scene, renderBuffer) == faces);
+		assert(renderer.render(scene, renderBuffer) == faces);
+		assertSameFrame(expected, renderBuffer, false);
+	}
+	
+	// asserts that both render buffers show the same frame, with the same depth if depth is true
+	static void assertSameFrame(RenderBuffer expected, RenderBuffer actual, boolean depth) {
+		assert((expected.getWidth() == actual.getWidth()) && (expected.getHeight() == actual.getHeight()));
+		for (int y = 0; y < expected.getHeight(); y++) {
+			for (int x = 0; x < expected.getWidth(); x++) {
+				assert(expected.getPixel(x, y) == actual.getPixel(x, y));
+				if (depth) assert(expected.getPixelDepth(x, y) == actual.getPixelDepth(x, y));
+			}
+		}
+	}
+	
+	// changes the crowd like it was changed at each frame until the given one
+	private void updateCrowd(Scene scene, int frame) {
+		scene.getSceneObjects().get(4).getTransform().setLocation(Math.min(frame, 5) * 200, 0, 0);
+		if (frame == 2) scene.getSceneObjects().get(0).setActive(false);
+		if (frame > 2) scene.getSceneObjects().get(0).setActive(true);
+		if (frame == 3) scene.getCameras().get(0).getTransform().setLocation(0, 300, -8000);
+		if (frame == 4) scene.getCameras().get(0).getTransform().setLocation(0, 0, -8000);
+		scene.getLights().get(0).getTransform().setLocation(frame >= 5 ? 3000 : 0, 0, 0);
+		scene.getSceneObjects().get(8).getShader().setDrawingType(frame >= 6 ? Shader.DRAW_WIREFRAME : Shader.DRAW_FLAT);
+	}
+	
+	private Scene createNearScene(int distance) throws Exception {
+		Scene scene = new Scene();
+		Mesh mesh = SOMImporter.load(getClass().getResourceAsStream(Mesh.RESOURCES_MONKEY));
+		SceneObject sceneObject = new SceneObject("test", new Transform(new int[] {0, 0, 0}, new int[] {30, 40, 0}, new int[] {1, 1, 1}), mesh);
+		sceneObject.getShader().setDrawingType(Shader.DRAW_FLAT);
+		scene.addSceneObject(sceneObject);
+		scene.addCamera(new Camera("testCam", new Transform(new int[] {0, 0, distance}, new int[] {0, 0, 0}, new int[] {1, 1, 1}), 0, 0, 320, 240));
+		scene.addLight(new Light("testLight", new Transform(new int[] {0, 0, 0}, new int[] {0, 0, 0}, new int[] {1, 1, 1})));
+		return scene;
+	}
+	
+	private Scene createCrowd() throws Exception {
+		Scene scene = new Scene();
+		for (int i = 0; i < 9; i++) {
+			Mesh mesh = SOMImporter.load(getClass().getResourceAsStream(Mesh.RESOURCES_MONKEY));
+			int[] location = new int[] {((i % 3) - 1) * 2500, ((i / 3) - 1) * 2000, 0};
+			scene.addSceneObject(new SceneObject("test" + i, new Transform(location, new int[] {30, 40 * i, 0}, new int[] {1, 1, 1}), mesh));
+		}
+		scene.addCamera(new Camera("testCam", new Transform(new int[] {0, 0, -8000}, new int[] {0, 0, 0}, new int[] {1, 1, 1}), 0, 0, 320, 240));
+		scene.addLight(new Light("testLight", new Transform(new int[] {0, 0, 0}, new int[] {0, 0, 0}, new int[] {1, 1, 1})));
+		return scene;
+	}
+	
+	private Scene createStack() throws Exception {
+		Scene scene = new Scene();
+		for (int i = 0; i < 5; i++) {
+			Mesh mesh = SOMImporter.load(getClass().getResourceAsStream(Mesh.RESOURCES_MONKEY));
+			int[] location = new int[] {(i % 2) * 300, 0, i * 1500};
+			scene.addSceneObject(new SceneObject("test" + i, new Transform(location, new int[] {30, 40, 0}, new int[] {1, 1, 1}), mesh));
+		}
+		// one camera in front and one behind the stack
+		scene.addCamera(new Camera("testCam1", new Transform(new int[] {0, 0, -4000}, new int[] {0, 0, 0}, new int[] {1, 1, 1}), 0, 0, 160, 240));
+		scene.addCamera(new Camera("testCam2", new Transform(new int[] {0, 0, 10000}, new int[] {0, 180, 0}, new int[] {1, 1, 1}), 160, 0, 160, 240));
+		scene.addLight(new Light("testLight", new Transform(new int[] {0, 0, 0}, new int[] {0, 0, 0}, new int[] {1, 1, 1})));
+		return scene;
+	}
+	
+	private Scene createDeferredStack(int forwardObjects) throws Exception {
+		Scene scene = createStack();
+		for (int i = forwardObjects; i < scene.getSceneObjects().size(); i++) {
+			scene.getSceneObjects().get(i).getShader().setShadingType(Shader.SHADE_DEFERRED);
+		}
+		return scene;
+	}
+	
+	private Scene createSplitScreen() throws Exception {
+		Scene scene = new Scene();
+		Mesh mesh = SOMImporter.load(getClass().getResourceAsStream(Mesh.RESOURCES_MONKEY));
+		scene.addSceneObject(new SceneObject("test", new Transform(new int[] {0, 0, 0}, new int[] {30, 40, 0}, new int[] {1, 1, 1}), mesh));
+		// 4 cameras looking at the same mesh from different sides
+		scene.addCamera(new Camera("testCam1", new Transform(new int[] {0, 0, -5000}, new int[] {0, 0, 0}, new int[] {1, 1, 1}), 0, 0, 160, 120));
+		scene.addCamera(new Camera("testCam2", new Transform(new int[] {0, 0, 5000}, new int[] {0, 180, 0}, new int[] {1, 1, 1}), 160, 0, 160, 120));
+		scene.addCamera(new Camera("testCam3", new Transform(new int[] {0, -5000, 0}, new int[] {90, 0, 0}, new int[] {1, 1, 1}), 0, 120, 160, 120));
+		scene.addCamera(new Camera("testCam4", new Transform(new int[] {5000, 0, 0}, new int[] {0, -90, 0}, new int[] {1, 1, 1}), 160, 120, 160, 120));
+		scene.addLight(new Light("testLight", new Transform(new int[] {0, 0, 0}, new int[] {0, 0, 0}, new int[] {1, 1, 1})));
+		return scene;
+	}
 }
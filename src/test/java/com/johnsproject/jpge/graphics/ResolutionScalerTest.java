@@ -0,0 +1,89 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 John Salomon - John´s Project
+ *  
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.johnsproject.jpge.graphics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.johnsproject.jpge.dto.Camera;
+import com.johnsproject.jpge.dto.Transform;
+
+/**
+ * Test class for {@link ResolutionScaler}.
+ * 
+ * @author John's Project - John Salomon
+ *
+ */
+public class ResolutionScalerTest {
+	
+	private static final long MILLISECOND = 1000000L;
+
+	@Test
+	public void updateTest() throws Exception {
+		ResolutionScaler scaler = new ResolutionScaler(10);
+		scaler.setDelay(2);
+		// too slow, scale goes down to the min scale
+		for (int i = 0; i < 100; i++) {
+			scaler.update(20 * MILLISECOND);
+		}
+		assert(scaler.getScale() == scaler.getMinScale());
+		// a bit faster than the target, but raising would be too slow
+		for (int i = 0; i < 100; i++) {
+			scaler.update(8 * MILLISECOND);
+		}
+		assert(scaler.getScale() == scaler.getMinScale());
+		// fast enough, scale goes up to the max scale
+		for (int i = 0; i < 100; i++) {
+			scaler.update(1 * MILLISECOND);
+		}
+		assert(scaler.getScale() == scaler.getMaxScale());
+	}
+	
+	@Test
+	public void scaleCamerasTest() throws Exception {
+		List<Camera> cameras = new ArrayList<Camera>();
+		Camera camera = new Camera("testCam", new Transform(), 100, 40, 200, 160);
+		cameras.add(camera);
+		ResolutionScaler scaler = new ResolutionScaler(10);
+		scaler.setScale(50);
+		scaler.scaleCameras(cameras);
+		assert(camera.getLocationX() == 50);
+		assert(camera.getLocationY() == 20);
+		assert(camera.getWidth() == 100);
+		assert(camera.getHeight() == 80);
+		assert(scaler.scale(320) == 160);
+		// changed viewports are used as the new viewport at 100%
+		camera.setScreenSize(300, 160);
+		scaler.setScale(100);
+		scaler.scaleCameras(cameras);
+		assert(camera.getLocationX() == 50);
+		assert(camera.getWidth() == 300);
+		scaler.setScale(50);
+		scaler.scaleCameras(cameras);
+		assert(camera.getLocationX() == 25);
+		assert(camera.getWidth() == 150);
+	}
+}
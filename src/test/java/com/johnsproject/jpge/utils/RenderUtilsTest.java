@@ -0,0 +1,328 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 John Salomon - John´s Project
+ *  
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.johnsproject.jpge.utils;
+
+import org.junit.Test;
+
+import com.johnsproject.jpge.dto.Camera;
+import com.johnsproject.jpge.dto.RenderBuffer;
+import com.johnsproject.jpge.dto.Texture;
+import com.johnsproject.jpge.dto.Transform;
+
+/**
+ * Test class for {@link RenderUtils}.
+ * 
+ * @author John's Project - John Salomon
+ *
+ */
+public class RenderUtilsTest {
+	
+	@Test
+	public void outcodeTest() throws Exception {
+		Camera camera = new Camera("testCam", new Transform(), 0, 0, 320, 240);
+		// in front of the camera at the center
+		int inside = RenderUtils.getOutcode(0, 0, 1000, true, camera);
+		assert(!RenderUtils.isOutsideViewFrustum(inside, inside, inside));
+		assert(!RenderUtils.needsClipping(inside, inside, inside));
+		// behind the camera
+		int behind = RenderUtils.getOutcode(0, 0, -1000, true, camera);
+		assert(RenderUtils.isOutsideViewFrustum(behind, behind, behind));
+		assert(RenderUtils.needsClipping(inside, inside, behind));
+		// left of the camera, but inside of the guard band
+		int left = RenderUtils.getOutcode(-1000, 0, 940, true, camera);
+		assert(RenderUtils.isOutsideViewFrustum(left, left, left));
+		assert(!RenderUtils.isOutsideViewFrustum(inside, left, left));
+		assert(!RenderUtils.needsClipping(inside, left, left));
+		// left of the guard band
+		int farLeft = RenderUtils.getOutcode(-10000, 0, 940, true, camera);
+		assert(RenderUtils.needsClipping(inside, inside, farLeft));
+		// behind the far clipping plane
+		int far = RenderUtils.getOutcode(0, 0, camera.getFarClippingPlane() + 1000, true, camera);
+		assert(RenderUtils.isOutsideViewFrustum(far, far, far));
+		assert(!RenderUtils.needsClipping(inside, inside, far));
+	}
+	
+	@Test
+	public void clipPolygonTest() throws Exception {
+		Camera camera = new Camera("testCam", new Transform(), 0, 0, 320, 240);
+		int size = RenderUtils.CLIP_VERTEX_SIZE;
+		int[] polygon = new int[size * RenderUtils.CLIP_MAX_VERTEXES];
+		int[] temp = new int[polygon.length];
+		int red = ColorUtils.convert(255, 0, 0);
+		int blue = ColorUtils.convert(0, 0, 255);
+		// the third vertex is behind the camera
+		int[] triangle = new int[] {0, 0, 1000, red, 0, 0,
+									100, 0, 1000, red, 128, 0,
+									0, 100, -1000, blue, 0, 128};
+		System.arraycopy(triangle, 0, polygon, 0, triangle.length);
+		int count = RenderUtils.clipPolygon(polygon, 3, temp, true, camera);
+		assert(count == 4);
+		int near = camera.getNearClippingPlane() - camera.getFieldOfView();
+		int kept = 0;
+		for (int i = 0; i < count * size; i += size) {
+			assert(polygon[i + 5] >= 0 && polygon[i + 5] <= 128);
+			assert(ColorUtils.getRed(polygon[i + 3]) + ColorUtils.getBlue(polygon[i + 3]) >= 254);
+			if (polygon[i + 2] == 1000) {
+				// the vertexes in front of the near plane are not changed
+				int j = polygon[i] == 0 ? 0 : size;
+				for (int k = 0; k < size; k++) {
+					assert(polygon[i + k] == triangle[j + k]);
+				}
+				kept++;
+			} else {
+				// the new vertexes are on the near plane
+				assert(Math.abs(polygon[i + 2] - near) <= 1);
+			}
+		}
+		assert(kept == 2);
+		// a triangle in front of the camera is not changed
+		triangle[size * 2 + 2] = 1000;
+		System.arraycopy(triangle, 0, polygon, 0, triangle.length);
+		assert(RenderUtils.clipPolygon(polygon, 3, temp, true, camera) == 3);
+		for (int i = 0; i < triangle.length; i++) {
+			assert(polygon[i] == triangle[i]);
+		}
+		// nothing is left of a triangle behind the camera
+		for (int i = 0; i < 3; i++) {
+			triangle[i * size + 2] = -1000;
+		}
+		System.arraycopy(triangle, 0, polygon, 0, triangle.length);
+		assert(RenderUtils.clipPolygon(polygon, 3, temp, true, camera) < 3);
+	}
+	
+	@Test
+	public void depthTilesTest() throws Exception {
+		Camera camera = new Camera("testCam", new Transform(), 0, 0, 320, 240);
+		RenderBuffer renderBuffer = new RenderBuffer(320, 240);
+		int[] clip = RenderUtils.getClip(camera);
+		int size = 1 << RenderBuffer.DEPTH_TILE_SHIFT;
+		int tile = 4 + (3 * renderBuffer.getDepthTilesX());
+		int x = (size * 4) + 1, y = (size * 3) + 1;
+		renderBuffer.clearDepthBuffer();
+		assert(renderBuffer.getDepthTileMax(tile) == Integer.MAX_VALUE);
+		// the max depth of a tile is known after all its pixels were drawn, the first face only covers a part of it
+		int black = ColorUtils.convert(0, 0, 0);
+		int gray = ColorUtils.convert(100, 100, 100);
+		RenderUtils.drawFaceGouraud(0, 0, 10, black, 320, 0, 10, black, 0, 240, 10, black, gray, clip, camera, renderBuffer);
+		assert(renderBuffer.getDepthTileMax(tile) == Integer.MAX_VALUE);
+		RenderUtils.drawFaceGouraud(320, 0, 10, black, 320, 240, 10, black, 0, 240, 10, black, gray, clip, camera, renderBuffer);
+		assert(renderBuffer.getDepthTileMax(tile) == 10);
+		int color = renderBuffer.getPixel(x, y);
+		// faces behind the tiles are not drawn
+		int red = ColorUtils.convert(255, 0, 0);
+		RenderUtils.drawFaceGouraud(0, 0, 100, black, 320, 0, 100, black, 0, 240, 100, black, red, clip, camera, renderBuffer);
+		assert(renderBuffer.getPixel(x, y) == color);
+		assert(renderBuffer.getPixelDepth(x, y) == 10);
+		// faces in front of the tiles are drawn
+		RenderUtils.drawFaceGouraud(0, 0, 5, black, 320, 0, 5, black, 0, 240, 5, black, red, clip, camera, renderBuffer);
+		assert(renderBuffer.getPixel(x, y) != color);
+		assert(renderBuffer.getPixelDepth(x, y) == 5);
+		// tiles that are partly cleared don't know their max depth anymore
+		renderBuffer.clearDepthBuffer(x, y, 1, 1);
+		assert(renderBuffer.getDepthTileMax(tile) == Integer.MAX_VALUE);
+		renderBuffer.clearDepthBuffer();
+		assert(renderBuffer.getDepthTileMax(tile) == Integer.MAX_VALUE);
+	}
+	
+	@Test
+	public void clearTest() throws Exception {
+		Camera camera = new Camera("testCam", new Transform(), 0, 0, 320, 240);
+		RenderBuffer renderBuffer = new RenderBuffer(320, 240);
+		int[] clip = RenderUtils.getClip(camera);
+		int black = ColorUtils.convert(0, 0, 0);
+		int gray = ColorUtils.convert(100, 100, 100);
+		// the depth generations run out after some clears, the depthBuffer is filled then
+		for (int i = 0; i < 5000; i++) {
+			renderBuffer.clearDepthBuffer();
+			int z = 10 - (i % 20);
+			RenderUtils.drawFaceGouraud(0, 0, z, black, 320, 0, z, black, 0, 240, z, black, gray, clip, camera, renderBuffer);
+			assert(renderBuffer.getPixelDepth(10, 10) == z);
+			assert(renderBuffer.getPixelDepth(300, 200) == Integer.MAX_VALUE);
+		}
+		// pixels of older generations are behind the pixels of the new one
+		RenderUtils.drawFaceGouraud(0, 0, 100, black, 320, 0, 100, black, 0, 240, 100, black, gray, clip, camera, renderBuffer);
+		assert(renderBuffer.getPixelDepth(10, 10) == -9);
+		renderBuffer.clearDepthBuffer();
+		RenderUtils.drawFaceGouraud(0, 0, 100, black, 320, 0, 100, black, 0, 240, 100, black, gray, clip, camera, renderBuffer);
+		assert(renderBuffer.getPixelDepth(10, 10) == 100);
+		// only the drawn parts of the lines are cleared, but all drawn pixels are
+		assert(renderBuffer.getPixel(10, 10) != 0);
+		renderBuffer.clearDrawnFrameBuffer(0, 240);
+		for (int y = 0; y < 240; y++) {
+			for (int x = 0; x < 320; x++) {
+				assert(renderBuffer.getPixel(x, y) == 0);
+			}
+		}
+		renderBuffer.setPixel(300, 200, 0, gray);
+		renderBuffer.clearDrawnFrameBuffer(200, 1);
+		assert(renderBuffer.getPixel(300, 200) == 0);
+	}
+	
+	@Test
+	public void lineTest() throws Exception {
+		Camera camera = new Camera("testCam", new Transform(), 0, 0, 320, 240);
+		int gray = ColorUtils.convert(100, 100, 100);
+		int[][] lines = new int[][] {{-500, 20, 900, 200}, {40, -300, 90, 700}, {319, 239, -50, 100}, {10, 10, 10, 10}, {5, 100, 300, 100}};
+		for (int[] line : lines) {
+			RenderBuffer full = new RenderBuffer(320, 240);
+			RenderUtils.drawLine(line[0], line[1], 0, line[2], line[3], 1000, gray, RenderUtils.getClip(camera), camera, full);
+			// a line drawn in parts and in the other direction draws the same pixels
+			RenderBuffer parts = new RenderBuffer(320, 240);
+			for (int x = 0; x < 320; x += 64) {
+				for (int y = 0; y < 240; y += 48) {
+					int[] clip = new int[] {Math.max(x, 1), Math.max(y, 1), x + 64, y + 48};
+					RenderUtils.drawLine(line[2], line[3], 1000, line[0], line[1], 0, gray, clip, camera, parts);
+				}
+			}
+			for (int y = 0; y < 240; y++) {
+				for (int x = 0; x < 320; x++) {
+					assert(full.getPixel(x, y) == parts.getPixel(x, y));
+					assert(full.getPixelDepth(x, y) == parts.getPixelDepth(x, y));
+				}
+			}
+			// all drawn pixels are marked, so clearing the drawn parts of the frameBuffer clears the line
+			full.clearDrawnFrameBuffer(0, 240);
+			parts.clearDrawnFrameBuffer(0, 240);
+			for (int y = 0; y < 240; y++) {
+				for (int x = 0; x < 320; x++) {
+					assert(full.getPixel(x, y) == 0);
+					assert(parts.getPixel(x, y) == 0);
+				}
+			}
+		}
+		// the depth is interpolated along the line
+		RenderBuffer renderBuffer = new RenderBuffer(320, 240);
+		RenderUtils.drawLine(10, 100, 0, 210, 100, 1000, gray, camera, renderBuffer);
+		assert(renderBuffer.getPixelDepth(10, 100) == 0);
+		assert(Math.abs(renderBuffer.getPixelDepth(110, 100) - 500) <= 1);
+		assert(Math.abs(renderBuffer.getPixelDepth(210, 100) - 1000) <= 1);
+		assert(renderBuffer.getPixel(211, 100) == 0);
+		assert(renderBuffer.getPixel(9, 100) == 0);
+	}
+	
+	@Test
+	public void mipmapTest() throws Exception {
+		int white = ColorUtils.convert(255, 255, 255);
+		int black = ColorUtils.convert(0, 0, 0);
+		Texture texture = new Texture(64, 32);
+		for (int y = 0; y < 32; y++) {
+			for (int x = 0; x < 64; x++) {
+				texture.setPixel(x, y, ((x + y) % 2) == 0 ? white : black);
+			}
+		}
+		assert(texture.getMipmapsCount() == 1);
+		texture.updateMipmaps();
+		// 64x32, 32x16, 16x8, 8x4, 4x2, 2x1 and 1x1
+		assert(texture.getMipmapsCount() == 7);
+		assert(texture.getMipmap(0) == texture);
+		assert(texture.getMipmap(1).getWidth() == 32);
+		assert(texture.getMipmap(6).getWidth() == 1);
+		assert(texture.getMipmap(6).getHeight() == 1);
+		int gray = texture.getMipmap(1).getPixel(5, 5);
+		assert(ColorUtils.getRed(gray) == 128);
+		assert(ColorUtils.getAlpha(gray) == 255);
+		// a face with about one pixel for each texel uses the texture, smaller faces use smaller levels
+		assert(RenderUtils.getMipmap(texture, 0, 0, 0, 0, 64, 0, 128, 0, 0, 32, 0, 128) == texture);
+		assert(RenderUtils.getMipmap(texture, 0, 0, 0, 0, 16, 0, 128, 0, 0, 8, 0, 128) == texture.getMipmap(2));
+		assert(RenderUtils.getMipmap(texture, 0, 0, 0, 0, 1, 0, 128, 0, 0, 1, 0, 128) == texture.getMipmap(5));
+		assert(RenderUtils.getMipmap(null, 0, 0, 0, 0, 1, 0, 128, 0, 0, 1, 0, 128) == null);
+	}
+	
+	@Test
+	public void tiledTextureTest() throws Exception {
+		Camera camera = new Camera("testCam", new Transform(), 0, 0, 320, 240);
+		int white = ColorUtils.convert(255, 255, 255);
+		int gray = ColorUtils.convert(100, 100, 100);
+		Texture lines = new Texture(100, 100);
+		Texture tiles = new Texture(300, 260);
+		assert(lines.getTileLine() == 0);
+		assert(tiles.getTileLine() != 0);
+		for (int y = 0; y < 260; y++) {
+			for (int x = 0; x < 300; x++) {
+				lines.setPixel(x, y, white);
+				tiles.setPixel(x, y, white);
+				assert(tiles.getPixel(x, y) == white);
+			}
+		}
+		// both textures are sampled the same, the edges of the tiles outside of the texture are never used
+		RenderBuffer linesBuffer = new RenderBuffer(320, 240);
+		RenderBuffer tilesBuffer = new RenderBuffer(320, 240);
+		int[] clip = RenderUtils.getClip(camera);
+		RenderUtils.drawFaceAffine(0, 0, 10, gray, 0, 0, 319, 0, 10, gray, 128, 0, 0, 239, 10, gray, 0, 128, lines, clip, camera, linesBuffer);
+		RenderUtils.drawFaceAffine(0, 0, 10, gray, 0, 0, 319, 0, 10, gray, 128, 0, 0, 239, 10, gray, 0, 128, tiles, clip, camera, tilesBuffer);
+		RenderUtils.drawFaceAffine(319, 239, 10, gray, 128, 128, 0, 239, 10, gray, 0, 128, 319, 0, 10, gray, 128, 0, lines, clip, camera, linesBuffer);
+		RenderUtils.drawFaceAffine(319, 239, 10, gray, 128, 128, 0, 239, 10, gray, 0, 128, 319, 0, 10, gray, 128, 0, tiles, clip, camera, tilesBuffer);
+		for (int i = 0; i < 320 * 240; i++) {
+			assert(linesBuffer.getFrameBufferData()[i] == tilesBuffer.getFrameBufferData()[i]);
+		}
+	}
+	
+	@Test
+	public void wrappedTextureTest() throws Exception {
+		Camera camera = new Camera("testCam", new Transform(), 0, 0, 320, 240);
+		int gray = ColorUtils.convert(100, 100, 100);
+		Texture small = new Texture(16, 16);
+		Texture big = new Texture(512, 256);
+		assert(small.isWrapped() && (small.getWidthShift() == 4));
+		assert(big.isWrapped() && (big.getTileLine() != 0));
+		assert(!new Texture(100, 64).isWrapped());
+		assert(!new Texture(300, 256).isWrapped());
+		for (int y = 0; y < 16; y++) {
+			assert(small.getIndex(-1, y) == small.getIndex(15, y));
+			assert(small.getIndex(3, y + 16) == small.getIndex(3, y));
+			assert(big.getIndex(-1, y) == big.getIndex(511, y));
+			assert(big.getIndex(600, y - 256) == big.getIndex(88, y));
+		}
+		for (int y = 0; y < 16; y++) {
+			for (int x = 0; x < 16; x++) {
+				small.setPixel(x, y, x < 8 ? ColorUtils.convert(255, 0, 0) : ColorUtils.convert(0, 0, 255));
+			}
+		}
+		// the texture is repeated twice along the x axis, so every half of the face looks the same
+		RenderBuffer renderBuffer = new RenderBuffer(320, 240);
+		int[] clip = RenderUtils.getClip(camera);
+		RenderUtils.drawFaceAffine(0, 0, 10, gray, 0, 0, 319, 0, 10, gray, 256, 0, 0, 239, 10, gray, 0, 128, small, clip, camera, renderBuffer);
+		RenderUtils.drawFaceAffine(319, 239, 10, gray, 256, 128, 0, 239, 10, gray, 0, 128, 319, 0, 10, gray, 256, 0, small, clip, camera, renderBuffer);
+		int[] frame = renderBuffer.getFrameBufferData();
+		for (int y = 10; y < 230; y += 20) {
+			assert(frame[(y * 320) + 40] == frame[(y * 320) + 200]);
+			assert(frame[(y * 320) + 120] == frame[(y * 320) + 280]);
+			assert(frame[(y * 320) + 40] != frame[(y * 320) + 120]);
+		}
+	}
+	
+	@Test
+	public void shadeColorTest() throws Exception {
+		int[] channels = {0, 1, 50, 127, 128, 200, 254, 255};
+		for (int i = 0; i < channels.length; i++) {
+			for (int j = 0; j < channels.length; j++) {
+				int c1 = channels[i], c2 = channels[j], c3 = channels[(i + j) % channels.length];
+				int shade = ColorUtils.convert(c1, c2, c3, c2);
+				int color = ColorUtils.convert(c3, c1, c2, c1);
+				assert(RenderUtils.shadeColor(shade, color) == ColorUtils.lerpRBG(shade, color, 500));
+				assert(RenderUtils.shadeColor(color, shade) == ColorUtils.lerpRBG(color, shade, 500));
+			}
+		}
+	}
+}
@@ -0,0 +1,71 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2018 John Salomon - John´s Project
+ *  
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.johnsproject.jpge.utils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link SortUtils}.
+ * 
+ * @author John's Project - John Salomon
+ *
+ */
+public class SortUtilsTest {
+	
+	@Test
+	public void radixSortTest() throws Exception {
+		Random random = new Random(1);
+		int count = 1000;
+		int[] keys = new int[count + 10];
+		int[] values = new int[count + 10];
+		for (int i = 0; i < count; i++) {
+			// few different keys so some keys are equal
+			keys[i] = random.nextInt(200) - 100;
+			values[i] = i;
+		}
+		keys[0] = Integer.MIN_VALUE;
+		keys[1] = Integer.MAX_VALUE;
+		int[] before = Arrays.copyOf(keys, count);
+		SortUtils.radixSort(keys, values, count, new int[count], new int[count], new int[SortUtils.RADIX_SORT_COUNTS]);
+		for (int i = 0; i < count; i++) {
+			assert(keys[i] == before[values[i]]);
+			if (i > 0) {
+				assert(keys[i - 1] <= keys[i]);
+				// values with the same key stay in the same order
+				if (keys[i - 1] == keys[i]) assert(values[i - 1] < values[i]);
+			}
+		}
+		assert(keys[0] == Integer.MIN_VALUE);
+		assert(keys[count - 1] == Integer.MAX_VALUE);
+		// values after count are not sorted
+		assert(values[count] == 0);
+		// keys that are all equal
+		Arrays.fill(keys, 5);
+		SortUtils.radixSort(keys, values, count, new int[count], new int[count], new int[SortUtils.RADIX_SORT_COUNTS]);
+		assert(keys[0] == 5);
+	}
+}